@@ -0,0 +1,26 @@
+package com.care.ride.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the intake benchmarks with the GC profiler attached so every result carries
+ * gc.alloc.rate.norm (bytes allocated per operation). Results are also written as JSON to
+ * target/jmh-result.json for comparison against the baseline in benchmarks/README.md.
+ *
+ *   java -cp ... com.care.ride.bench.BenchmarkMain [includeRegex]
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 && !args[0].isBlank() ? args[0] : "com\\.care\\.ride\\..*Benchmark.*";
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json");
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,47 @@
+package com.care.ride.bench;
+
+import com.care.ride.dto.BookingRequest;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/** Bean validation of the booking payload, as run by @Valid on every POST /api/bookings. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingRequestValidationBenchmark {
+    private ValidatorFactory factory;
+    private Validator validator;
+    private BookingRequest valid;
+    private BookingRequest invalid;
+
+    @Setup
+    public void setup() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+        valid = Fixtures.bookingRequest();
+        invalid = new BookingRequest("", "555-0100", null, " ", "2 Clinic Rd", Instant.now(), null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Object validRequest() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Object invalidRequest() {
+        return validator.validate(invalid);
+    }
+}
@@ -0,0 +1,57 @@
+package com.care.ride.bench;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.ServiceType;
+import com.care.ride.dto.BookingRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking entity construction and the JSON body POST /api/bookings returns
+ * ({@code Map.of("booking", saved, "emailStatus", ...)}), using an ObjectMapper configured the
+ * way Spring Boot configures the MVC one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingResponseBenchmark {
+    private ObjectMapper mapper;
+    private BookingRequest req;
+    private ServiceType serviceType;
+    private Booking saved;
+
+    @Setup
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        req = Fixtures.bookingRequest();
+        serviceType = Fixtures.serviceType();
+        saved = Fixtures.booking(req, serviceType);
+        Fixtures.setField(saved, "id", 1042L);
+    }
+
+    @Benchmark
+    public Booking constructEntity() {
+        return Fixtures.booking(req, serviceType);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws Exception {
+        return mapper.writeValueAsBytes(Map.of("booking", saved, "emailStatus", true));
+    }
+
+    @Benchmark
+    public byte[] constructAndSerialize() throws Exception {
+        Booking b = Fixtures.booking(req, serviceType);
+        return mapper.writeValueAsBytes(Map.of("booking", b, "emailStatus", true));
+    }
+}
@@ -0,0 +1,66 @@
+package com.care.ride.bench;
+
+import com.care.ride.domain.ServiceType;
+import com.care.ride.service.CapacityService;
+import com.care.ride.service.SlotIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Availability engine with six months of future bookings loaded (120 trips a day on a 12-vehicle
+ * fleet): the day view served to the booking UI, and the reserve/release pair on the booking path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapacityBenchmark {
+    private static final int DAYS = 180;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 11, 2);
+
+    private CapacityService capacity;
+    private ServiceType serviceType;
+    private Instant[] pickups;
+    private int next;
+
+    @Setup
+    public void setup() {
+        // repo and catalog are only used by the startup load, which the benchmark does itself
+        capacity = new CapacityService(null, null, 15, "America/New_York");
+        serviceType = Fixtures.serviceType();
+        serviceType.setTripMinutes(60);
+        serviceType.setVehicleCount(12);
+        SplittableRandom random = new SplittableRandom(42);
+        Instant start = FIRST_DAY.atStartOfDay(capacity.zone()).toInstant();
+        for (int day = 0; day < DAYS; day++) {
+            for (int trip = 0; trip < 120; trip++) {
+                // 06:00-20:00 local, five-minute grid
+                Instant pickup = start.plus(Duration.ofDays(day)).plus(Duration.ofMinutes(360 + 5L * random.nextInt(168)));
+                capacity.reserve(serviceType, pickup);
+            }
+        }
+        pickups = new Instant[1024];
+        for (int i = 0; i < pickups.length; i++) {
+            pickups[i] = start.plus(Duration.ofDays(random.nextInt(DAYS))).plus(Duration.ofMinutes(5L * random.nextInt(288)));
+        }
+    }
+
+    @Benchmark
+    public CapacityService.DayAvailability availabilityForDay() {
+        return capacity.availability(serviceType, FIRST_DAY.plusDays(next++ % DAYS));
+    }
+
+    @Benchmark
+    public SlotIndex.Span reserveAndRelease() {
+        SlotIndex.Span span = capacity.reserve(serviceType, pickups[next++ & (pickups.length - 1)]);
+        capacity.release(span);
+        return span;
+    }
+}
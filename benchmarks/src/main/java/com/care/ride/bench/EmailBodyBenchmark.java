@@ -0,0 +1,57 @@
+package com.care.ride.bench;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.dto.BookingRequest;
+import com.care.ride.dto.ContactRequest;
+import com.care.ride.service.NotificationTemplates;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notification bodies composed on every intake, text plus HTML alternative from the compiled
+ * templates, and the bulk import digest listing 200 bookings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailBodyBenchmark {
+    private NotificationTemplates templates;
+    private BookingRequest booking;
+    private ContactRequest contact;
+    private NotificationTemplates.ImportDigest digest;
+
+    @Setup
+    public void setup() {
+        templates = new NotificationTemplates("", 1000, 16);
+        booking = Fixtures.bookingRequest();
+        contact = Fixtures.contactRequest();
+        List<Booking> listed = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Booking b = Fixtures.booking(booking, Fixtures.serviceType());
+            Fixtures.setField(b, "id", 5000L + i);
+            listed.add(b);
+        }
+        digest = new NotificationTemplates.ImportDigest(450, 3, 0, null, listed, 250);
+    }
+
+    @Benchmark
+    public NotificationTemplates.Rendered bookingBody() {
+        return templates.booking(booking);
+    }
+
+    @Benchmark
+    public NotificationTemplates.Rendered contactBody() {
+        return templates.contact(contact);
+    }
+
+    @Benchmark
+    public NotificationTemplates.Rendered importDigest200() {
+        return templates.importDigest(digest);
+    }
+}
@@ -0,0 +1,93 @@
+package com.care.ride.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process SMTP server: advertises AUTH, accepts any credentials and swallows every
+ * message. Enough protocol for Jakarta Mail to connect, authenticate and send over a plain socket.
+ */
+public class FakeSmtpSink implements AutoCloseable {
+    private final ServerSocket server;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong sessions = new AtomicLong();
+
+    public FakeSmtpSink() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "fake-smtp-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int port() { return server.getLocalPort(); }
+    public long messages() { return messages.get(); }
+    public long sessions() { return sessions.get(); }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.submit(() -> handle(socket));
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        sessions.incrementAndGet();
+        try (socket;
+             var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 fake-smtp ESMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String cmd = line.toUpperCase();
+                if (cmd.startsWith("EHLO")) {
+                    reply(out, "250-fake-smtp\r\n250-AUTH PLAIN LOGIN\r\n250 OK");
+                } else if (cmd.startsWith("AUTH PLAIN")) {
+                    if (cmd.trim().equals("AUTH PLAIN")) { reply(out, "334 "); in.readLine(); }
+                    reply(out, "235 2.7.0 Authentication successful");
+                } else if (cmd.startsWith("AUTH LOGIN")) {
+                    reply(out, "334 VXNlcm5hbWU6"); in.readLine();
+                    reply(out, "334 UGFzc3dvcmQ6"); in.readLine();
+                    reply(out, "235 2.7.0 Authentication successful");
+                } else if (cmd.startsWith("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    String data;
+                    while ((data = in.readLine()) != null && !data.equals(".")) { /* discard */ }
+                    messages.incrementAndGet();
+                    reply(out, "250 2.0.0 queued");
+                } else if (cmd.startsWith("QUIT")) {
+                    reply(out, "221 bye");
+                    return;
+                } else {
+                    reply(out, "250 OK");
+                }
+            }
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    private static void reply(OutputStream out, String text) throws IOException {
+        out.write((text + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        connections.shutdownNow();
+    }
+}
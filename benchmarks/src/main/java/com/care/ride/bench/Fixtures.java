@@ -0,0 +1,60 @@
+package com.care.ride.bench;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.ServiceType;
+import com.care.ride.dto.BookingRequest;
+import com.care.ride.dto.ContactRequest;
+import org.springframework.util.ReflectionUtils;
+
+import java.time.Instant;
+
+/** Representative payloads shared by the benchmarks. */
+final class Fixtures {
+    static final Instant PICKUP = Instant.parse("2026-11-02T14:30:00Z");
+
+    private Fixtures() {}
+
+    static BookingRequest bookingRequest() {
+        return new BookingRequest("Margaret Thompson", "(215) 555-0143", "m.thompson@example.com",
+                "1200 Walnut St, Philadelphia, PA 19107", "Penn Dialysis Center, 3400 Spruce St, Philadelphia, PA 19104",
+                PICKUP, 2, "Needs help with the front steps; wheelchair stays in the van.");
+    }
+
+    static ContactRequest contactRequest() {
+        ContactRequest c = new ContactRequest();
+        c.setName("Daniel Ortiz");
+        c.setEmail("d.ortiz@example.com");
+        c.setPhone("(267) 555-0188");
+        c.setReason("Scheduling");
+        c.setMessage("Hello, I would like to set up recurring rides for my father to his therapy appointments "
+                + "on Mondays, Wednesdays and Fridays. Please call me back in the afternoon.");
+        return c;
+    }
+
+    static ServiceType serviceType() {
+        ServiceType st = new ServiceType();
+        setField(st, "id", 2);
+        st.setName("Wheelchair Transport");
+        st.setDescription("Accessible van with ramp");
+        return st;
+    }
+
+    static Booking booking(BookingRequest req, ServiceType st) {
+        Booking b = new Booking();
+        b.setFullName(req.fullName());
+        b.setPhone(req.phone());
+        b.setEmail(req.email());
+        b.setPickupAddress(req.pickupAddress());
+        b.setDropoffAddress(req.dropoffAddress());
+        b.setPickupTime(req.pickupTime());
+        b.setNotes(req.notes());
+        b.setServiceType(st);
+        return b;
+    }
+
+    static void setField(Object target, String name, Object value) {
+        var field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
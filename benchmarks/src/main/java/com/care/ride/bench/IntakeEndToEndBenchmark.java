@@ -0,0 +1,98 @@
+package com.care.ride.bench;
+
+import com.care.ride.CareRideApplication;
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.ServiceType;
+import com.care.ride.dto.BookingRequest;
+import com.care.ride.service.EmailService;
+import com.care.ride.service.IntakeService;
+import com.care.ride.service.NotificationTemplates;
+import com.care.ride.service.ServiceTypeCatalog;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the application against in-memory H2 and a {@link FakeSmtpSink} and measures the
+ * services behind the intake endpoints: the booking + outbox transaction, and outbox delivery
+ * of one message and of a 20-message batch over the pooled SMTP transport.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntakeEndToEndBenchmark {
+    private FakeSmtpSink smtp;
+    private ConfigurableApplicationContext context;
+    private IntakeService intake;
+    private EmailService email;
+    private BookingRequest req;
+    private ServiceType serviceType;
+    private NotificationTemplates.Rendered bookingBody;
+    private List<SimpleMailMessage> one;
+    private List<SimpleMailMessage> twenty;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        smtp = new FakeSmtpSink();
+        // command-line args, not builder properties: those are defaults and lose to application.yml
+        context = new SpringApplicationBuilder(CareRideApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=validate",
+                "--spring.mail.host=127.0.0.1",
+                "--spring.mail.port=" + smtp.port(),
+                "--spring.mail.password=bench",
+                // the benchmark drives delivery itself
+                "--mail.outbox.initial-delay-ms=86400000",
+                "--logging.level.com.care.ride=WARN");
+        intake = context.getBean(IntakeService.class);
+        email = context.getBean(EmailService.class);
+        serviceType = context.getBean(ServiceTypeCatalog.class).all().get(0);
+        req = Fixtures.bookingRequest();
+        bookingBody = context.getBean(NotificationTemplates.class).booking(req);
+        one = List.of(message(0));
+        twenty = new ArrayList<>();
+        for (int i = 0; i < 20; i++) twenty.add(message(i));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        smtp.close();
+    }
+
+    @Benchmark
+    public Booking saveBookingWithOutbox() {
+        Booking b = Fixtures.booking(req, serviceType);
+        return intake.saveBooking(b, "dispatch@example.com", "New Ride Booking: " + req.fullName(), bookingBody);
+    }
+
+    @Benchmark
+    public Object sendOnePooled() {
+        return email.sendBatch(one);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(20)
+    public Object sendBatchOf20() {
+        return email.sendBatch(twenty);
+    }
+
+    private SimpleMailMessage message(int i) {
+        SimpleMailMessage m = new SimpleMailMessage();
+        m.setTo("dispatch@example.com");
+        m.setSubject("New Ride Booking #" + i);
+        m.setText(bookingBody.text());
+        return m;
+    }
+}
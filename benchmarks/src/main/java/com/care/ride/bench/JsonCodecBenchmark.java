@@ -0,0 +1,94 @@
+package com.care.ride.bench;
+
+import com.care.ride.config.IsoInstantModule;
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.ServiceType;
+import com.care.ride.dto.BookingCreated;
+import com.care.ride.dto.BookingRequest;
+import com.care.ride.dto.BookingView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JSON the intake endpoints read and write, with the ObjectMapper as Spring Boot configures it
+ * ({@code default}) and with the {@link IsoInstantModule} the app adds ({@code isoInstant}). Bodies
+ * are read from and written to streams, as the MVC message converter does, so the numbers are
+ * Jackson's own work rather than a byte[] copy.
+ *
+ * {@code writeBookingEntity} / {@code writeCatalogEntities} are the old response bodies (entity in
+ * a Map, entity list); {@code writeBookingView} is the record POST /api/bookings returns now. The
+ * catalog is no longer serialized per request at all: /api/services writes the snapshot's bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonCodecBenchmark {
+    @Param({"default", "isoInstant"})
+    public String codec;
+
+    // Jackson closes the target after each value; this one stays usable
+    private static final OutputStream SINK = new OutputStream() {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] b, int off, int len) {}
+    };
+
+    private ObjectMapper mapper;
+    private byte[] requestBody;
+    private Booking saved;
+    private List<ServiceType> catalog;
+
+    @Setup
+    public void setup() throws Exception {
+        var builder = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (codec.equals("isoInstant")) builder.modulesToInstall(new IsoInstantModule());
+        mapper = builder.build();
+        BookingRequest req = Fixtures.bookingRequest();
+        requestBody = mapper.writeValueAsBytes(req);
+        saved = Fixtures.booking(req, Fixtures.serviceType());
+        Fixtures.setField(saved, "id", 1042L);
+        catalog = new ArrayList<>();
+        String[] names = {"Ambulatory", "Wheelchair Transport", "Stretcher Transport", "Dialysis Shuttle"};
+        for (int i = 0; i < names.length; i++) {
+            ServiceType st = new ServiceType();
+            Fixtures.setField(st, "id", i + 1);
+            st.setName(names[i]);
+            st.setDescription(names[i] + " rides to medical appointments across the county");
+            catalog.add(st);
+        }
+    }
+
+    @Benchmark
+    public BookingRequest readBookingRequest() throws Exception {
+        return mapper.readValue(new ByteArrayInputStream(requestBody), BookingRequest.class);
+    }
+
+    @Benchmark
+    public void writeBookingEntity() throws Exception {
+        mapper.writeValue(SINK, Map.of("booking", saved, "emailStatus", true));
+    }
+
+    @Benchmark
+    public void writeBookingView() throws Exception {
+        mapper.writeValue(SINK, new BookingCreated(BookingView.of(saved), true));
+    }
+
+    @Benchmark
+    public void writeCatalogEntities() throws Exception {
+        mapper.writeValue(SINK, catalog);
+    }
+}
@@ -0,0 +1,64 @@
+package com.care.ride.bench;
+
+import com.care.ride.service.Geocoder;
+import com.care.ride.service.RunPlanner;
+import com.care.ride.service.StaticGeocoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One day's run plan from a few hundred to tens of thousands of PENDING rides: homes spread over
+ * the synthetic geocoder's area, 60 shared destinations (dialysis centers, hospitals), three
+ * service types, pickups 06:00-20:00. {@code parallelism} is the planner's fork-join pool size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RunPlannerBenchmark {
+    @Param({"300", "3000", "30000"})
+    public int bookings;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private RunPlanner planner;
+    private List<RunPlanner.Ride> rides;
+
+    @Setup
+    public void setup() throws IOException {
+        pool = new ForkJoinPool(parallelism);
+        planner = new RunPlanner(3, Duration.ofMinutes(20), 4, 1, pool);
+        Geocoder geocoder = new StaticGeocoder("", true, "39.9526,-75.1652");
+        SplittableRandom random = new SplittableRandom(7);
+        Instant day = Instant.parse("2026-11-02T11:00:00Z");
+        rides = new ArrayList<>(bookings);
+        for (int i = 0; i < bookings; i++) {
+            rides.add(new RunPlanner.Ride(i, 1 + random.nextInt(3),
+                    day.plusSeconds(60L * random.nextInt(14 * 60)),
+                    geocoder.locate(random.nextInt(bookings * 4) + " Residential Ave").orElseThrow(),
+                    geocoder.locate("Destination " + random.nextInt(60)).orElseThrow()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<RunPlanner.Run> planDay() {
+        return planner.plan(rides);
+    }
+}
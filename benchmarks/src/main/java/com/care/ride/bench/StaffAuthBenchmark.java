@@ -0,0 +1,72 @@
+package com.care.ride.bench;
+
+import com.care.ride.service.StaffTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What authenticating a staff request costs: a bearer token already in the verification cache
+ * (every request after a token's first), the full parse and HMAC check a cache miss pays, and the
+ * BCrypt check behind a password login at the default cost of 12 against 10.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StaffAuthBenchmark {
+    private static final int TOKENS = 256;
+
+    private StaffTokenService tokens;
+    private String[] issued;
+    private int next;
+
+    @Setup
+    public void setup() {
+        tokens = new StaffTokenService("k2:benchmark-signing-key-2-0123456789abcdef,k1:benchmark-signing-key-1-0123456789abcdef",
+                "", "care-ride", 60, 10_000, new SimpleMeterRegistry());
+        issued = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            issued[i] = tokens.issue("staff" + i, List.of("DISPATCH")).token();
+            tokens.authenticate(issued[i]);
+        }
+    }
+
+    @Benchmark
+    public StaffTokenService.StaffPrincipal authenticateCached() {
+        return tokens.authenticate(issued[next++ & (TOKENS - 1)]);
+    }
+
+    @Benchmark
+    public StaffTokenService.StaffPrincipal verifyUncached() {
+        return tokens.verify(issued[next++ & (TOKENS - 1)]);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Passwords {
+        @Param({"10", "12"})
+        int cost;
+
+        BCryptPasswordEncoder encoder;
+        String hash;
+
+        @Setup
+        public void setup() {
+            encoder = new BCryptPasswordEncoder(cost);
+            hash = encoder.encode("dispatcher-password-1");
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    public boolean bcryptMatches(Passwords passwords) {
+        return passwords.encoder.matches("dispatcher-password-1", passwords.hash);
+    }
+}
@@ -0,0 +1,54 @@
+package com.care.ride.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmailService transport route selection. Lives in the service package because the route list
+ * is package-private. buildAttempts() is the list construction the service used to repeat per
+ * message; orderedAttempts() is what runs per send now (cached list + learned route + breaker).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AttemptListBenchmark {
+    @Param({"smtp.office365.com", "smtp.mail.us-east-1.awsapps.com"})
+    public String host;
+
+    private EmailService service;
+
+    @Setup
+    public void setup() {
+        service = new EmailService(new SmtpTransportPool(), new Bulkhead("smtp", 2, 1000), new SimpleMeterRegistry());
+        set("configuredHost", host);
+        set("configuredPort", 587);
+        set("configuredSender", "contact@careridesolutionspa.com");
+        set("configuredPassword", "secret");
+        set("configuredProtocol", "smtp");
+        set("breakerFailureThreshold", 3);
+        set("breakerOpenMs", 300000L);
+    }
+
+    @Benchmark
+    public List<EmailService.Attempt> buildAttempts() {
+        return service.buildAttempts();
+    }
+
+    @Benchmark
+    public List<EmailService.Attempt> orderedAttempts() {
+        return service.orderedAttempts();
+    }
+
+    private void set(String name, Object value) {
+        var field = ReflectionUtils.findField(EmailService.class, name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, service, value);
+    }
+}
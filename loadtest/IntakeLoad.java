@@ -0,0 +1,91 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-model load against POST /api/bookings (or /api/contact). Single-file program, run with Java 21:
+ *
+ *   java loadtest/IntakeLoad.java [baseUrl] [concurrency] [seconds] [serviceTypeId] [bookings|contact]
+ *
+ * Prints throughput, latency percentiles and status-code counts. All requests come from one address,
+ * so start the app with INTAKE_RATE_LIMIT_ENABLED=false unless the point is to load the limiter.
+ */
+public class IntakeLoad {
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int serviceTypeId = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        boolean contact = args.length > 4 && args[4].equals("contact");
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        // every body differs (load #n) so duplicate-submission replay does not short-circuit the run
+        String body = contact ? """
+                {"name":"Load Test","email":"load@example.com","phone":"555-0100",
+                 "reason":"General question","message":"Do you cover trips to the dialysis center on Saturdays? (load #%d)"}
+                """ : """
+                {"fullName":"Load Test","phone":"555-0100","email":"load@example.com",
+                 "pickupAddress":"1 Main St","dropoffAddress":"2 Clinic Rd",
+                 "pickupTime":"%s","serviceTypeId":%d,"notes":"load #%%d"}
+                """.formatted(Instant.now().plus(Duration.ofDays(1)), serviceTypeId);
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + (contact ? "/api/contact" : "/api/bookings")))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30));
+        AtomicLong sequence = new AtomicLong();
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong ok = new AtomicLong(), busy = new AtomicLong(), limited = new AtomicLong(), other = new AtomicLong(), errors = new AtomicLong();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        long started = System.nanoTime();
+
+        try (var workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long t0 = System.nanoTime();
+                        try {
+                            int status = client.send(request.copy().POST(HttpRequest.BodyPublishers.ofString(body.formatted(sequence.incrementAndGet()))).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                            latencies.add(System.nanoTime() - t0);
+                            if (status == 201 || status == 200) ok.incrementAndGet();
+                            else if (status == 503) busy.incrementAndGet();
+                            else if (status == 429) limited.incrementAndGet();
+                            else other.incrementAndGet();
+                        } catch (Exception ex) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        List<String> lines = new ArrayList<>();
+        lines.add("concurrency=%d duration=%.1fs requests=%d".formatted(concurrency, elapsed, sorted.length));
+        lines.add("throughput=%.1f req/s".formatted(sorted.length / elapsed));
+        lines.add("p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms".formatted(
+                pct(sorted, 50), pct(sorted, 90), pct(sorted, 99), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6));
+        lines.add("2xx=%d 503=%d 429=%d other=%d errors=%d".formatted(ok.get(), busy.get(), limited.get(), other.get(), errors.get()));
+        lines.forEach(System.out::println);
+    }
+
+    private static double pct(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))] / 1e6;
+    }
+}
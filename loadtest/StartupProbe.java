@@ -0,0 +1,85 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cold-start time and memory of one way of launching the app. Single-file program, run with Java 21
+ * on Linux (RSS comes from /proc):
+ *
+ *   java loadtest/StartupProbe.java [runs] [readyUrl] -- <command that starts the app...>
+ *
+ * Each run starts the command, polls readyUrl (default http://localhost:8080/api/ping) until it
+ * answers 200, reads the process's resident and peak memory at that moment, then stops it. Prints
+ * every run and the median. Keep the box otherwise idle; the first run also warms the page cache,
+ * so it is reported but left out of the median.
+ */
+public class StartupProbe {
+    public static void main(String[] args) throws Exception {
+        int split = Arrays.asList(args).indexOf("--");
+        if (split < 0 || split == args.length - 1) {
+            System.err.println("usage: java loadtest/StartupProbe.java [runs] [readyUrl] -- <command...>");
+            System.exit(2);
+        }
+        int runs = split > 0 ? Integer.parseInt(args[0]) : 5;
+        URI ready = URI.create(split > 1 ? args[1] : "http://localhost:8080/api/ping");
+        List<String> command = List.of(Arrays.copyOfRange(args, split + 1, args.length));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest ping = HttpRequest.newBuilder(ready).timeout(Duration.ofSeconds(2)).build();
+        Path log = Files.createTempFile("startup-probe", ".log");
+        List<long[]> results = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            long t0 = System.nanoTime();
+            Process p = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+            try {
+                long deadline = t0 + Duration.ofMinutes(3).toNanos();
+                while (!up(client, ping)) {
+                    if (!p.isAlive()) throw new IllegalStateException("exited with " + p.exitValue() + ", see " + log);
+                    if (System.nanoTime() > deadline) throw new IllegalStateException("not ready after 3 min, see " + log);
+                    Thread.sleep(20);
+                }
+                long ms = (System.nanoTime() - t0) / 1_000_000;
+                long rss = statusKb(p.pid(), "VmRSS:");
+                long hwm = statusKb(p.pid(), "VmHWM:");
+                System.out.printf("run %d: ready %d ms, rss %d MB, peak rss %d MB%n", run, ms, rss / 1024, hwm / 1024);
+                if (run > 1 || runs == 1) results.add(new long[] {ms, rss, hwm});
+            } finally {
+                p.destroy();
+                p.waitFor();
+            }
+        }
+        System.out.printf("median of %d: ready %d ms, rss %d MB, peak rss %d MB%n", results.size(),
+                median(results, 0), median(results, 1) / 1024, median(results, 2) / 1024);
+    }
+
+    private static boolean up(HttpClient client, HttpRequest ping) {
+        try {
+            return client.send(ping, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static long statusKb(long pid, String field) throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc/" + pid + "/status"))) {
+            if (line.startsWith(field)) return Long.parseLong(line.substring(field.length()).replace("kB", "").trim());
+        }
+        return -1;
+    }
+
+    private static long median(List<long[]> results, int column) {
+        long[] v = results.stream().mapToLong(r -> r[column]).sorted().toArray();
+        return v[v.length / 2];
+    }
+}
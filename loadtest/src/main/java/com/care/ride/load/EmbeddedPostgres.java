@@ -0,0 +1,142 @@
+package com.care.ride.load;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * A throwaway Postgres 15 server for one load-test run, from the server binaries packaged in
+ * io.zonky.test.postgres:embedded-postgres-binaries-linux-amd64 (no network, no Docker, no system
+ * install). The binaries are unpacked once under {@code target/embedded-postgres}; each run gets a
+ * fresh cluster in a temp directory, on a free loopback port, with default durability settings so
+ * commit latency is comparable to a real server. Postgres refuses to start as root.
+ */
+public class EmbeddedPostgres implements AutoCloseable {
+    private static final String ARCHIVE = "/postgres-linux-x86_64.txz";
+
+    private final Path home;
+    private final Path data;
+    private final int port;
+
+    private EmbeddedPostgres(Path home, Path data, int port) {
+        this.home = home;
+        this.data = data;
+        this.port = port;
+    }
+
+    /** Unpack (first time), initdb, start, and create database {@code name} owned by user postgres. */
+    public static EmbeddedPostgres start(Path cacheDir, String name) throws Exception {
+        if ("root".equals(System.getProperty("user.name"))) {
+            throw new IllegalStateException("Postgres will not run as root; run the load test as another user or use -db=h2");
+        }
+        Path home = unpack(cacheDir);
+        Path data = Files.createTempDirectory("loadtest-pg");
+        int port;
+        try (ServerSocket probe = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = probe.getLocalPort();
+        }
+        EmbeddedPostgres pg = new EmbeddedPostgres(home, data, port);
+        run(home, List.of("initdb", "-D", data.resolve("pgdata").toString(), "-U", "postgres", "-A", "trust",
+                "-E", "UTF8", "--no-locale"));
+        run(home, List.of("pg_ctl", "-D", data.resolve("pgdata").toString(), "-w", "-t", "60",
+                "-l", data.resolve("postgres.log").toString(),
+                "-o", "-p " + port + " -c listen_addresses=127.0.0.1 -c unix_socket_directories=" + data
+                        + " -c max_connections=100",
+                "start"));
+        try (Connection c = DriverManager.getConnection(pg.jdbcUrl("postgres"), "postgres", "");
+             Statement st = c.createStatement()) {
+            st.execute("create database " + name);
+        }
+        return pg;
+    }
+
+    public String jdbcUrl(String database) {
+        return "jdbc:postgresql://127.0.0.1:" + port + "/" + database;
+    }
+
+    private static Path unpack(Path cacheDir) throws IOException {
+        Path home = cacheDir.toAbsolutePath();
+        if (Files.isExecutable(home.resolve("bin/postgres"))) return home;
+        InputStream archive = EmbeddedPostgres.class.getResourceAsStream(ARCHIVE);
+        if (archive == null) throw new IllegalStateException(ARCHIVE + " not on the classpath (linux-amd64 binaries only)");
+        Path partial = Files.createTempDirectory(home.getParent() == null ? Path.of(".") : Files.createDirectories(home.getParent()),
+                "embedded-postgres");
+        List<TarArchiveEntry> links = new ArrayList<>();
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new XZCompressorInputStream(new BufferedInputStream(archive)))) {
+            TarArchiveEntry e;
+            while ((e = tar.getNextEntry()) != null) {
+                Path target = partial.resolve(e.getName()).normalize();
+                if (!target.startsWith(partial)) throw new IOException("bad archive entry " + e.getName());
+                if (e.isDirectory()) {
+                    Files.createDirectories(target);
+                } else if (e.isSymbolicLink()) {
+                    links.add(e);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.copy(tar, target, StandardCopyOption.REPLACE_EXISTING);
+                    Files.setPosixFilePermissions(target, permissions(e.getMode()));
+                }
+            }
+        }
+        // after the files, so a link never points at something not yet written
+        for (TarArchiveEntry link : links) {
+            Path target = partial.resolve(link.getName()).normalize();
+            Files.createDirectories(target.getParent());
+            Files.createSymbolicLink(target, Path.of(link.getLinkName()));
+        }
+        if (Files.exists(home)) delete(home);
+        Files.move(partial, home, StandardCopyOption.ATOMIC_MOVE);
+        return home;
+    }
+
+    private static Set<PosixFilePermission> permissions(int mode) {
+        Set<PosixFilePermission> perms = EnumSet.noneOf(PosixFilePermission.class);
+        PosixFilePermission[] bits = PosixFilePermission.values(); // OWNER_READ .. OTHERS_EXECUTE, high bit first
+        for (int i = 0; i < bits.length; i++) {
+            if ((mode & (1 << (bits.length - 1 - i))) != 0) perms.add(bits[i]);
+        }
+        return perms;
+    }
+
+    private static void run(Path home, List<String> command) throws IOException, InterruptedException {
+        List<String> full = new ArrayList<>(command);
+        full.set(0, home.resolve("bin").resolve(command.get(0)).toString());
+        Process p = new ProcessBuilder(full).redirectErrorStream(true).start();
+        String output = new String(p.getInputStream().readAllBytes());
+        if (p.waitFor() != 0) throw new IllegalStateException(command.get(0) + " failed:\n" + output);
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            run(home, List.of("pg_ctl", "-D", data.resolve("pgdata").toString(), "-m", "fast", "-w", "stop"));
+        } finally {
+            delete(data);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
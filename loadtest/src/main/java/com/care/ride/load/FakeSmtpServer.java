@@ -0,0 +1,184 @@
+package com.care.ride.load;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process SMTP server on loopback with injectable faults, one instance per EmailService route.
+ * In {@code ok} mode it advertises AUTH, accepts any credentials and swallows messages (plain socket
+ * only: no TLS, so only a plain route can actually deliver through it). The other modes reproduce
+ * how a provider fails:
+ * <ul>
+ *   <li>{@code hang}: accepts the connection and never answers, so the client waits out its read
+ *       timeout (what an unreachable office365 endpoint looks like from here)</li>
+ *   <li>{@code drop}: closes the connection straight after accepting it</li>
+ *   <li>{@code auth-fail}: answers AUTH with 535</li>
+ * </ul>
+ * and in {@code ok} mode {@code latency} delays every reply, {@code tempfail} and {@code reject}
+ * answer that fraction of messages with 451 / 550 at the end of DATA.
+ */
+public class FakeSmtpServer implements AutoCloseable {
+
+    public enum Mode { OK, HANG, DROP, AUTH_FAIL }
+
+    /** Parsed from {@code mode[,latency=ms][,tempfail=fraction][,reject=fraction]}, e.g. {@code ok,latency=150,tempfail=0.05}. */
+    public record Fault(Mode mode, long latencyMs, double tempFail, double reject) {
+        public static final Fault OK = new Fault(Mode.OK, 0, 0, 0);
+
+        public static Fault parse(String spec) {
+            String[] parts = spec.trim().split(",");
+            Mode mode = Mode.valueOf(parts[0].trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            long latency = 0;
+            double tempFail = 0, reject = 0;
+            for (int i = 1; i < parts.length; i++) {
+                String[] kv = parts[i].split("=", 2);
+                if (kv.length != 2) throw new IllegalArgumentException("expected key=value in smtp fault: " + parts[i]);
+                switch (kv[0].trim()) {
+                    case "latency" -> latency = Long.parseLong(kv[1].trim());
+                    case "tempfail" -> tempFail = Double.parseDouble(kv[1].trim());
+                    case "reject" -> reject = Double.parseDouble(kv[1].trim());
+                    default -> throw new IllegalArgumentException("unknown smtp fault option: " + kv[0]);
+                }
+            }
+            return new Fault(mode, latency, tempFail, reject);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder(mode.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+            if (latencyMs > 0) s.append(",latency=").append(latencyMs);
+            if (tempFail > 0) s.append(",tempfail=").append(tempFail);
+            if (reject > 0) s.append(",reject=").append(reject);
+            return s.toString();
+        }
+    }
+
+    private final ServerSocket server;
+    private final Fault fault;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong sessions = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong tempFailed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /** Listens on {@code port} (0 = any free port) of the loopback address. */
+    public FakeSmtpServer(int port, Fault fault) throws IOException {
+        this.fault = fault;
+        this.server = new ServerSocket(port, 100, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "fake-smtp-" + server.getLocalPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int port() { return server.getLocalPort(); }
+    public Fault fault() { return fault; }
+    public long sessions() { return sessions.get(); }
+    public long delivered() { return delivered.get(); }
+    public long tempFailed() { return tempFailed.get(); }
+    public long rejected() { return rejected.get(); }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                sessions.incrementAndGet();
+                connections.submit(() -> handle(socket));
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            switch (fault.mode()) {
+                case DROP -> { /* closed by try-with-resources */ }
+                case HANG -> drain(socket.getInputStream());
+                default -> converse(socket);
+            }
+        } catch (IOException ignored) {
+            // client went away or timed out
+        }
+    }
+
+    // read and discard until the client gives up and closes, never answering
+    private static void drain(InputStream in) throws IOException {
+        byte[] buf = new byte[1024];
+        while (in.read(buf) >= 0) { /* discard */ }
+    }
+
+    private void converse(Socket socket) throws IOException {
+        var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        OutputStream out = socket.getOutputStream();
+        reply(out, "220 fake-smtp ESMTP");
+        String line;
+        while ((line = in.readLine()) != null) {
+            String cmd = line.toUpperCase(Locale.ROOT);
+            if (cmd.startsWith("EHLO")) {
+                reply(out, "250-fake-smtp\r\n250-AUTH PLAIN LOGIN\r\n250 OK");
+            } else if (cmd.startsWith("AUTH PLAIN")) {
+                if (cmd.trim().equals("AUTH PLAIN")) { reply(out, "334 "); in.readLine(); }
+                authenticated(out);
+            } else if (cmd.startsWith("AUTH LOGIN")) {
+                reply(out, "334 VXNlcm5hbWU6"); in.readLine();
+                reply(out, "334 UGFzc3dvcmQ6"); in.readLine();
+                authenticated(out);
+            } else if (cmd.startsWith("DATA")) {
+                reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                String data;
+                while ((data = in.readLine()) != null && !data.equals(".")) { /* discard */ }
+                double roll = ThreadLocalRandom.current().nextDouble();
+                if (roll < fault.tempFail()) {
+                    tempFailed.incrementAndGet();
+                    reply(out, "451 4.3.0 Temporary server error, try again later");
+                } else if (roll < fault.tempFail() + fault.reject()) {
+                    rejected.incrementAndGet();
+                    reply(out, "550 5.7.1 Message rejected");
+                } else {
+                    delivered.incrementAndGet();
+                    reply(out, "250 2.0.0 queued");
+                }
+            } else if (cmd.startsWith("QUIT")) {
+                reply(out, "221 bye");
+                return;
+            } else {
+                reply(out, "250 OK");
+            }
+        }
+    }
+
+    private void authenticated(OutputStream out) throws IOException {
+        reply(out, fault.mode() == Mode.AUTH_FAIL ? "535 5.7.3 Authentication unsuccessful" : "235 2.7.0 Authentication successful");
+    }
+
+    private void reply(OutputStream out, String text) throws IOException {
+        if (fault.latencyMs() > 0) {
+            try {
+                Thread.sleep(fault.latencyMs());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted");
+            }
+        }
+        out.write((text + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        connections.shutdownNow();
+    }
+}
@@ -0,0 +1,252 @@
+package com.care.ride.load;
+
+import com.care.ride.CareRideApplication;
+import com.care.ride.service.EmailOutboxService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One end-to-end load-test run, entirely on this machine: start the fake SMTP routes and the
+ * database, boot {@link CareRideApplication} in this JVM against them, drive open-model traffic
+ * at the public API, then print (and write as JSON) client-side throughput and latency
+ * percentiles next to the app's own intake and mail meters.
+ *
+ * Options are {@code -name=value}; anything starting with {@code --} is handed to Spring as a
+ * property override. See loadtest/README.md for the list and example scenarios.
+ */
+public class LoadTestMain {
+
+    // EmailService derives these from spring.mail.host/port: the configured port first, then fixed ports
+    private static final Map<String, Integer> FALLBACK_ROUTES = new LinkedHashMap<>();
+    static {
+        FALLBACK_ROUTES.put("ssl465", 465);
+        FALLBACK_ROUTES.put("starttls587", 587);
+        FALLBACK_ROUTES.put("plain25", 25);
+    }
+
+    private static PrintStream out = System.out;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        Map<String, String> overrides = new LinkedHashMap<>();
+        for (String a : args) {
+            if (a.isBlank()) continue;
+            boolean spring = a.startsWith("--");
+            String[] kv = a.substring(spring ? 2 : 1).split("=", 2);
+            (spring ? overrides : opts).put(kv[0], kv.length > 1 ? kv[1] : "true");
+        }
+        String db = opts.getOrDefault("db", "h2");
+        OpenLoad.Settings settings = new OpenLoad.Settings(
+                Double.parseDouble(opts.getOrDefault("rate", "40")),
+                Duration.ofSeconds(Long.parseLong(opts.getOrDefault("warmup", "15"))),
+                Duration.ofSeconds(Long.parseLong(opts.getOrDefault("duration", "60"))),
+                mix(opts.getOrDefault("mix", "bookings:2,contact:1,services:7")),
+                !"uniform".equals(opts.getOrDefault("arrivals", "poisson")),
+                Long.parseLong(opts.getOrDefault("seed", "1")),
+                Duration.ofSeconds(Long.parseLong(opts.getOrDefault("timeout", "30"))),
+                Integer.parseInt(opts.getOrDefault("max-in-flight", "2000")),
+                Integer.parseInt(opts.getOrDefault("service-type", "1")));
+        long settleSeconds = Long.parseLong(opts.getOrDefault("settle", "30"));
+        Path reportFile = Path.of(opts.getOrDefault("report", "target/loadtest-report.json"));
+        Path appLog = Path.of(opts.getOrDefault("app-log", "target/loadtest-app.log"));
+
+        // the app logs to the console; keep that out of the report by giving it a file as System.out
+        Files.createDirectories(appLog.toAbsolutePath().getParent());
+        out = System.out;
+        System.setOut(new PrintStream(Files.newOutputStream(appLog), true));
+        out.println("app log: " + appLog);
+
+        List<AutoCloseable> resources = new ArrayList<>();
+        try {
+            Map<String, FakeSmtpServer> smtp = smtpRoutes(opts, resources);
+            Map<String, String> props = new LinkedHashMap<>();
+            props.put("server.port", "0");
+            props.putAll(database(db, opts, resources));
+            props.put("spring.mail.host", "127.0.0.1");
+            props.put("spring.mail.port", Integer.toString(smtp.get("configured").port()));
+            props.put("spring.mail.username", "loadtest@example.com");
+            props.put("spring.mail.password", "loadtest");
+            // every request comes from this one address
+            props.put("intake.rate-limit.enabled", "false");
+            props.putAll(overrides);
+
+            long boot = System.nanoTime();
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(CareRideApplication.class)
+                    .run(props.entrySet().stream().map(p -> "--" + p.getKey() + "=" + p.getValue()).toArray(String[]::new));
+            resources.add(0, context);
+            String base = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+            out.printf(Locale.ROOT, "app up in %.1f s on %s (db=%s)%n", (System.nanoTime() - boot) / 1e9, base, db);
+            smtp.forEach((route, s) -> out.printf("smtp route %-12s 127.0.0.1:%d %s%n", route, s.port(), s.fault()));
+            out.printf(Locale.ROOT, "load: %.1f req/s %s, mix %s, %d s warm-up + %d s measured%n", settings.rate(),
+                    settings.poisson() ? "poisson" : "uniform", settings.mix(), settings.warmup().toSeconds(),
+                    settings.duration().toSeconds());
+
+            OpenLoad.Summary summary = new OpenLoad(base, settings).run();
+            Map<String, Object> app = appSide(context, settleSeconds);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("db", db);
+            report.put("smtp", smtpSide(smtp));
+            report.put("load", summary);
+            report.put("app", app);
+            print(summary, report);
+            Files.createDirectories(reportFile.toAbsolutePath().getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile.toFile(), report);
+            out.println("report written to " + reportFile);
+        } finally {
+            for (AutoCloseable r : resources) {
+                try {
+                    r.close();
+                } catch (Exception ex) {
+                    System.err.println("shutdown: " + ex.getMessage());
+                }
+            }
+        }
+        System.exit(0);
+    }
+
+    private static Map<OpenLoad.Endpoint, Integer> mix(String spec) {
+        Map<OpenLoad.Endpoint, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":", 2);
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1]) : 1;
+            if (weight > 0) mix.put(OpenLoad.Endpoint.valueOf(kv[0].toUpperCase(Locale.ROOT)), weight);
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("empty -mix");
+        return mix;
+    }
+
+    /**
+     * The configured route gets a free port; the fallback routes listen on their real ports when
+     * given a fault and this user may bind them (root or CAP_NET_BIND_SERVICE), otherwise nothing
+     * listens there and EmailService sees connection refused, as it would from a closed firewall.
+     */
+    private static Map<String, FakeSmtpServer> smtpRoutes(Map<String, String> opts, List<AutoCloseable> resources) throws IOException {
+        Map<String, FakeSmtpServer> routes = new LinkedHashMap<>();
+        FakeSmtpServer configured = new FakeSmtpServer(0, FakeSmtpServer.Fault.parse(opts.getOrDefault("smtp.configured", "ok")));
+        resources.add(configured);
+        routes.put("configured", configured);
+        for (Map.Entry<String, Integer> r : FALLBACK_ROUTES.entrySet()) {
+            String spec = opts.get("smtp." + r.getKey());
+            if (spec == null) continue;
+            try {
+                FakeSmtpServer s = new FakeSmtpServer(r.getValue(), FakeSmtpServer.Fault.parse(spec));
+                resources.add(s);
+                routes.put(r.getKey(), s);
+            } catch (IOException ex) {
+                System.err.printf("smtp route %s: cannot listen on %d (%s); it will see connection refused%n",
+                        r.getKey(), r.getValue(), ex.getMessage());
+            }
+        }
+        return routes;
+    }
+
+    private static Map<String, String> database(String db, Map<String, String> opts, List<AutoCloseable> resources) throws Exception {
+        Map<String, String> props = new LinkedHashMap<>();
+        switch (db) {
+            case "h2" -> {
+                props.put("spring.datasource.url", "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+                props.put("spring.datasource.username", "sa");
+                props.put("spring.datasource.password", "");
+            }
+            case "postgres" -> {
+                long start = System.nanoTime();
+                EmbeddedPostgres pg = EmbeddedPostgres.start(Path.of(opts.getOrDefault("pg-cache", "target/embedded-postgres")), "loadtest");
+                resources.add(pg);
+                out.printf(Locale.ROOT, "embedded postgres up in %.1f s%n", (System.nanoTime() - start) / 1e9);
+                props.put("spring.datasource.url", pg.jdbcUrl("loadtest"));
+                props.put("spring.datasource.username", "postgres");
+                props.put("spring.datasource.password", "");
+            }
+            default -> {
+                if (!db.startsWith("jdbc:")) throw new IllegalArgumentException("-db must be h2, postgres or a JDBC URL");
+                props.put("spring.datasource.url", db);
+                props.put("spring.datasource.username", opts.getOrDefault("db-user", "careuser"));
+                props.put("spring.datasource.password", opts.getOrDefault("db-password", ""));
+            }
+        }
+        return props;
+    }
+
+    /** Waits up to {@code settleSeconds} for the outbox to drain, then reads the app's own meters. */
+    private static Map<String, Object> appSide(ConfigurableApplicationContext context, long settleSeconds) throws InterruptedException {
+        EmailOutboxService outbox = context.getBean(EmailOutboxService.class);
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(settleSeconds);
+        long depth;
+        while ((depth = outbox.depth()) > 0 && System.nanoTime() < deadline) Thread.sleep(500);
+
+        Map<String, Object> app = new LinkedHashMap<>();
+        Map<String, Object> intake = new LinkedHashMap<>();
+        for (Timer t : registry.find("intake.request").timers()) {
+            intake.put(t.getId().getTag("type") + "/" + t.getId().getTag("outcome"), timer(t));
+        }
+        app.put("intakeRequest", intake);
+        Map<String, Long> attempts = new LinkedHashMap<>();
+        for (Counter c : registry.find("mail.smtp.attempts").counters()) {
+            attempts.put(c.getId().getTag("route") + "/" + c.getId().getTag("result"), (long) c.count());
+        }
+        app.put("smtpAttempts", attempts);
+        Timer lag = registry.find("mail.outbox.delivery.lag").timer();
+        app.put("outboxDeliveryLag", lag == null ? null : timer(lag));
+        app.put("outboxDepthAfterSettle", depth);
+        return app;
+    }
+
+    private static Map<String, Object> timer(Timer t) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("count", t.count());
+        m.put("meanMs", Math.round(t.mean(TimeUnit.MILLISECONDS) * 10) / 10.0);
+        m.put("maxMs", Math.round(t.max(TimeUnit.MILLISECONDS) * 10) / 10.0);
+        return m;
+    }
+
+    private static Map<String, Object> smtpSide(Map<String, FakeSmtpServer> smtp) {
+        Map<String, Object> routes = new LinkedHashMap<>();
+        smtp.forEach((route, s) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("fault", s.fault().toString());
+            m.put("sessions", s.sessions());
+            m.put("delivered", s.delivered());
+            m.put("tempFailed", s.tempFailed());
+            m.put("rejected", s.rejected());
+            routes.put(route, m);
+        });
+        return routes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(OpenLoad.Summary summary, Map<String, Object> report) {
+        out.println();
+        out.printf("%-20s %7s %8s %8s %8s %8s %8s %8s %8s  %s%n",
+                "endpoint", "sent", "req/s", "2xx/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "statuses");
+        for (OpenLoad.Result r : summary.endpoints()) {
+            out.printf(Locale.ROOT, "%-20s %7d %8.1f %8.1f %8.1f %8.1f %8.1f %8.1f %8.1f  %s%n", r.endpoint(), r.sent(),
+                    r.throughput(), r.ok(), r.p50Ms(), r.p90Ms(), r.p99Ms(), r.p999Ms(), r.maxMs(), r.statuses());
+        }
+        out.printf(Locale.ROOT, "skipped (max in-flight): %d, max schedule lag: %.1f ms%n", summary.skipped(),
+                summary.maxScheduleLagMs());
+        Map<String, Object> app = (Map<String, Object>) report.get("app");
+        out.println("smtp routes: " + report.get("smtp"));
+        out.println("app intake.request: " + app.get("intakeRequest"));
+        out.println("app mail.smtp.attempts: " + app.get("smtpAttempts"));
+        out.println("app outbox delivery lag: " + app.get("outboxDeliveryLag") + ", depth after settle: "
+                + app.get("outboxDepthAfterSettle"));
+    }
+}
@@ -0,0 +1,184 @@
+package com.care.ride.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model traffic: requests start on a fixed arrival schedule (Poisson or evenly spaced) at
+ * {@code rate} per second whatever the server is doing, each on its own virtual thread, so a slow
+ * server builds up in-flight requests instead of slowing the client down. Latency is measured from
+ * the scheduled start, which keeps generator hiccups and queueing in the numbers rather than hiding
+ * them (no coordinated omission).
+ */
+public class OpenLoad {
+
+    public enum Endpoint {
+        BOOKINGS("POST /api/bookings"), CONTACT("POST /api/contact"), SERVICES("GET /api/services");
+
+        final String label;
+
+        Endpoint(String label) { this.label = label; }
+    }
+
+    public record Settings(double rate, Duration warmup, Duration duration, Map<Endpoint, Integer> mix, boolean poisson,
+                           long seed, Duration timeout, int maxInFlight, int serviceTypeId) {}
+
+    /** Client-side outcome of one endpoint over the measured window. */
+    public record Result(String endpoint, long sent, long completed, double throughput, double ok, Map<String, Long> statuses,
+                         double meanMs, double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {}
+
+    public record Summary(double offeredRate, double seconds, long skipped, double maxScheduleLagMs, List<Result> endpoints) {}
+
+    private final HttpClient client;
+    private final String base;
+    private final Settings settings;
+    private final Map<Endpoint, Stats> stats = new LinkedHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Instant pickupBase = Instant.now().truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.DAYS);
+
+    public OpenLoad(String base, Settings settings) {
+        this.base = base;
+        this.settings = settings;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (Endpoint e : settings.mix().keySet()) stats.put(e, new Stats());
+    }
+
+    public Summary run() throws InterruptedException {
+        Random random = new Random(settings.seed());
+        Endpoint[] wheel = wheel(settings.mix());
+        double meanGapNanos = 1e9 / settings.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+        long skipped = 0, maxLag = 0;
+        double next = start;
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                next += settings.poisson() ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+                long due = (long) next;
+                if (due >= end) break;
+                long now;
+                while ((now = System.nanoTime()) < due) LockSupport.parkNanos(due - now);
+                maxLag = Math.max(maxLag, now - due);
+                Endpoint e = wheel[random.nextInt(wheel.length)];
+                if (inFlight.get() >= settings.maxInFlight()) {
+                    // the client would run out of sockets before the server answered; count it, do not send
+                    if (due >= measureFrom) skipped++;
+                    continue;
+                }
+                inFlight.incrementAndGet();
+                boolean measured = due >= measureFrom;
+                requests.submit(() -> send(e, due, measured));
+            }
+            requests.shutdown();
+            if (!requests.awaitTermination(settings.timeout().toSeconds() + 5, TimeUnit.SECONDS)) requests.shutdownNow();
+        }
+        double seconds = settings.duration().toNanos() / 1e9;
+        List<Result> results = stats.entrySet().stream().map(s -> s.getValue().result(s.getKey(), seconds)).toList();
+        return new Summary(settings.rate(), seconds, skipped, maxLag / 1e6, results);
+    }
+
+    // weighted choice as a lookup table: bookings:2,contact:1 -> [BOOKINGS, BOOKINGS, CONTACT]
+    private static Endpoint[] wheel(Map<Endpoint, Integer> mix) {
+        return mix.entrySet().stream()
+                .flatMap(m -> java.util.Collections.nCopies(m.getValue(), m.getKey()).stream())
+                .toArray(Endpoint[]::new);
+    }
+
+    private void send(Endpoint e, long scheduledNanos, boolean measured) {
+        String status;
+        try {
+            status = Integer.toString(client.send(request(e), HttpResponse.BodyHandlers.discarding()).statusCode());
+        } catch (HttpTimeoutException ex) {
+            status = "timeout";
+        } catch (IOException ex) {
+            status = "io-error";
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            status = "interrupted";
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        if (measured) stats.get(e).add(status, System.nanoTime() - scheduledNanos);
+    }
+
+    private HttpRequest request(Endpoint e) {
+        HttpRequest.Builder b = HttpRequest.newBuilder().timeout(settings.timeout());
+        // every body differs (#n) so the duplicate-submission guard never replays a response
+        long n = sequence.incrementAndGet();
+        return switch (e) {
+            case SERVICES -> b.uri(URI.create(base + "/api/services")).GET().build();
+            case CONTACT -> b.uri(URI.create(base + "/api/contact")).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("""
+                            {"name":"Load Test %d","email":"load%d@example.com","phone":"555-01%02d",
+                             "reason":"General question","message":"Do you cover trips to the dialysis center on Saturdays? (load #%d)"}
+                            """.formatted(n, n, n % 100, n))).build();
+            case BOOKINGS -> b.uri(URI.create(base + "/api/bookings")).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("""
+                            {"fullName":"Load Test %d","phone":"555-01%02d","email":"load%d@example.com",
+                             "pickupAddress":"%d Main St","dropoffAddress":"2 Clinic Rd",
+                             "pickupTime":"%s","serviceTypeId":%d,"notes":"load #%d"}
+                            """.formatted(n, n % 100, n, n % 500, pickupBase.plus(15 * (n % 2880), ChronoUnit.MINUTES),
+                            settings.serviceTypeId(), n))).build();
+        };
+    }
+
+    private static final class Stats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        void add(String status, long nanos) {
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            synchronized (this) {
+                if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                latencies[count++] = nanos;
+            }
+        }
+
+        synchronized Result result(Endpoint e, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            Map<String, Long> byStatus = new TreeMap<>();
+            statuses.forEach((s, n) -> byStatus.put(s, n.sum()));
+            long ok = byStatus.entrySet().stream().filter(s -> s.getKey().startsWith("2")).mapToLong(Map.Entry::getValue).sum();
+            long completed = byStatus.entrySet().stream().filter(s -> Character.isDigit(s.getKey().charAt(0)))
+                    .mapToLong(Map.Entry::getValue).sum();
+            double mean = count == 0 ? 0 : Arrays.stream(sorted).average().orElse(0) / 1e6;
+            return new Result(e.label, count, completed, completed / seconds, ok / seconds, byStatus, mean,
+                    pct(sorted, 0.50), pct(sorted, 0.90), pct(sorted, 0.99), pct(sorted, 0.999),
+                    count == 0 ? 0 : sorted[count - 1] / 1e6);
+        }
+
+        private static double pct(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
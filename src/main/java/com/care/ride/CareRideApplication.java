@@ -1,4 +1,7 @@
 package com.care.ride;
-import org.springframework.boot.SpringApplication;import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.SpringApplication;import org.springframework.boot.autoconfigure.SpringBootApplication;import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 @SpringBootApplication
-public class CareRideApplication{public static void main(String[] args){SpringApplication.run(CareRideApplication.class,args);}}
+public class CareRideApplication{
+public static final int STARTUP_BUFFER_CAPACITY = 4096;
+// startup steps are buffered for /actuator/startup and the StartupTimingLogger summary
+public static void main(String[] args){SpringApplication app=new SpringApplication(CareRideApplication.class);app.setApplicationStartup(new BufferingApplicationStartup(STARTUP_BUFFER_CAPACITY));app.run(args);}}
@@ -1,6 +1,7 @@
 package com.care.ride;
 
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.boot.web.servlet.support.SpringBootServletInitializer;
 
 /**
@@ -11,6 +12,7 @@ public class ServletInitializer extends SpringBootServletInitializer {
 
     @Override
     protected SpringApplicationBuilder configure(SpringApplicationBuilder application) {
-        return application.sources(CareRideApplication.class);
+        return application.sources(CareRideApplication.class)
+                .applicationStartup(new BufferingApplicationStartup(CareRideApplication.STARTUP_BUFFER_CAPACITY));
     }
 }
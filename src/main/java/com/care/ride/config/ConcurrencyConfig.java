@@ -0,0 +1,56 @@
+package com.care.ride.config;
+
+import com.care.ride.service.Bulkhead;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Execution model for intake. With spring.threads.virtual.enabled (Java 21) Tomcat handles each
+ * request on a virtual thread; the bulkheads below keep that unbounded concurrency from swamping
+ * the Hikari pool and the SMTP server.
+ */
+@Configuration
+public class ConcurrencyConfig {
+
+    @Bean
+    public Bulkhead dbBulkhead(MeterRegistry registry,
+                               @Value("${intake.bulkhead.db.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+                               @Value("${intake.bulkhead.db.max-wait-ms:2000}") long maxWaitMs) {
+        return register(registry, new Bulkhead("db", permits, maxWaitMs));
+    }
+
+    @Bean
+    public Bulkhead smtpBulkhead(MeterRegistry registry,
+                                 @Value("${mail.smtp.max-concurrent:2}") int permits,
+                                 @Value("${mail.smtp.max-wait-ms:30000}") long maxWaitMs) {
+        return register(registry, new Bulkhead("smtp", permits, maxWaitMs));
+    }
+
+    // BCrypt is pure CPU: more parallel checks than cores only make every login (and request) slower
+    @Bean
+    public Bulkhead loginBulkhead(MeterRegistry registry,
+                                  @Value("${staff.login.max-concurrent:1}") int permits,
+                                  @Value("${staff.login.max-wait-ms:2000}") long maxWaitMs) {
+        return register(registry, new Bulkhead("login", permits, maxWaitMs));
+    }
+
+    private static Bulkhead register(MeterRegistry registry, Bulkhead bulkhead) {
+        Gauge.builder("bulkhead.available", bulkhead, Bulkhead::available)
+                .description("Free permits in front of a blocking resource")
+                .tag("name", bulkhead.getName())
+                .register(registry);
+        Gauge.builder("bulkhead.queued", bulkhead, Bulkhead::queued)
+                .description("Callers waiting for a permit")
+                .tag("name", bulkhead.getName())
+                .register(registry);
+        bulkhead.setWaitTimer(Timer.builder("bulkhead.wait")
+                .description("Time spent waiting for a permit")
+                .tag("name", bulkhead.getName())
+                .register(registry));
+        return bulkhead;
+    }
+}
@@ -0,0 +1,62 @@
+package com.care.ride.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application DataSource: the spring.datasource pool as Boot would build it, and when
+ * {@code datasource.replicas.urls} lists read replicas, a {@link ReadWriteRoutingDataSource} that
+ * sends read-only transactions to them. Flyway, JPA and the health check all see this one bean, so
+ * migrations and writes always hit the primary.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment env, MeterRegistry registry,
+                                 @Value("${datasource.replicas.urls:}") String replicaUrls,
+                                 @Value("${datasource.replicas.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int replicaPoolSize,
+                                 @Value("${datasource.replicas.connection-timeout-ms:1000}") long connectionTimeoutMs,
+                                 @Value("${datasource.replicas.max-lag-seconds:10}") long maxLagSeconds,
+                                 @Value("${datasource.replicas.lag-query:}") String lagQuery) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) primary.setPoolName("primary");
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls.split(",")) {
+            if (url.isBlank()) continue;
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setJdbcUrl(url.trim());
+            config.setDriverClassName(DatabaseDriver.fromJdbcUrl(url.trim()).getDriverClassName());
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setMaximumPoolSize(replicaPoolSize);
+            // a dead replica must cost a read about a second before it falls back, not Hikari's 30 s,
+            // and must not stop the app from starting
+            config.setConnectionTimeout(connectionTimeoutMs);
+            config.setInitializationFailTimeout(-1);
+            config.setReadOnly(true);
+            // Boot only instruments DataSource beans; these pools are not beans
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicas.add(new HikariDataSource(config));
+        }
+        if (replicas.isEmpty()) return primary;
+        return new ReadWriteRoutingDataSource(primary, replicas, lagQuery, Duration.ofSeconds(maxLagSeconds), registry);
+    }
+}
@@ -2,6 +2,8 @@ package com.care.ride.config;
 
 import com.care.ride.domain.ServiceType;
 import com.care.ride.repo.ServiceTypeRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
@@ -9,6 +11,8 @@ import org.springframework.stereotype.Component;
 @Component
 @Profile("default")
 public class DevDataLoader implements CommandLineRunner {
+    private static final Logger log = LoggerFactory.getLogger(DevDataLoader.class);
+
     private final ServiceTypeRepo serviceTypeRepo;
 
     public DevDataLoader(ServiceTypeRepo serviceTypeRepo) {
@@ -22,9 +26,9 @@ public class DevDataLoader implements CommandLineRunner {
             st.setName("Standard");
             st.setDescription("Standard care ride service");
             serviceTypeRepo.save(st);
-            System.out.println("DevDataLoader: inserted default ServiceType id=" + st.getId());
+            log.info("Inserted default ServiceType id={}", st.getId());
         } else {
-            System.out.println("DevDataLoader: service types exist: " + serviceTypeRepo.count());
+            log.debug("Service types exist, nothing to seed");
         }
     }
 }
@@ -0,0 +1,32 @@
+package com.care.ride.config;
+
+import com.care.ride.service.DispatchEventRelay;
+import com.care.ride.service.InMemoryEventRelay;
+import com.care.ride.service.PostgresEventRelay;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * How dispatch events reach the other app nodes: {@code dispatch.events.relay=memory} (one node)
+ * or {@code postgres} (LISTEN/NOTIFY on the primary, for several nodes behind a load balancer).
+ */
+@Configuration
+public class DispatchEventsConfig {
+
+    @Bean
+    public DispatchEventRelay dispatchEventRelay(DataSourceProperties properties, DataSource dataSource,
+                                                 @Value("${dispatch.events.relay:memory}") String relay,
+                                                 @Value("${dispatch.events.channel:dispatch_events}") String channel,
+                                                 @Value("${dispatch.events.relay-queue-size:10000}") int queueSize) {
+        return switch (relay) {
+            case "memory" -> new InMemoryEventRelay();
+            case "postgres" -> new PostgresEventRelay(properties.determineUrl(), properties.determineUsername(),
+                    properties.determinePassword(), dataSource, channel, queueSize);
+            default -> throw new IllegalArgumentException("dispatch.events.relay must be memory or postgres, not " + relay);
+        };
+    }
+}
@@ -0,0 +1,185 @@
+package com.care.ride.config;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.InstantDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.InstantSerializer;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Instants in the shape every client of this API sends and gets, {@code 2026-11-02T14:30:00Z}
+ * with an optional fraction, read and written with plain arithmetic on the parser's own char
+ * buffer. The jsr310 (de)serializers go through DateTimeFormatter, which allocates more for one
+ * pickupTime than for the rest of a booking request together; see JsonCodecBenchmark.
+ *
+ * Anything else (offsets, numeric timestamps, years past 9999, {@code @JsonFormat} properties,
+ * WRITE_DATES_AS_TIMESTAMPS) is handed to the standard jsr310 code, so accepted input and output
+ * are unchanged.
+ */
+public class IsoInstantModule extends SimpleModule {
+
+    public IsoInstantModule() {
+        super("IsoInstantModule");
+        addSerializer(Instant.class, new Serializer(InstantSerializer.INSTANCE));
+        addDeserializer(Instant.class, new Deserializer(InstantDeserializer.INSTANT));
+    }
+
+    static final class Serializer extends StdSerializer<Instant> implements ContextualSerializer {
+        private final JsonSerializer<Instant> fallback;
+
+        Serializer(JsonSerializer<Instant> fallback) {
+            super(Instant.class);
+            this.fallback = fallback;
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property) throws JsonMappingException {
+            return customized(findFormatOverrides(prov, property, Instant.class))
+                    ? ((ContextualSerializer) fallback).createContextual(prov, property) : this;
+        }
+
+        @Override
+        public void serialize(Instant value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            long seconds = value.getEpochSecond();
+            if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS) || seconds < 0 || seconds >= MAX_SECONDS) {
+                fallback.serialize(value, gen, provider);
+                return;
+            }
+            char[] buf = new char[30];
+            int n = format(seconds, value.getNano(), buf);
+            gen.writeString(buf, 0, n);
+        }
+    }
+
+    static final class Deserializer extends StdScalarDeserializer<Instant> implements ContextualDeserializer {
+        private final JsonDeserializer<Instant> fallback;
+
+        Deserializer(JsonDeserializer<Instant> fallback) {
+            super(Instant.class);
+            this.fallback = fallback;
+        }
+
+        @Override
+        public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) throws JsonMappingException {
+            return customized(findFormatOverrides(ctxt, property, Instant.class))
+                    ? ((ContextualDeserializer) fallback).createContextual(ctxt, property) : this;
+        }
+
+        @Override
+        public Instant deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING)) {
+                Instant parsed = parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                if (parsed != null) return parsed;
+            }
+            return fallback.deserialize(p, ctxt);
+        }
+    }
+
+    /** A {@code @JsonFormat} (or config override) the jsr310 code has to interpret. */
+    private static boolean customized(JsonFormat.Value format) {
+        return format != null && (format.hasPattern() || format.hasTimeZone() || format.hasLocale() || format.getLenient() != null
+                || format.hasShape() && format.getShape() != JsonFormat.Shape.STRING);
+    }
+
+    /** 10000-01-01T00:00:00Z: from there on ISO_INSTANT prints a sign. */
+    public static final long MAX_SECONDS = 253402300800L;
+
+    /** {@code yyyy-MM-ddTHH:mm:ss[.f{1,9}]Z}, or null for anything else. */
+    static Instant parse(char[] c, int off, int len) {
+        if (len < 20 || len > 30 || c[off + len - 1] != 'Z'
+                || c[off + 4] != '-' || c[off + 7] != '-' || c[off + 10] != 'T' || c[off + 13] != ':' || c[off + 16] != ':') {
+            return null;
+        }
+        int year = digits(c, off, 4);
+        int month = digits(c, off + 5, 2);
+        int day = digits(c, off + 8, 2);
+        int hour = digits(c, off + 11, 2);
+        int minute = digits(c, off + 14, 2);
+        int second = digits(c, off + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0 || hour > 23 || minute > 59 || second > 59) return null;
+        int nano = 0;
+        int fraction = len - 21;
+        if (fraction != -1) {
+            if (c[off + 19] != '.' || fraction < 1 || fraction > 9) return null;
+            nano = digits(c, off + 20, fraction);
+            if (nano < 0) return null;
+            for (int i = fraction; i < 9; i++) nano *= 10;
+        }
+        long epochDay;
+        try {
+            epochDay = LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException ex) {
+            return null;
+        }
+        return Instant.ofEpochSecond(epochDay * 86400 + hour * 3600 + minute * 60 + second, nano);
+    }
+
+    /** ISO_INSTANT for 0000-9999: fraction in groups of three digits, as long as needed. */
+    public static int format(long epochSecond, int nano, char[] buf) {
+        long epochDay = Math.floorDiv(epochSecond, 86400);
+        int secs = (int) Math.floorMod(epochSecond, 86400);
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        put(buf, 0, date.getYear(), 4);
+        buf[4] = '-';
+        put(buf, 5, date.getMonthValue(), 2);
+        buf[7] = '-';
+        put(buf, 8, date.getDayOfMonth(), 2);
+        buf[10] = 'T';
+        put(buf, 11, secs / 3600, 2);
+        buf[13] = ':';
+        put(buf, 14, secs / 60 % 60, 2);
+        buf[16] = ':';
+        put(buf, 17, secs % 60, 2);
+        int n = 19;
+        if (nano > 0) {
+            buf[n++] = '.';
+            if (nano % 1_000_000 == 0) {
+                put(buf, n, nano / 1_000_000, 3);
+                n += 3;
+            } else if (nano % 1000 == 0) {
+                put(buf, n, nano / 1000, 6);
+                n += 6;
+            } else {
+                put(buf, n, nano, 9);
+                n += 9;
+            }
+        }
+        buf[n++] = 'Z';
+        return n;
+    }
+
+    private static int digits(char[] c, int off, int count) {
+        int v = 0;
+        for (int i = off; i < off + count; i++) {
+            int d = c[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    private static void put(char[] buf, int off, int value, int width) {
+        for (int i = off + width - 1; i >= off; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.care.ride.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Additions to the ObjectMapper Spring Boot builds; Boot registers every Module bean with it. */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public IsoInstantModule isoInstantModule() {
+        return new IsoInstantModule();
+    }
+}
@@ -0,0 +1,84 @@
+package com.care.ride.config;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.ServiceType;
+import com.care.ride.dto.BookingCreated;
+import com.care.ride.dto.BookingRequest;
+import com.care.ride.dto.BookingSummary;
+import com.care.ride.dto.BookingView;
+import com.care.ride.dto.ContactRequest;
+import com.care.ride.dto.ContactSent;
+import com.care.ride.dto.ContactSummary;
+import com.care.ride.dto.LoginRequest;
+import com.care.ride.dto.ScheduleRequest;
+import com.care.ride.dto.ScheduleView;
+import com.care.ride.dto.ServiceTypeView;
+import com.care.ride.dto.StaffToken;
+import com.care.ride.dto.StaffUserUpdate;
+import com.care.ride.service.BookingImportService;
+import com.care.ride.service.CapacityService;
+import com.care.ride.service.DispatchEventBus;
+import com.care.ride.service.NotificationTemplates;
+import com.care.ride.service.ReportService;
+import com.care.ride.service.RunPlanService;
+import com.care.ride.service.ScheduleService;
+import com.care.ride.service.StaffAccountService;
+import db.migration.V11__contact_search;
+import db.migration.V3__booking_sequence;
+import db.migration.V9__partition_booking_and_contacts;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.NativeDetector;
+
+/**
+ * What a GraalVM native image (mvn -Pfast-start,native) needs beyond what Spring AOT works out
+ * from the bean definitions and the JPA entities. Has no effect on the JVM.
+ */
+@Configuration
+@ImportRuntimeHints(NativeConfig.Hints.class)
+public class NativeConfig {
+
+    /**
+     * Flyway finds Java migrations by scanning the classpath, which a native image does not have.
+     * New Java migrations under db.migration have to be listed here as well.
+     */
+    @Bean
+    public FlywayConfigurationCustomizer nativeJavaMigrations() {
+        return configuration -> {
+            if (NativeDetector.inNativeImage()) {
+                configuration.javaMigrations(new V3__booking_sequence(), new V9__partition_booking_and_contacts(),
+                        new V11__contact_search());
+            }
+        };
+    }
+
+    static class Hints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Controllers mostly return ResponseEntity<?>, so AOT cannot see these response bodies;
+            // search rows and dispatch events are written with the ObjectMapper directly
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                    BookingCreated.class, BookingRequest.class, BookingSummary.class, BookingView.class,
+                    ContactRequest.class, ContactSent.class, ContactSummary.class, ServiceTypeView.class,
+                    Booking.class, ServiceType.class,
+                    BookingImportService.ImportResult.class, CapacityService.DayAvailability.class,
+                    RunPlanService.RunPlan.class, DispatchEventBus.StatusChange.class, DispatchEventBus.Imported.class,
+                    LoginRequest.class, StaffToken.class, StaffUserUpdate.class, StaffAccountService.Account.class,
+                    ScheduleRequest.class, ScheduleView.class, ScheduleService.Saved.class, ScheduleService.Occurrence.class,
+                    DispatchEventBus.ScheduleChanged.class, ReportService.BookingCount.class,
+                    ReportService.ContactCount.class, ReportService.Rebuilt.class);
+            // MailTemplate resolves {{names}} against these models' accessors
+            for (Class<?> model : new Class<?>[] {BookingRequest.class, ContactRequest.class,
+                    NotificationTemplates.ImportDigest.class, Booking.class, ServiceType.class}) {
+                hints.reflection().registerType(model, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("mail/*");
+        }
+    }
+}
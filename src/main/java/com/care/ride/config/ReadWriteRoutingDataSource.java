@@ -0,0 +1,157 @@
+package com.care.ride.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The primary pool plus read replica pools behind one DataSource. Physical connections are fetched
+ * lazily (see {@link LazyConnectionDataSourceProxy}), so by the time a pool is picked the
+ * transaction manager has already marked a {@code @Transactional(readOnly = true)} connection
+ * read-only: that work goes to the replicas round-robin, everything else to the primary.
+ *
+ * A replica that fails a health check, refuses a connection, or replays more than {@code maxLag}
+ * behind the primary is skipped until a later {@link #checkReplicas()} passes; with no replica
+ * usable, read-only work runs on the primary. Reads that must see the latest commit (idempotency
+ * replays, the capacity load, the catalog) use read-write transactions for that reason.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    /** Seconds the standby is behind; 0 when it has replayed everything it received (or is not a standby). */
+    static final String POSTGRES_LAG_QUERY = "select case when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 "
+            + "else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+    private static final class Replica {
+        final HikariDataSource pool;
+        final String lagQuery;
+        final Counter reads;
+        volatile boolean up = true;
+        volatile double lagSeconds = Double.NaN;
+
+        Replica(HikariDataSource pool, String lagQuery, Counter reads) {
+            this.pool = pool;
+            this.lagQuery = lagQuery;
+            this.reads = reads;
+        }
+    }
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final double maxLagSeconds;
+    private final Counter primaryReads;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools, String lagQuery,
+                                      Duration maxLag, MeterRegistry registry) {
+        super(primary);
+        this.primary = primary;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.primaryReads = readCounter(registry, primary.getPoolName());
+        this.replicas = replicaPools.stream().map(pool -> {
+            String query = !lagQuery.isBlank() ? lagQuery
+                    : pool.getJdbcUrl().startsWith("jdbc:postgresql:") ? POSTGRES_LAG_QUERY : null;
+            Replica r = new Replica(pool, query, readCounter(registry, pool.getPoolName()));
+            Gauge.builder("datasource.replica.up", r, x -> x.up ? 1 : 0)
+                    .description("1 while the replica takes read-only work")
+                    .tag("pool", pool.getPoolName())
+                    .register(registry);
+            Gauge.builder("datasource.replica.lag", r, x -> x.lagSeconds)
+                    .description("Replication lag at the last health check")
+                    .baseUnit("seconds")
+                    .tag("pool", pool.getPoolName())
+                    .register(registry);
+            return r;
+        }).toList();
+        setReadOnlyDataSource(new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return readOnlyConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                throw new UnsupportedOperationException("Replica pools use the configured credentials");
+            }
+        });
+    }
+
+    private static Counter readCounter(MeterRegistry registry, String pool) {
+        return Counter.builder("datasource.reads")
+                .description("Read-only transactions by the pool that served them")
+                .tag("pool", pool)
+                .register(registry);
+    }
+
+    private Connection readOnlyConnection() throws SQLException {
+        int n = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((start + i) % n);
+            if (!r.up) continue;
+            try {
+                Connection con = r.pool.getConnection();
+                r.reads.increment();
+                return con;
+            } catch (SQLException ex) {
+                markDown(r, "connection failed: " + ex.getMessage());
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    /** Probes every replica: reachable and, where a lag query applies, no more than maxLag behind. */
+    public void checkReplicas() {
+        for (Replica r : replicas) {
+            try (Connection con = r.pool.getConnection(); Statement st = con.createStatement()) {
+                double lag = 0;
+                if (r.lagQuery != null) {
+                    try (ResultSet rs = st.executeQuery(r.lagQuery)) {
+                        lag = rs.next() ? rs.getDouble(1) : 0;
+                    }
+                } else if (!con.isValid(2)) {
+                    markDown(r, "connection not valid");
+                    continue;
+                }
+                r.lagSeconds = lag;
+                if (lag > maxLagSeconds) {
+                    markDown(r, "lag " + lag + "s over " + maxLagSeconds + "s");
+                } else if (!r.up) {
+                    r.up = true;
+                    log.info("Replica {} back in rotation lagSeconds={}", r.pool.getPoolName(), lag);
+                }
+            } catch (SQLException ex) {
+                r.lagSeconds = Double.NaN;
+                markDown(r, ex.getMessage());
+            }
+        }
+    }
+
+    private static void markDown(Replica r, String reason) {
+        if (r.up) {
+            r.up = false;
+            log.warn("Replica {} out of rotation: {}", r.pool.getPoolName(), reason);
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(r -> r.pool.close());
+        primary.close();
+    }
+}
@@ -0,0 +1,23 @@
+package com.care.ride.config;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/** Takes lagging or unreachable read replicas out of rotation and puts them back once they recover. */
+@Component
+public class ReplicaHealthCheck {
+    private final DataSource dataSource;
+
+    public ReplicaHealthCheck(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replicas.check-interval-ms:5000}")
+    public void check() {
+        if (dataSource instanceof ReadWriteRoutingDataSource routing) {
+            routing.checkReplicas();
+        }
+    }
+}
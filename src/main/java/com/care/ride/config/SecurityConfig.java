@@ -1,17 +1,70 @@
 package com.care.ride.config;
 
+import com.care.ride.service.StaffAccountService;
+import com.care.ride.service.StaffTokenService;
+import com.care.ride.web.StaffAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Two filter chains. The staff API (/api/auth, /api/dispatch, /api/debug) and the actuator are
+ * stateless bearer-token auth through {@link StaffAuthenticationFilter}: no session, no CSRF
+ * (nothing is carried in cookies), JSON 401/403 bodies. Of the actuator only health and info are
+ * open; metrics need staff credentials, so a scraper sends the shared X-Dispatch-Token. Everything
+ * else is the public site and stays open.
+ */
 @Configuration
 public class SecurityConfig {
+
+    @Bean
+    @Order(1)
+    public SecurityFilterChain staffFilterChain(HttpSecurity http, StaffTokenService tokens,
+                                                @Value("${dispatch.api-token:}") String dispatchToken) throws Exception {
+        http
+            .securityMatcher("/api/auth/**", "/api/dispatch/**", "/api/debug/**", "/actuator/**")
+            .csrf(csrf -> csrf.disable())
+            .sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .requestCache(c -> c.disable())
+            .httpBasic(b -> b.disable())
+            .formLogin(f -> f.disable())
+            .addFilterBefore(new StaffAuthenticationFilter(tokens, dispatchToken), UsernamePasswordAuthenticationFilter.class)
+            .exceptionHandling(e -> e
+                .authenticationEntryPoint((req, res, ex) -> error(res, 401, "UNAUTHORIZED"))
+                .accessDeniedHandler((req, res, ex) -> error(res, 403, "FORBIDDEN")))
+            .authorizeHttpRequests(auth -> auth
+                // the live feed and streamed searches finish on an async dispatch; the request was checked already
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+                .requestMatchers("/actuator/prometheus").hasAnyRole("DISPATCH", "ADMIN")
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+                .requestMatchers("/api/auth/users/**", "/api/debug/**").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/dispatch/reports/rebuild").hasRole("ADMIN")
+                .requestMatchers("/api/dispatch/**").hasAnyRole("DISPATCH", "ADMIN")
+                .anyRequest().authenticated());
+        return http.build();
+    }
+
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             // disable CSRF for API testing in local/dev environment
@@ -20,14 +73,25 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /** Password login only; bearer tokens are checked by the filter, not by a provider. */
     @Bean
-    public UserDetailsService userDetailsService(PasswordEncoder passwordEncoder) {
-    // No users required; API is public. Keep an empty manager bean to satisfy any potential autowiring.
-    return new InMemoryUserDetailsManager();
+    public AuthenticationManager staffAuthenticationManager(StaffAccountService accounts, PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(accounts);
+        provider.setPasswordEncoder(passwordEncoder);
+        // re-hashes passwords stored at a lower cost than staff.bcrypt-strength on successful login
+        provider.setUserDetailsPasswordService(accounts);
+        return new ProviderManager(provider);
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${staff.bcrypt-strength:12}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    private static void error(HttpServletResponse response, int status, String error) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"error\":\"" + error + "\"}").getBytes(StandardCharsets.UTF_8));
     }
 }
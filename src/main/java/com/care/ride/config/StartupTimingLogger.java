@@ -0,0 +1,47 @@
+package com.care.ride.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+
+/**
+ * Logs the slowest bean instantiations once the application is ready, so cold-start regressions
+ * (schema handling in entityManagerFactory / flywayInitializer, mail, catalog warm-up) show up in
+ * deploy logs. The full timeline is at /actuator/startup with the local profile.
+ */
+@Component
+public class StartupTimingLogger {
+    private static final Logger log = LoggerFactory.getLogger(StartupTimingLogger.class);
+
+    @Value("${startup.log-slowest:8}")
+    private int slowest;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report(ApplicationReadyEvent event) {
+        if (slowest <= 0 || !(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        StartupTimeline timeline = startup.getBufferedTimeline();
+        log.info("Startup ready in {} ms; slowest beans:", event.getTimeTaken().toMillis());
+        timeline.getEvents().stream()
+                .filter(e -> "spring.beans.instantiate".equals(e.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(slowest)
+                .forEach(e -> log.info("  {} ms  {}", e.getDuration().toMillis(), beanName(e.getStartupStep())));
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) return tag.getValue();
+        }
+        return step.getName();
+    }
+}
@@ -1 +1 @@
-package com.care.ride.domain;import jakarta.persistence.*;import java.time.Instant;@Entity public class Booking{ @Id @GeneratedValue(strategy=GenerationType.IDENTITY) private Long id; @Column(nullable=false) private String fullName; @Column(nullable=false) private String phone; private String email; @Column(nullable=false) private String pickupAddress; @Column(nullable=false) private String dropoffAddress; @Column(nullable=false) private Instant pickupTime; @ManyToOne(optional=false) private ServiceType serviceType; private String notes; @Column(nullable=false) private String status = "PENDING"; public Long getId(){return id;} public String getFullName(){return fullName;} public void setFullName(String v){this.fullName=v;} public String getPhone(){return phone;} public void setPhone(String v){this.phone=v;} public String getEmail(){return email;} public void setEmail(String v){this.email=v;} public String getPickupAddress(){return pickupAddress;} public void setPickupAddress(String v){this.pickupAddress=v;} public String getDropoffAddress(){return dropoffAddress;} public void setDropoffAddress(String v){this.dropoffAddress=v;} public Instant getPickupTime(){return pickupTime;} public void setPickupTime(Instant v){this.pickupTime=v;} public ServiceType getServiceType(){return serviceType;} public void setServiceType(ServiceType v){this.serviceType=v;} public String getNotes(){return notes;} public void setNotes(String v){this.notes=v;} public String getStatus(){return status;} public void setStatus(String v){this.status=v;} }
\ No newline at end of file
+package com.care.ride.domain;import com.fasterxml.jackson.annotation.JsonIgnore;import jakarta.persistence.*;import java.time.Instant;@Entity @Table(indexes={@Index(name="idx_booking_pickup", columnList="pickup_time,id"), @Index(name="idx_booking_status_pickup", columnList="status,pickup_time,id"), @Index(name="idx_booking_service_pickup", columnList="service_type_id,pickup_time,id"), @Index(name="idx_booking_idempotency_key", columnList="idempotency_key"), @Index(name="idx_booking_phone_key", columnList="phone_key,id"), @Index(name="idx_booking_email_key", columnList="email_key,id"), @Index(name="idx_booking_schedule", columnList="schedule_id,pickup_time")}) public class Booking{ @Id @GeneratedValue(strategy=GenerationType.SEQUENCE, generator="booking_seq") @SequenceGenerator(name="booking_seq", sequenceName="booking_seq", allocationSize=50) private Long id; @Column(nullable=false) private String fullName; @Column(nullable=false) private String phone; private String email; @Column(nullable=false) private String pickupAddress; @Column(nullable=false) private String dropoffAddress; @Column(nullable=false) private Instant pickupTime; @ManyToOne(optional=false) private ServiceType serviceType; private String notes; @Column(nullable=false) private String status = "PENDING"; @Column(nullable=false, updatable=false) private Instant createdAt = Instant.now(); @Column(length=100, updatable=false) private String idempotencyKey; @Column(length=20) private String phoneKey; private String emailKey; @Column(updatable=false) private Long scheduleId; @PrePersist @PreUpdate void contactKeys(){phoneKey=ContactKeys.phone(phone); emailKey=ContactKeys.email(email);} public Long getId(){return id;} public String getFullName(){return fullName;} public void setFullName(String v){this.fullName=v;} public String getPhone(){return phone;} public void setPhone(String v){this.phone=v;} public String getEmail(){return email;} public void setEmail(String v){this.email=v;} public String getPickupAddress(){return pickupAddress;} public void setPickupAddress(String v){this.pickupAddress=v;} public String getDropoffAddress(){return dropoffAddress;} public void setDropoffAddress(String v){this.dropoffAddress=v;} public Instant getPickupTime(){return pickupTime;} public void setPickupTime(Instant v){this.pickupTime=v;} public ServiceType getServiceType(){return serviceType;} public void setServiceType(ServiceType v){this.serviceType=v;} public String getNotes(){return notes;} public void setNotes(String v){this.notes=v;} public String getStatus(){return status;} public void setStatus(String v){this.status=v;} public Instant getCreatedAt(){return createdAt;} @JsonIgnore public String getIdempotencyKey(){return idempotencyKey;} public void setIdempotencyKey(String v){this.idempotencyKey=v;} public Long getScheduleId(){return scheduleId;} public void setScheduleId(Long v){this.scheduleId=v;} }
\ No newline at end of file
@@ -18,8 +18,24 @@ public class Contact {
     @Column(columnDefinition = "text")
     private String message;
 
+    @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    @Column(length = 100, updatable = false)
+    private String idempotencyKey;
+
+    /** Normalized caller keys for exact-match search, see {@link ContactKeys}. */
+    @Column(length = 20)
+    private String phoneKey;
+    private String emailKey;
+
+    @PrePersist
+    @PreUpdate
+    void contactKeys() {
+        phoneKey = ContactKeys.phone(phone);
+        emailKey = ContactKeys.email(email);
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -40,4 +56,7 @@ public class Contact {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
 }
@@ -0,0 +1,31 @@
+package com.care.ride.domain;
+
+import java.util.Locale;
+
+/**
+ * Caller identity as it is matched everywhere: the phone_key / email_key columns (V11) that
+ * booking and contact searches use, and the sender keys of the intake rate limiter. The same caller
+ * typing {@code (215) 555-0143}, {@code +1 215 555 0143} or {@code 215.555.0143} gets one key.
+ */
+public final class ContactKeys {
+    private ContactKeys() {}
+
+    /** Digits only, without a leading US country code; null unless 7 to 20 digits remain. */
+    public static String phone(String raw) {
+        if (raw == null) return null;
+        StringBuilder digits = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') digits.append(c);
+        }
+        if (digits.length() == 11 && digits.charAt(0) == '1') digits.deleteCharAt(0);
+        return digits.length() >= 7 && digits.length() <= 20 ? digits.toString() : null;
+    }
+
+    /** Trimmed and lower-cased; null when blank. */
+    public static String email(String raw) {
+        if (raw == null) return null;
+        String email = raw.trim().toLowerCase(Locale.ROOT);
+        return email.isEmpty() ? null : email;
+    }
+}
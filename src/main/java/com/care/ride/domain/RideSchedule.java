@@ -0,0 +1,113 @@
+package com.care.ride.domain;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.SortNatural;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * A ride that repeats, such as dialysis three mornings a week. {@code recurrence} is an RRULE
+ * ({@link com.care.ride.service.Recurrence}) counted from {@code startsOn}; every occurrence is
+ * picked up at {@code pickupLocalTime} in the service zone, except on the {@code excludedDates}.
+ * Bookings exist for occurrences up to {@code materializedThrough} only; see
+ * {@link com.care.ride.service.ScheduleService}. {@code active} is the dispatcher's switch: an
+ * ended series keeps its past bookings but books nothing more.
+ */
+@Entity
+@Table(name = "ride_schedule")
+public class RideSchedule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String fullName;
+
+    @Column(nullable = false)
+    private String phone;
+
+    private String email;
+
+    @Column(nullable = false)
+    private String pickupAddress;
+
+    @Column(nullable = false)
+    private String dropoffAddress;
+
+    @ManyToOne(optional = false)
+    private ServiceType serviceType;
+
+    private String notes;
+
+    @Column(nullable = false)
+    private LocalTime pickupLocalTime;
+
+    @Column(nullable = false)
+    private LocalDate startsOn;
+
+    @Column(length = 200, nullable = false)
+    private String recurrence;
+
+    // the nightly job reads a chunk of schedules at a time; one query loads all their exceptions
+    @ElementCollection
+    @CollectionTable(name = "ride_schedule_exception", joinColumns = @JoinColumn(name = "schedule_id"))
+    @Column(name = "skipped_on")
+    @BatchSize(size = 100)
+    @SortNatural
+    private SortedSet<LocalDate> excludedDates = new TreeSet<>();
+
+    // last date of a COUNT or UNTIL rule, null when open-ended; kept in step with recurrence
+    private LocalDate endsOn;
+
+    private LocalDate materializedThrough;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
+    public Long getId() { return id; }
+    public String getFullName() { return fullName; }
+    public void setFullName(String v) { this.fullName = v; }
+    public String getPhone() { return phone; }
+    public void setPhone(String v) { this.phone = v; }
+    public String getEmail() { return email; }
+    public void setEmail(String v) { this.email = v; }
+    public String getPickupAddress() { return pickupAddress; }
+    public void setPickupAddress(String v) { this.pickupAddress = v; }
+    public String getDropoffAddress() { return dropoffAddress; }
+    public void setDropoffAddress(String v) { this.dropoffAddress = v; }
+    public ServiceType getServiceType() { return serviceType; }
+    public void setServiceType(ServiceType v) { this.serviceType = v; }
+    public String getNotes() { return notes; }
+    public void setNotes(String v) { this.notes = v; }
+    public LocalTime getPickupLocalTime() { return pickupLocalTime; }
+    public void setPickupLocalTime(LocalTime v) { this.pickupLocalTime = v; }
+    public LocalDate getStartsOn() { return startsOn; }
+    public void setStartsOn(LocalDate v) { this.startsOn = v; }
+    public String getRecurrence() { return recurrence; }
+    public void setRecurrence(String v) { this.recurrence = v; }
+    public SortedSet<LocalDate> getExcludedDates() { return excludedDates; }
+    public LocalDate getEndsOn() { return endsOn; }
+    public void setEndsOn(LocalDate v) { this.endsOn = v; }
+    public LocalDate getMaterializedThrough() { return materializedThrough; }
+    public void setMaterializedThrough(LocalDate v) { this.materializedThrough = v; }
+    public boolean isActive() { return active; }
+    public void setActive(boolean v) { this.active = v; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+}
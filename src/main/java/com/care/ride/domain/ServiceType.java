@@ -1 +1 @@
-package com.care.ride.domain;import jakarta.persistence.*;@Entity public class ServiceType{ @Id @GeneratedValue(strategy=GenerationType.IDENTITY) private Integer id; @Column(nullable=false) private String name; @Column(nullable=false) private String description; public Integer getId(){return id;} public String getName(){return name;} public void setName(String n){this.name=n;} public String getDescription(){return description;} public void setDescription(String d){this.description=d;} }
\ No newline at end of file
+package com.care.ride.domain;import jakarta.persistence.*;@Entity @EntityListeners(ServiceTypeChangeListener.class) public class ServiceType{ @Id @GeneratedValue(strategy=GenerationType.IDENTITY) private Integer id; @Column(nullable=false) private String name; @Column(nullable=false) private String description; private Integer vehicleCount; @Column(nullable=false) private int tripMinutes = 60; public Integer getId(){return id;} public String getName(){return name;} public void setName(String n){this.name=n;} public String getDescription(){return description;} public void setDescription(String d){this.description=d;} public Integer getVehicleCount(){return vehicleCount;} public void setVehicleCount(Integer v){this.vehicleCount=v;} public int getTripMinutes(){return tripMinutes;} public void setTripMinutes(int v){this.tripMinutes=v;} }
\ No newline at end of file
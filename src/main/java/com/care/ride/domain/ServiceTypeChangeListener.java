@@ -0,0 +1,28 @@
+package com.care.ride.domain;
+
+import com.care.ride.service.ServiceTypeCatalog;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener (instantiated through Spring's Hibernate bean container) that invalidates
+ * the in-memory {@link ServiceTypeCatalog} whenever a ServiceType row is written.
+ */
+@Component
+public class ServiceTypeChangeListener {
+    private final ObjectProvider<ServiceTypeCatalog> catalog;
+
+    public ServiceTypeChangeListener(ObjectProvider<ServiceTypeCatalog> catalog) {
+        this.catalog = catalog;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(ServiceType st) {
+        catalog.ifAvailable(ServiceTypeCatalog::invalidate);
+    }
+}
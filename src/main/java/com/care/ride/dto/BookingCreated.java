@@ -0,0 +1,4 @@
+package com.care.ride.dto;
+
+/** Body of a 201 from POST /api/bookings; {@code emailStatus} true means the notification is queued. */
+public record BookingCreated(BookingView booking, boolean emailStatus) {}
@@ -0,0 +1,20 @@
+package com.care.ride.dto;
+
+import com.care.ride.domain.Booking;
+
+import java.time.Instant;
+
+/**
+ * Read model for dispatch listings, selected straight into this record by JPQL so no Booking or
+ * ServiceType entity is loaded. Resolve service type names from the /api/services catalog.
+ * {@code scheduleId} is set on rides created from a recurring schedule.
+ */
+public record BookingSummary(Long id, String status, Instant pickupTime, Integer serviceTypeId, String fullName,
+                             String phone, String email, String pickupAddress, String dropoffAddress, String notes,
+                             Long scheduleId) {
+
+    public static BookingSummary of(Booking b) {
+        return new BookingSummary(b.getId(), b.getStatus(), b.getPickupTime(), b.getServiceType().getId(), b.getFullName(),
+                b.getPhone(), b.getEmail(), b.getPickupAddress(), b.getDropoffAddress(), b.getNotes(), b.getScheduleId());
+    }
+}
@@ -0,0 +1,21 @@
+package com.care.ride.dto;
+
+import com.care.ride.domain.Booking;
+
+import java.time.Instant;
+
+/**
+ * A booking as POST /api/bookings returns it. Copied out of the entity so Jackson serializes a
+ * flat record instead of introspecting the entity and its ServiceType association; the JSON has
+ * the same fields the entity used to produce.
+ */
+public record BookingView(Long id, String fullName, String phone, String email, String pickupAddress,
+                          String dropoffAddress, Instant pickupTime, ServiceTypeView serviceType, String notes,
+                          String status, Instant createdAt) {
+
+    public static BookingView of(Booking b) {
+        return new BookingView(b.getId(), b.getFullName(), b.getPhone(), b.getEmail(), b.getPickupAddress(),
+                b.getDropoffAddress(), b.getPickupTime(), ServiceTypeView.of(b.getServiceType()), b.getNotes(),
+                b.getStatus(), b.getCreatedAt());
+    }
+}
@@ -0,0 +1,4 @@
+package com.care.ride.dto;
+
+/** Body of a 200 from POST /api/contact. */
+public record ContactSent(String status, Long id, boolean emailStatus, long durationMs) {}
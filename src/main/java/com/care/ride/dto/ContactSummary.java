@@ -0,0 +1,7 @@
+package com.care.ride.dto;
+
+import java.time.LocalDateTime;
+
+/** A contact-form submission as returned by the dispatch search. */
+public record ContactSummary(Long id, LocalDateTime createdAt, String name, String email, String phone, String reason,
+                             String message) {}
@@ -0,0 +1,33 @@
+package com.care.ride.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position for dispatch pagination: the (pickupTime, id) of the last row returned.
+ * The next page starts strictly after it, so pages stay stable while new bookings arrive.
+ */
+public record DispatchCursor(Instant pickupTime, long id) {
+
+    public static DispatchCursor after(BookingSummary last) {
+        return new DispatchCursor(last.pickupTime(), last.id());
+    }
+
+    public String encode() {
+        String raw = pickupTime.getEpochSecond() + "." + pickupTime.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static DispatchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int dot = raw.indexOf('.');
+            int colon = raw.indexOf(':');
+            Instant t = Instant.ofEpochSecond(Long.parseLong(raw.substring(0, dot)), Long.parseLong(raw.substring(dot + 1, colon)));
+            return new DispatchCursor(t, Long.parseLong(raw.substring(colon + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.care.ride.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+/** Body of POST /api/auth/login. */
+public record LoginRequest(@NotBlank String username, @NotBlank String password) {}
@@ -0,0 +1,17 @@
+package com.care.ride.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Body of POST and PUT /api/dispatch/schedules. A create needs everything but {@code email},
+ * {@code notes}, {@code excludedDates} and {@code startsOn} (today); on a PUT a null field keeps its
+ * value, {@code excludedDates} replaces the whole list, {@code active} ends (false) or resumes
+ * (true) the series, and {@code effectiveFrom} (default today) is the first day whose bookings
+ * follow the edit.
+ */
+public record ScheduleRequest(String fullName, String phone, String email, String pickupAddress, String dropoffAddress,
+                              Integer serviceTypeId, String notes, LocalTime pickupTime, LocalDate startsOn,
+                              String recurrence, List<LocalDate> excludedDates, Boolean active,
+                              LocalDate effectiveFrom) {}
@@ -0,0 +1,24 @@
+package com.care.ride.dto;
+
+import com.care.ride.domain.RideSchedule;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * A recurring schedule as the dispatch API returns it. {@code endsOn} is the final occurrence of a
+ * rule with COUNT or UNTIL (null when open-ended); bookings exist through
+ * {@code materializedThrough}, later occurrences only as the rule.
+ */
+public record ScheduleView(Long id, String fullName, String phone, String email, String pickupAddress,
+                           String dropoffAddress, Integer serviceTypeId, String notes, LocalTime pickupTime,
+                           LocalDate startsOn, String recurrence, List<LocalDate> excludedDates, LocalDate endsOn,
+                           LocalDate materializedThrough, boolean active) {
+
+    public static ScheduleView of(RideSchedule s) {
+        return new ScheduleView(s.getId(), s.getFullName(), s.getPhone(), s.getEmail(), s.getPickupAddress(),
+                s.getDropoffAddress(), s.getServiceType().getId(), s.getNotes(), s.getPickupLocalTime(), s.getStartsOn(),
+                s.getRecurrence(), List.copyOf(s.getExcludedDates()), s.getEndsOn(), s.getMaterializedThrough(), s.isActive());
+    }
+}
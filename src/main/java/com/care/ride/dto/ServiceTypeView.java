@@ -0,0 +1,11 @@
+package com.care.ride.dto;
+
+import com.care.ride.domain.ServiceType;
+
+/** A service type as the public API shows it; same fields as the entity, without Hibernate behind it. */
+public record ServiceTypeView(Integer id, String name, String description, Integer vehicleCount, int tripMinutes) {
+
+    public static ServiceTypeView of(ServiceType st) {
+        return new ServiceTypeView(st.getId(), st.getName(), st.getDescription(), st.getVehicleCount(), st.getTripMinutes());
+    }
+}
@@ -0,0 +1,7 @@
+package com.care.ride.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/** Body of a 200 from POST /api/auth/login; send {@code token} as {@code Authorization: Bearer}. */
+public record StaffToken(String token, String tokenType, Instant expiresAt, String username, List<String> roles) {}
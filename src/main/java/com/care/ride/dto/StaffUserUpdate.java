@@ -0,0 +1,6 @@
+package com.care.ride.dto;
+
+import java.util.List;
+
+/** Body of PUT /api/auth/users/{username}; null fields keep their current value. */
+public record StaffUserUpdate(String password, List<String> roles, Boolean enabled) {}
@@ -0,0 +1,17 @@
+package com.care.ride.repo;
+
+import com.care.ride.dto.BookingSummary;
+import com.care.ride.dto.DispatchCursor;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface BookingDispatchQuery {
+
+    /**
+     * One page of bookings ordered by (pickupTime, id), starting after {@code after} when given.
+     * Null filters are left out of the SQL entirely so each combination gets its own index plan.
+     */
+    List<BookingSummary> findForDispatch(String status, Integer serviceTypeId, Instant from, Instant to,
+                                         DispatchCursor after, int limit);
+}
@@ -0,0 +1,55 @@
+package com.care.ride.repo;
+
+import com.care.ride.dto.BookingSummary;
+import com.care.ride.dto.DispatchCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class BookingDispatchQueryImpl implements BookingDispatchQuery {
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingSummary> findForDispatch(String status, Integer serviceTypeId, Instant from, Instant to,
+                                                DispatchCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder("select new com.care.ride.dto.BookingSummary(b.id, b.status, b.pickupTime, "
+                + "b.serviceType.id, b.fullName, b.phone, b.email, b.pickupAddress, b.dropoffAddress, b.notes, b.scheduleId) "
+                + "from Booking b where 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (status != null) {
+            jpql.append(" and b.status = :status");
+            params.put("status", status);
+        }
+        if (serviceTypeId != null) {
+            jpql.append(" and b.serviceType.id = :serviceTypeId");
+            params.put("serviceTypeId", serviceTypeId);
+        }
+        if (from != null) {
+            jpql.append(" and b.pickupTime >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            jpql.append(" and b.pickupTime < :to");
+            params.put("to", to);
+        }
+        if (after != null) {
+            // row-value comparison: one range condition on the (pickup_time, id) index suffix
+            jpql.append(" and (b.pickupTime, b.id) > (:afterTime, :afterId)");
+            params.put("afterTime", after.pickupTime());
+            params.put("afterId", after.id());
+        }
+        jpql.append(" order by b.pickupTime, b.id");
+
+        TypedQuery<BookingSummary> q = em.createQuery(jpql.toString(), BookingSummary.class);
+        params.forEach(q::setParameter);
+        return q.setMaxResults(limit).getResultList();
+    }
+}
@@ -1 +1 @@
-package com.care.ride.repo;import com.care.ride.domain.Booking;import org.springframework.data.jpa.repository.JpaRepository;public interface BookingRepo extends JpaRepository<Booking,Long>{}
\ No newline at end of file
+package com.care.ride.repo;import com.care.ride.domain.Booking;import jakarta.persistence.LockModeType;import org.springframework.data.jpa.repository.JpaRepository;import org.springframework.data.jpa.repository.Lock;import org.springframework.data.jpa.repository.Query;import org.springframework.data.repository.query.Param;import org.springframework.transaction.annotation.Transactional;import java.time.Instant;import java.util.List;import java.util.Optional;public interface BookingRepo extends JpaRepository<Booking,Long>, BookingDispatchQuery{ Optional<Booking> findByIdempotencyKey(String idempotencyKey); @Transactional @Query("select b.serviceType.id, b.pickupTime from Booking b where b.pickupTime >= :since and b.status <> 'CANCELLED'") List<Object[]> findActivePickupsSince(@Param("since") Instant since); @Lock(LockModeType.PESSIMISTIC_WRITE) @Query("select b from Booking b where b.id = :id") Optional<Booking> findForUpdate(@Param("id") Long id); }
\ No newline at end of file
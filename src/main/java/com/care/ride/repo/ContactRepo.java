@@ -3,5 +3,8 @@ package com.care.ride.repo;
 import com.care.ride.domain.Contact;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface ContactRepo extends JpaRepository<Contact, Long> {
+    Optional<Contact> findByIdempotencyKey(String idempotencyKey);
 }
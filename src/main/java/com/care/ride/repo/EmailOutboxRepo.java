@@ -0,0 +1,32 @@
+package com.care.ride.repo;
+
+import com.care.ride.domain.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepo extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Due rows locked {@code for update skip locked} (lock timeout -2): a node that claims at the
+     * same time skips rows another node is claiming instead of sending them too.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select o from EmailOutbox o where o.status in :statuses and o.nextAttemptAt <= :now order by o.id")
+    List<EmailOutbox> claimDue(@Param("statuses") Collection<String> statuses, @Param("now") Instant now, Pageable page);
+
+    long countByStatusIn(Collection<String> statuses);
+
+    @Query("select min(o.createdAt) from EmailOutbox o where o.status in :statuses")
+    Instant findOldestCreatedAt(@Param("statuses") Collection<String> statuses);
+}
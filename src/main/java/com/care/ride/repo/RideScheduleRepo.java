@@ -0,0 +1,39 @@
+package com.care.ride.repo;
+
+import com.care.ride.domain.RideSchedule;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface RideScheduleRepo extends JpaRepository<RideSchedule, Long> {
+
+    /** Series edits and the materialization job both lock the schedule row first. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from RideSchedule s where s.id = :id")
+    Optional<RideSchedule> findForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from RideSchedule s where s.id in :ids order by s.id")
+    List<RideSchedule> findForUpdate(@Param("ids") Collection<Long> ids);
+
+    /** Active schedules with occurrences left to book through {@code through}, in id order after {@code after}. */
+    @Query("select s.id from RideSchedule s where s.active = true and s.id > :after and (s.materializedThrough is null"
+            + " or (s.materializedThrough < :through and (s.endsOn is null or s.materializedThrough < s.endsOn))) order by s.id")
+    List<Long> findDue(@Param("through") LocalDate through, @Param("after") long after, Pageable page);
+
+    /** Active schedules with occurrences that may fall in {@code [from, to]}. */
+    @Query("select s from RideSchedule s where s.active = true and s.startsOn <= :to"
+            + " and (s.endsOn is null or s.endsOn >= :from) order by s.id")
+    List<RideSchedule> findActiveBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select s from RideSchedule s where s.id > :after and (:active is null or s.active = :active) order by s.id")
+    List<RideSchedule> findPage(@Param("active") Boolean active, @Param("after") long after, Pageable page);
+}
@@ -1 +1 @@
-package com.care.ride.repo;import com.care.ride.domain.ServiceType;import org.springframework.data.jpa.repository.JpaRepository;public interface ServiceTypeRepo extends JpaRepository<ServiceType,Integer>{}
\ No newline at end of file
+package com.care.ride.repo;import com.care.ride.domain.ServiceType;import org.springframework.data.jpa.repository.JpaRepository;import org.springframework.transaction.annotation.Transactional;import java.util.List;public interface ServiceTypeRepo extends JpaRepository<ServiceType,Integer>{ @Override @Transactional List<ServiceType> findAll(); }
\ No newline at end of file
@@ -0,0 +1,358 @@
+package com.care.ride.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps booking and contacts from growing without bound. Every night it
+ * <ul>
+ *   <li>creates the monthly partitions for the next {@code archive.months-ahead} months (Postgres,
+ *       see V9), moving over any rows that had already landed in the default partition;</li>
+ *   <li>with {@code archive.enabled}, retires months older than the retention: their rows are
+ *       written to {@code archive.dir/<table>/<yyyy-MM>.csv.gz} and then removed.</li>
+ * </ul>
+ * A Postgres month partition is detached before the export, so the export reads a table nothing
+ * writes to, and dropped once the file is synced: no mass delete, nothing for vacuum to clean up.
+ * Rows outside a month partition (H2, the default partition) are deleted by id in chunks after the
+ * export. Reads and deletes go {@code archive.chunk-size} rows at a time with {@code archive.pause-ms}
+ * between chunks so the job never competes with intake for long. Idempotency keys older than
+ * {@code archive.idempotency-key-retention-days} are purged as well.
+ *
+ * booking months are UTC on pickup_time; contacts.created_at has no zone, so its months follow the
+ * server's wall clock. On Postgres a run first takes a session advisory lock and skips the night if
+ * another node holds it, so several backends never race on the same partitions; which node runs
+ * may differ from night to night, so {@code archive.dir} should be storage they share.
+ */
+@Service
+public class ArchiveService {
+    private static final Logger log = LoggerFactory.getLogger(ArchiveService.class);
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String[] DERIVED_COLUMNS = {"search_vector", "phone_key", "email_key"};
+    // pg_try_advisory_lock key of the nightly run; the single-bigint key space is otherwise unused
+    private static final long NIGHTLY_LOCK = 0x63617265L;
+
+    private record Table(String name, String key, boolean utc, int retentionMonths, Counter archived) {
+        YearMonth currentMonth() {
+            return utc ? YearMonth.now(ZoneOffset.UTC) : YearMonth.now();
+        }
+
+        /** Bind value for the first instant of {@code m}, matching the column type. */
+        Object start(YearMonth m) {
+            LocalDateTime t = m.atDay(1).atStartOfDay();
+            return utc ? t.atOffset(ZoneOffset.UTC) : t;
+        }
+
+        String literal(YearMonth m) {
+            return "'" + m.atDay(1) + " 00:00:00" + (utc ? "+00" : "") + "'";
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final List<Table> tables;
+    private Boolean postgres;
+
+    @Value("${archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${archive.dir:archive}")
+    private Path dir;
+
+    @Value("${archive.months-ahead:6}")
+    private int monthsAhead;
+
+    @Value("${archive.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${archive.pause-ms:100}")
+    private long pauseMs;
+
+    @Value("${archive.max-months-per-run:3}")
+    private int maxMonthsPerRun;
+
+    @Value("${archive.idempotency-key-retention-days:30}")
+    private int keyRetentionDays;
+
+    public ArchiveService(JdbcTemplate jdbc, TransactionTemplate tx, MeterRegistry registry,
+                          @Value("${archive.booking-retention-months:24}") int bookingRetentionMonths,
+                          @Value("${archive.contacts-retention-months:12}") int contactsRetentionMonths) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.tables = List.of(
+                new Table("booking", "pickup_time", true, bookingRetentionMonths, archivedCounter(registry, "booking")),
+                new Table("contacts", "created_at", false, contactsRetentionMonths, archivedCounter(registry, "contacts")));
+    }
+
+    private static Counter archivedCounter(MeterRegistry registry, String table) {
+        return Counter.builder("archive.rows")
+                .description("Rows written to the archive and removed from the database")
+                .tag("table", table)
+                .register(registry);
+    }
+
+    @Scheduled(cron = "${archive.cron:0 30 3 * * *}")
+    public void nightly() {
+        if (!postgres()) {
+            maintain();
+            return;
+        }
+        // held by a connection of its own for the whole run; a node that dies mid-run drops it with the connection
+        try (Connection c = jdbc.getDataSource().getConnection()) {
+            if (!advisoryLock(c, "pg_try_advisory_lock")) {
+                log.info("Archive maintenance skipped: another node is running it");
+                return;
+            }
+            try {
+                maintain();
+            } finally {
+                advisoryLock(c, "pg_advisory_unlock");
+            }
+        } catch (SQLException ex) {
+            log.warn("Archive maintenance not started: {}", ex.getMessage());
+        }
+    }
+
+    private static boolean advisoryLock(Connection c, String function) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("select " + function + "(?)")) {
+            ps.setLong(1, NIGHTLY_LOCK);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void maintain() {
+        for (Table t : tables) {
+            try {
+                if (postgres()) ensurePartitions(t);
+                if (enabled) archive(t);
+            } catch (DataAccessException | IOException | UncheckedIOException ex) {
+                // next night picks up where this one stopped: detached partitions are retried first
+                log.warn("Archive maintenance for {} stopped: {}", t.name(), ex.getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        int purged = jdbc.update("delete from idempotency_key where created_at < ?",
+                Instant.now().minusSeconds(86400L * keyRetentionDays).atOffset(ZoneOffset.UTC));
+        if (purged > 0) log.info("Purged idempotency keys count={}", purged);
+    }
+
+    private boolean postgres() {
+        if (postgres == null) {
+            postgres = "PostgreSQL".equals(jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+
+    private void ensurePartitions(Table t) {
+        YearMonth now = t.currentMonth();
+        for (YearMonth m = now; !m.isAfter(now.plusMonths(monthsAhead)); m = m.plusMonths(1)) {
+            String part = partitionName(t, m);
+            if (Boolean.TRUE.equals(jdbc.queryForObject("select to_regclass(?) is not null", Boolean.class, part))) continue;
+            YearMonth month = m;
+            int moved = tx.execute(s -> {
+                // fail fast instead of queueing intake behind the brief lock on the parent
+                jdbc.execute("set local lock_timeout = '5s'");
+                jdbc.execute("create table " + part + " (like " + t.name() + " including defaults including constraints)");
+                // the default partition may already hold rows for this month; attach refuses while it does
+                int n = jdbc.update("with moved as (delete from " + t.name() + "_pdefault where " + t.key() + " >= ? and " + t.key() + " < ? returning *) "
+                        + "insert into " + part + " select * from moved", t.start(month), t.start(month.plusMonths(1)));
+                jdbc.execute("alter table " + t.name() + " attach partition " + part
+                        + " for values from (" + t.literal(month) + ") to (" + t.literal(month.plusMonths(1)) + ")");
+                return n;
+            });
+            log.info("Created partition {} movedFromDefault={}", part, moved);
+        }
+    }
+
+    private void archive(Table t) throws IOException, InterruptedException {
+        YearMonth cutoff = t.currentMonth().minusMonths(t.retentionMonths());
+        int months = 0;
+        if (postgres()) {
+            for (String part : jdbc.queryForList("select c.relname from pg_class c where c.relkind = 'r' and pg_table_is_visible(c.oid) "
+                    + "and c.relname ~ ? order by c.relname", String.class, "^" + t.name() + "_p[0-9]{6}$")) {
+                YearMonth m = YearMonth.parse(part.substring(part.length() - 6), SUFFIX);
+                if (!m.isBefore(cutoff) || months >= maxMonthsPerRun) break;
+                archivePartition(t, part, m);
+                months++;
+            }
+        }
+        // anything older that is not in a month partition: H2, or stragglers in the default partition
+        YearMonth m;
+        while (months < maxMonthsPerRun && (m = oldestMonthBefore(t, cutoff)) != null) {
+            archiveRows(t, m);
+            months++;
+        }
+    }
+
+    private YearMonth oldestMonthBefore(Table t, YearMonth cutoff) {
+        String sql = "select min(" + t.key() + ") from " + t.name() + " where " + t.key() + " < ?";
+        if (t.utc()) {
+            OffsetDateTime oldest = jdbc.queryForObject(sql, OffsetDateTime.class, t.start(cutoff));
+            return oldest == null ? null : YearMonth.from(oldest.atZoneSameInstant(ZoneOffset.UTC));
+        }
+        LocalDateTime oldest = jdbc.queryForObject(sql, LocalDateTime.class, t.start(cutoff));
+        return oldest == null ? null : YearMonth.from(oldest);
+    }
+
+    private void archivePartition(Table t, String part, YearMonth m) throws IOException, InterruptedException {
+        boolean attached = Boolean.TRUE.equals(jdbc.queryForObject(
+                "select exists (select 1 from pg_inherits i where i.inhrelid = to_regclass(?))", Boolean.class, part));
+        if (attached) {
+            tx.executeWithoutResult(s -> {
+                jdbc.execute("set local lock_timeout = '5s'");
+                jdbc.execute("alter table " + t.name() + " detach partition " + part);
+            });
+        }
+        long expected = jdbc.queryForObject("select count(*) from " + part, Long.class);
+        if (expected == 0) {
+            jdbc.execute("drop table " + part);
+            log.info("Dropped empty partition {}", part);
+            return;
+        }
+        Export export = export(t, m, "select * from " + part + " where id > ? order by id limit ?");
+        if (export.rows != expected) {
+            throw new IOException("archive of " + part + " wrote " + export.rows + " rows, table has " + expected);
+        }
+        jdbc.execute("drop table " + part);
+        t.archived().increment(export.rows);
+        log.info("Archived partition {} rows={} file={}", part, export.rows, export.file);
+    }
+
+    private void archiveRows(Table t, YearMonth m) throws IOException, InterruptedException {
+        String range = t.key() + " >= ? and " + t.key() + " < ?";
+        Object from = t.start(m), to = t.start(m.plusMonths(1));
+        Export export = export(t, m, "select * from " + t.name() + " where " + range + " and id > ? order by id limit ?", from, to);
+        // only what is in the file: a row that slipped into the month meanwhile waits for the next run
+        long deleted = 0;
+        int n;
+        do {
+            n = jdbc.update("delete from " + t.name() + " where " + range + " and id in (select id from " + t.name()
+                    + " where " + range + " and id <= ? order by id limit ?)", from, to, from, to, export.lastId, chunkSize);
+            deleted += n;
+            if (n > 0) Thread.sleep(pauseMs);
+        } while (n > 0);
+        t.archived().increment(deleted);
+        log.info("Archived {} rows of {} rows={} deleted={} file={}", t.name(), m, export.rows, deleted, export.file);
+    }
+
+    private record Export(Path file, long rows, long lastId) {}
+
+    /**
+     * Streams {@code sql} (keyset-paged: its last two parameters are the previous id and the chunk
+     * size) into a new gzip'd CSV, synced and renamed into place only when complete.
+     */
+    private Export export(Table t, YearMonth m, String sql, Object... range) throws IOException, InterruptedException {
+        Path folder = dir.resolve(t.name());
+        Files.createDirectories(folder);
+        Path file = folder.resolve(m + ".csv.gz");
+        for (int i = 2; Files.exists(file); i++) file = folder.resolve(m + "-" + i + ".csv.gz");
+        Path tmp = folder.resolve(file.getFileName() + ".tmp");
+
+        long rows = 0, lastId = 0;
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, 65536);
+            Writer w = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+            List<Long> ids = new ArrayList<>(chunkSize);
+            do {
+                ids.clear();
+                boolean header = rows == 0;
+                Object[] args = Arrays.copyOf(range, range.length + 2);
+                args[range.length] = lastId;
+                args[range.length + 1] = chunkSize;
+                jdbc.query(sql, rs -> {
+                    ResultSetMetaData md = rs.getMetaData();
+                    try {
+                        if (header && ids.isEmpty()) {
+                            for (int c = 1, n = 0; c <= md.getColumnCount(); c++) {
+                                if (derived(md.getColumnLabel(c))) continue;
+                                if (n++ > 0) w.write(',');
+                                w.write(md.getColumnLabel(c).toLowerCase(Locale.ROOT));
+                            }
+                            w.write('\n');
+                        }
+                        for (int c = 1, n = 0; c <= md.getColumnCount(); c++) {
+                            if (derived(md.getColumnLabel(c))) continue;
+                            if (n++ > 0) w.write(',');
+                            writeCsv(w, rs.getString(c));
+                        }
+                        w.write('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    ids.add(rs.getLong("id"));
+                }, args);
+                if (!ids.isEmpty()) {
+                    rows += ids.size();
+                    lastId = ids.get(ids.size() - 1);
+                    Thread.sleep(pauseMs);
+                }
+            } while (ids.size() == chunkSize);
+            w.flush();
+            gzip.finish();
+            out.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        return new Export(file, rows, lastId);
+    }
+
+    // search columns (V11) are recomputed from the others and would only bloat the archive
+    private static boolean derived(String column) {
+        for (String d : DERIVED_COLUMNS) if (d.equalsIgnoreCase(column)) return true;
+        return false;
+    }
+
+    // null is an empty field, an empty string is ""
+    private static void writeCsv(Writer w, String v) throws IOException {
+        if (v == null) return;
+        if (!v.isEmpty() && v.chars().noneMatch(ch -> ch == ',' || ch == '"' || ch == '\n' || ch == '\r')) {
+            w.write(v);
+            return;
+        }
+        w.write('"');
+        w.write(v.replace("\"", "\"\""));
+        w.write('"');
+    }
+
+    private static String partitionName(Table t, YearMonth m) {
+        return t.name() + "_p" + m.format(SUFFIX);
+    }
+}
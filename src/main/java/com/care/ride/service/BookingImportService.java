@@ -0,0 +1,303 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.ServiceType;
+import com.care.ride.dto.BookingRequest;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bulk booking import for partner facility manifests. The upload (JSON array or CSV with a header
+ * row) is parsed one row at a time; valid rows are inserted in chunks of
+ * {@code intake.import.chunk-size}, each chunk one transaction of batched inserts, and a single
+ * digest notification is queued instead of one email per ride.
+ *
+ * Chunks commit as they go, so an import cut short by malformed input or a database failure keeps
+ * the rows already reported as CREATED; the rest are reported FAILED or simply not listed.
+ */
+@Service
+public class BookingImportService {
+    private static final Logger log = LoggerFactory.getLogger(BookingImportService.class);
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+    public static final String FAILED = "FAILED";
+
+    public record RowResult(int row, String status, Long id, List<String> errors) {}
+
+    public record ImportResult(int received, int created, int rejected, int failed, String error, List<RowResult> rows) {}
+
+    private static final List<String> CSV_REQUIRED =
+            List.of("fullname", "phone", "pickupaddress", "dropoffaddress", "pickuptime", "servicetypeid");
+
+    private final IntakeService intakeService;
+    private final ServiceTypeCatalog catalog;
+    private final CapacityService capacity;
+    private final Validator validator;
+    private final ObjectMapper mapper;
+    private final Bulkhead dbBulkhead;
+    private final NotificationTemplates templates;
+    private final Timer chunkSaveTimer;
+
+    @Value("${intake.import.chunk-size:250}")
+    private int chunkSize;
+
+    @Value("${intake.import.max-rows:5000}")
+    private int maxRows;
+
+    @Value("${intake.import.digest-max-lines:200}")
+    private int digestMaxLines;
+
+    public BookingImportService(IntakeService intakeService, ServiceTypeCatalog catalog, CapacityService capacity,
+                                Validator validator, ObjectMapper mapper, @Qualifier("dbBulkhead") Bulkhead dbBulkhead,
+                                NotificationTemplates templates, MeterRegistry registry) {
+        this.intakeService = intakeService;
+        this.catalog = catalog;
+        this.capacity = capacity;
+        this.validator = validator;
+        this.mapper = mapper;
+        this.dbBulkhead = dbBulkhead;
+        this.templates = templates;
+        this.chunkSaveTimer = registry.timer("intake.db.save", "type", "import");
+    }
+
+    public ImportResult importJson(InputStream in, String notifyTo) throws IOException {
+        Run run = new Run(notifyTo);
+        try (JsonParser p = mapper.getFactory().createParser(in)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) {
+                run.stop("expected a JSON array of bookings");
+            } else {
+                JsonToken t;
+                while (!run.stopped() && (t = p.nextToken()) != JsonToken.END_ARRAY) {
+                    if (t == null) {
+                        run.stop("unexpected end of input after row " + run.received);
+                        break;
+                    }
+                    JsonNode node = p.readValueAsTree();
+                    try {
+                        run.accept(mapper.treeToValue(node, BookingRequest.class), List.of());
+                    } catch (JsonProcessingException ex) {
+                        run.accept(null, List.of(ex.getOriginalMessage()));
+                    }
+                }
+            }
+        } catch (JsonProcessingException ex) {
+            run.stop("malformed JSON after row " + run.received + ": " + ex.getOriginalMessage());
+        }
+        return run.finish();
+    }
+
+    public ImportResult importCsv(Reader in, String notifyTo) throws IOException {
+        Run run = new Run(notifyTo);
+        CsvRecordReader csv = new CsvRecordReader(in);
+        try {
+            List<String> header = csv.next();
+            Map<String, Integer> columns = new HashMap<>();
+            if (header != null) {
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+            List<String> missing = CSV_REQUIRED.stream().filter(c -> !columns.containsKey(c)).toList();
+            if (header == null || !missing.isEmpty()) {
+                run.stop("CSV header must name the columns " + CSV_REQUIRED + (header == null ? "" : "; missing " + missing));
+            }
+            List<String> record;
+            while (!run.stopped() && (record = csv.next()) != null) {
+                List<String> errors = new ArrayList<>();
+                Instant pickupTime = null;
+                Integer serviceTypeId = null;
+                try {
+                    String v = cell(record, columns, "pickuptime");
+                    pickupTime = v == null ? null : Instant.parse(v);
+                } catch (DateTimeParseException ex) {
+                    errors.add("pickupTime: expected an ISO-8601 instant such as 2025-01-31T14:30:00Z");
+                }
+                try {
+                    String v = cell(record, columns, "servicetypeid");
+                    serviceTypeId = v == null ? null : Integer.valueOf(v);
+                } catch (NumberFormatException ex) {
+                    errors.add("serviceTypeId: must be a number");
+                }
+                run.accept(new BookingRequest(
+                        cell(record, columns, "fullname"),
+                        cell(record, columns, "phone"),
+                        cell(record, columns, "email"),
+                        cell(record, columns, "pickupaddress"),
+                        cell(record, columns, "dropoffaddress"),
+                        pickupTime,
+                        serviceTypeId,
+                        cell(record, columns, "notes")), errors);
+            }
+        } catch (IOException ex) {
+            run.stop("malformed CSV after row " + run.received + ": " + ex.getMessage());
+        }
+        return run.finish();
+    }
+
+    private static String cell(List<String> record, Map<String, Integer> columns, String name) {
+        Integer i = columns.get(name);
+        if (i == null || i >= record.size()) return null;
+        String v = record.get(i).trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    /** State of one import: the open chunk, per-row results and the digest being built. */
+    private final class Run {
+        private final String notifyTo;
+        private final List<Booking> pending = new ArrayList<>();
+        private final List<Integer> pendingRows = new ArrayList<>();
+        private final List<SlotIndex.Span> pendingSlots = new ArrayList<>();
+        private final List<RowResult> results = new ArrayList<>();
+        // saved bookings the digest lists, up to digestMaxLines; rendered once, with the last chunk
+        private final List<Booking> listed = new ArrayList<>();
+        private int received, created, rejected, failed;
+        private String error;
+
+        Run(String notifyTo) {
+            this.notifyTo = notifyTo;
+        }
+
+        boolean stopped() {
+            return error != null;
+        }
+
+        void stop(String reason) {
+            if (error == null) error = reason;
+        }
+
+        void accept(BookingRequest req, List<String> parseErrors) {
+            if (received >= maxRows) {
+                stop("row limit of " + maxRows + " reached; split the manifest");
+                return;
+            }
+            int row = ++received;
+            List<String> errors = new ArrayList<>(parseErrors);
+            Optional<ServiceType> st = Optional.empty();
+            if (req != null) {
+                for (ConstraintViolation<BookingRequest> v : validator.validate(req)) {
+                    errors.add(v.getPropertyPath() + ": " + v.getMessage());
+                }
+                st = catalog.find(req.serviceTypeId());
+                if (req.serviceTypeId() != null && st.isEmpty()) errors.add("serviceTypeId: not found");
+            }
+            SlotIndex.Span slot = null;
+            if (errors.isEmpty()) {
+                slot = capacity.reserve(st.get(), req.pickupTime());
+                if (slot == null) errors.add("pickupTime: no " + st.get().getName() + " vehicle is free at this time");
+            }
+            if (!errors.isEmpty()) {
+                errors.sort(null);
+                rejected++;
+                results.add(new RowResult(row, REJECTED, null, errors));
+                return;
+            }
+            pending.add(IntakeService.newBooking(req, st.get()));
+            pendingRows.add(row);
+            pendingSlots.add(slot);
+            if (pending.size() >= chunkSize) flush(false);
+        }
+
+        private void flush(boolean last) {
+            boolean withDigest = last && error == null && created + pending.size() > 0;
+            if (pending.isEmpty() && !withDigest) return;
+            try {
+                List<Booking> saved = dbBulkhead.call(() -> chunkSaveTimer.record(() -> intakeService.saveBookings(pending,
+                        withDigest ? notifyTo : null, inFlight -> digestSubject(created + inFlight.size()), this::digest)));
+                recordSaved(saved);
+            } catch (Exception ex) {
+                String reason = ex instanceof Bulkhead.FullException ? "database busy, retry these rows" : ex.getClass().getSimpleName();
+                log.warn("Booking import chunk failed rows={} reason={}: {}", pendingRows.size(), reason, ex.getMessage());
+                for (Integer row : pendingRows) {
+                    results.add(new RowResult(row, FAILED, null, List.of(reason)));
+                }
+                failed += pendingRows.size();
+                pendingSlots.forEach(capacity::release);
+                stop("import stopped after row " + received + ": " + reason);
+            } finally {
+                pending.clear();
+                pendingRows.clear();
+                pendingSlots.clear();
+            }
+        }
+
+        /** {@code saved} is {@code pending} minus the rows another node took the last vehicle for. */
+        private void recordSaved(List<Booking> saved) {
+            for (int i = 0, s = 0; i < pending.size(); i++) {
+                Booking b = pending.get(i);
+                if (s < saved.size() && saved.get(s) == b) {
+                    results.add(new RowResult(pendingRows.get(i), CREATED, b.getId(), List.of()));
+                    s++;
+                } else {
+                    results.add(new RowResult(pendingRows.get(i), REJECTED, null,
+                            List.of("pickupTime: no " + b.getServiceType().getName() + " vehicle is free at this time")));
+                    rejected++;
+                    capacity.release(pendingSlots.get(i));
+                }
+            }
+            created += saved.size();
+            listed.addAll(saved.subList(0, Math.min(saved.size(), Math.max(0, digestMaxLines - listed.size()))));
+        }
+
+        ImportResult finish() {
+            if (error == null) {
+                flush(true);
+            } else {
+                flush(false);
+            }
+            // a run cut short never reached the final chunk, so its digest goes out on its own
+            if (error != null && created > 0) {
+                try {
+                    dbBulkhead.run(() -> intakeService.queueNotification(notifyTo, digestSubject(created), digest(List.of())));
+                } catch (Exception ex) {
+                    log.warn("Booking import digest could not be queued: {}", ex.getMessage());
+                }
+            }
+            results.sort((a, b) -> Integer.compare(a.row(), b.row()));
+            log.info("Booking import finished received={} created={} rejected={} failed={} error={}",
+                    received, created, rejected, failed, error);
+            return new ImportResult(received, created, rejected, failed, error, results);
+        }
+
+        private String digestSubject(int count) {
+            return "Bulk Ride Import: " + count + " booking" + (count == 1 ? "" : "s");
+        }
+
+        /** Digest covering the rows recorded so far plus {@code inFlight} (the chunk being committed). */
+        NotificationTemplates.Rendered digest(List<Booking> inFlight) {
+            List<Booking> shown = listed;
+            if (!inFlight.isEmpty() && listed.size() < digestMaxLines) {
+                shown = new ArrayList<>(listed);
+                shown.addAll(inFlight.subList(0, Math.min(inFlight.size(), digestMaxLines - listed.size())));
+            }
+            int total = created + inFlight.size();
+            // rows of the chunk that did not make it into inFlight were refused for want of a vehicle
+            return templates.importDigest(new NotificationTemplates.ImportDigest(
+                    total, rejected + pending.size() - inFlight.size(), failed, error, shown, total - shown.size()));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.repo.BookingRepo;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Dispatcher status updates. A booking moves from PENDING through CONFIRMED to COMPLETED, or to
+ * CANCELLED, which frees its vehicle in the capacity index; a confirmation can be taken back to
+ * PENDING. COMPLETED and CANCELLED are final, and any other move is an
+ * {@link InvalidTransitionException} ({@link #NEXT} is the table). Every change is announced
+ * on the {@link DispatchEventBus} after commit and moves the booking between status counts in the
+ * daily reports ({@link ReportService}).
+ */
+@Service
+public class BookingStatusService {
+    public static final List<String> STATUSES = List.of("PENDING", "CONFIRMED", "COMPLETED", "CANCELLED");
+
+    /** Statuses each status may move to. */
+    public static final Map<String, List<String>> NEXT = Map.of(
+            "PENDING", List.of("CONFIRMED", "CANCELLED"),
+            "CONFIRMED", List.of("PENDING", "COMPLETED", "CANCELLED"),
+            "COMPLETED", List.of(),
+            "CANCELLED", List.of());
+
+    public static class InvalidTransitionException extends RuntimeException {
+        public InvalidTransitionException(String message) {
+            super(message);
+        }
+    }
+
+    private final BookingRepo bookingRepo;
+    private final CapacityService capacity;
+    private final ServiceTypeCatalog catalog;
+    private final DispatchEventBus events;
+    private final ReportService reports;
+
+    public BookingStatusService(BookingRepo bookingRepo, CapacityService capacity, ServiceTypeCatalog catalog,
+                                DispatchEventBus events, ReportService reports) {
+        this.bookingRepo = bookingRepo;
+        this.capacity = capacity;
+        this.catalog = catalog;
+        this.events = events;
+        this.reports = reports;
+    }
+
+    /** Empty when there is no such booking; setting the current status again is a no-op. */
+    @Transactional
+    public Optional<DispatchEventBus.StatusChange> update(long id, String status) {
+        if (!STATUSES.contains(status)) {
+            throw new InvalidTransitionException("status must be one of " + STATUSES);
+        }
+        // row lock: two dispatchers cancelling at once must release the vehicle only once
+        Optional<Booking> found = bookingRepo.findForUpdate(id);
+        if (found.isEmpty()) return Optional.empty();
+        Booking b = found.get();
+        String previous = b.getStatus();
+        var change = new DispatchEventBus.StatusChange(b.getId(), status, previous, b.getPickupTime(), b.getServiceType().getId());
+        if (previous.equals(status)) return Optional.of(change);
+        if (!NEXT.getOrDefault(previous, List.of()).contains(status)) {
+            throw new InvalidTransitionException("booking " + id + " is " + previous + " and cannot become " + status
+                    + (NEXT.getOrDefault(previous, List.of()).isEmpty() ? "" : "; it can become " + NEXT.get(previous)));
+        }
+        b.setStatus(status);
+        reports.statusChanged(new ReportService.BookingKey(change.pickupTime(), change.serviceTypeId(), previous), status);
+        if ("CANCELLED".equals(status)) {
+            catalog.find(change.serviceTypeId()).ifPresent(st ->
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            capacity.release(st, change.pickupTime());
+                        }
+                    }));
+        }
+        events.publishAfterCommit(DispatchEventBus.BOOKING_STATUS_CHANGED, change);
+        return Optional.of(change);
+    }
+}
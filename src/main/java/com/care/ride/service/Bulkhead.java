@@ -0,0 +1,77 @@
+package com.care.ride.service;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Fixed number of permits in front of a blocking resource (DB pool, SMTP). With virtual threads
+ * request concurrency is no longer capped by the Tomcat worker pool, so callers queue here for at
+ * most {@code maxWaitMs} and are then rejected instead of piling up behind the resource.
+ */
+public class Bulkhead {
+    private final String name;
+    private final Semaphore permits;
+    private final int capacity;
+    private final long maxWaitMs;
+    private volatile Timer waitTimer;
+
+    public Bulkhead(String name, int capacity, long maxWaitMs) {
+        this.name = name;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public <T> T call(Supplier<T> work) {
+        acquire();
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void run(Runnable work) {
+        call(() -> { work.run(); return null; });
+    }
+
+    private void acquire() {
+        // uncontended fast path skips the clock reads
+        if (permits.tryAcquire()) {
+            Timer t = waitTimer;
+            if (t != null) t.record(0, TimeUnit.NANOSECONDS);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                throw new FullException(name);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FullException(name);
+        } finally {
+            Timer t = waitTimer;
+            if (t != null) t.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Time spent queueing for a permit (including callers that gave up) is recorded here. */
+    public void setWaitTimer(Timer waitTimer) {
+        this.waitTimer = waitTimer;
+    }
+
+    public String getName() { return name; }
+    public int getCapacity() { return capacity; }
+    public int available() { return permits.availablePermits(); }
+    public int queued() { return permits.getQueueLength(); }
+
+    public static class FullException extends RuntimeException {
+        public FullException(String name) {
+            super("bulkhead '" + name + "' saturated");
+        }
+    }
+}
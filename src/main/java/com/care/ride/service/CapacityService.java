@@ -0,0 +1,196 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.ServiceType;
+import com.care.ride.repo.BookingRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Vehicle availability per ServiceType. A booking holds one of the type's {@code vehicleCount}
+ * vehicles for {@code tripMinutes} from its pickup time; types without a vehicle count are
+ * unlimited but still tracked.
+ *
+ * The counts live in a {@link SlotIndex} loaded from the booking table before the web server
+ * starts and kept current by the booking paths, which {@link #reserve} before saving and
+ * {@link #release} if the save fails or the booking is cancelled. The index is per instance, so
+ * it is only the fast pre-check: the save transaction asks {@link #overbooked}, which counts the
+ * committed bookings of every node under a lock, and that answer is final. Bookings written on
+ * another node only reach this node's index on a restart, so its availability can show vehicles
+ * that are already taken; a booking for one is refused at the save.
+ */
+@Service
+public class CapacityService implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(CapacityService.class);
+
+    public record Slot(Instant start, Integer remaining) {}
+
+    public record DayAvailability(int serviceTypeId, LocalDate date, String zone, long slotMinutes, int tripMinutes,
+                                  Integer vehicleCount, List<Slot> slots) {}
+
+    /** The database count found no vehicle free; thrown from a save, which rolls back. */
+    public static class NoCapacityException extends RuntimeException {
+        public NoCapacityException(String message) {
+            super(message);
+        }
+    }
+
+    private final BookingRepo bookingRepo;
+    private final ServiceTypeCatalog catalog;
+    private final JdbcTemplate jdbc;
+    private final SlotIndex index;
+    private final ZoneId zone;
+    private boolean postgres;
+
+    public CapacityService(BookingRepo bookingRepo, ServiceTypeCatalog catalog, JdbcTemplate jdbc,
+                           @Value("${intake.capacity.slot-minutes:15}") int slotMinutes,
+                           @Value("${intake.capacity.zone:America/New_York}") String zone) {
+        this.bookingRepo = bookingRepo;
+        this.catalog = catalog;
+        this.jdbc = jdbc;
+        this.index = new SlotIndex(Duration.ofMinutes(slotMinutes));
+        this.zone = ZoneId.of(zone);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        postgres = "PostgreSQL".equals(jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName()));
+        long start = System.nanoTime();
+        int loaded = 0;
+        // trips that started up to a day ago may still be on the road
+        for (Object[] row : bookingRepo.findActivePickupsSince(Instant.now().minus(Duration.ofDays(1)))) {
+            var st = catalog.find((Integer) row[0]);
+            if (st.isEmpty()) continue;
+            index.tryReserve(span(st.get(), (Instant) row[1]), null);
+            loaded++;
+        }
+        log.info("Capacity index loaded bookings={} blocks={} in {} ms", loaded, index.blockCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Hold a vehicle of {@code st} for a trip starting at {@code pickup}; null when none is free. */
+    public SlotIndex.Span reserve(ServiceType st, Instant pickup) {
+        SlotIndex.Span span = span(st, pickup);
+        return index.tryReserve(span, st.getVehicleCount()) ? span : null;
+    }
+
+    /**
+     * The final word on {@code bookings}, about to be inserted in the current transaction: the ones
+     * that would put a slot of their type over its vehicle count, counting the non-cancelled
+     * bookings every node has committed plus the earlier entries of the list. Types without a
+     * vehicle count are not checked. The day blocks of the types involved stay locked until the
+     * transaction ends (advisory locks on Postgres, the service_type row elsewhere), so two nodes
+     * cannot both give away the last vehicle.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Booking> overbooked(List<Booking> bookings) {
+        Map<ServiceType, List<Booking>> byType = new TreeMap<>((a, b) -> Integer.compare(a.getId(), b.getId()));
+        for (Booking b : bookings) {
+            catalog.find(b.getServiceType().getId()).filter(st -> st.getVehicleCount() != null)
+                    .ifPresent(st -> byType.computeIfAbsent(st, k -> new ArrayList<>()).add(b));
+        }
+        List<Booking> over = new ArrayList<>();
+        // ascending (type, block) order, the same on every node
+        for (Map.Entry<ServiceType, List<Booking>> e : byType.entrySet()) {
+            ServiceType st = e.getKey();
+            List<SlotIndex.Span> spans = e.getValue().stream().map(b -> span(st, b.getPickupTime())).toList();
+            lock(st, spans);
+
+            long first = spans.stream().mapToLong(SlotIndex.Span::first).min().orElseThrow();
+            long end = spans.stream().mapToLong(SlotIndex.Span::end).max().orElseThrow();
+            // anything picked up a trip length before the first slot is back by then
+            Instant from = index.startOf(first).minus(Duration.ofMinutes(st.getTripMinutes()));
+            SlotIndex counts = new SlotIndex(index.slotLength());
+            jdbc.query("select pickup_time from booking where service_type_id = ? and pickup_time > ? and pickup_time < ?"
+                            + " and status <> 'CANCELLED'",
+                    rs -> { counts.tryReserve(span(st, rs.getObject(1, OffsetDateTime.class).toInstant()), null); },
+                    st.getId(), from.atOffset(ZoneOffset.UTC), index.startOf(end).atOffset(ZoneOffset.UTC));
+            for (int i = 0; i < spans.size(); i++) {
+                if (!counts.tryReserve(spans.get(i), st.getVehicleCount())) over.add(e.getValue().get(i));
+            }
+        }
+        return over;
+    }
+
+    private void lock(ServiceType st, List<SlotIndex.Span> spans) {
+        if (!postgres) {
+            jdbc.queryForList("select id from service_type where id = ? for update", Integer.class, st.getId());
+            return;
+        }
+        TreeSet<Long> blocks = new TreeSet<>();
+        for (SlotIndex.Span span : spans) {
+            for (long b = Math.floorDiv(span.first(), SlotIndex.BLOCK_SLOTS); b <= Math.floorDiv(span.end() - 1, SlotIndex.BLOCK_SLOTS); b++) {
+                blocks.add(b);
+            }
+        }
+        for (long b : blocks) {
+            jdbc.query("select pg_advisory_xact_lock(?, ?)", rs -> {}, st.getId(), (int) b);
+        }
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    public void release(SlotIndex.Span span) {
+        if (span != null) index.release(span);
+    }
+
+    /** Give back the vehicle held by a cancelled booking; trips already over are left alone. */
+    public void release(ServiceType st, Instant pickup) {
+        if (pickup.plus(Duration.ofMinutes(st.getTripMinutes())).isAfter(Instant.now())) {
+            index.release(span(st, pickup));
+        }
+    }
+
+    /** Remaining vehicles for each pickup slot starting on {@code date} in the service zone. */
+    public DayAvailability availability(ServiceType st, LocalDate date) {
+        long first = index.slotOf(date.atStartOfDay(zone).toInstant());
+        long end = index.slotOf(date.plusDays(1).atStartOfDay(zone).toInstant());
+        int tripSlots = (int) (span(st, index.startOf(first)).end() - first);
+        int[] used = new int[(int) (end - first) + tripSlots - 1];
+        index.usedInto(st.getId(), first, used);
+        Integer vehicles = st.getVehicleCount();
+        List<Slot> slots = new ArrayList<>((int) (end - first));
+        for (int i = 0; i < end - first; i++) {
+            Integer remaining = null;
+            if (vehicles != null) {
+                int busiest = 0;
+                for (int j = i; j < i + tripSlots; j++) busiest = Math.max(busiest, used[j]);
+                remaining = Math.max(0, vehicles - busiest);
+            }
+            slots.add(new Slot(index.startOf(first + i), remaining));
+        }
+        return new DayAvailability(st.getId(), date, zone.getId(), index.slotLength().toMinutes(), st.getTripMinutes(),
+                vehicles, slots);
+    }
+
+    @Scheduled(cron = "${intake.capacity.prune-cron:0 17 3 * * *}")
+    public void prune() {
+        index.pruneBefore(index.slotOf(Instant.now().minus(Duration.ofDays(2))));
+    }
+
+    private SlotIndex.Span span(ServiceType st, Instant pickup) {
+        return index.span(st.getId(), pickup, Duration.ofMinutes(st.getTripMinutes()));
+    }
+}
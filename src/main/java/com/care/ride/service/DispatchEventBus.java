@@ -0,0 +1,309 @@
+package com.care.ride.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fan-out of dispatch events (booking created, status changed, import chunk, schedule edit) to the
+ * Server-Sent Events streams of connected dashboards, on this node and, through the
+ * {@link DispatchEventRelay}, on every other node.
+ *
+ * Streams are async requests, so an idle dashboard holds a socket but no thread. Each subscriber
+ * has a bounded queue that a short-lived virtual thread drains while there is something to write;
+ * a subscriber whose queue fills (a stalled client) is disconnected rather than allowed to hold
+ * events or slow anyone else down, and catches up on reconnect.
+ *
+ * Event ids are {@code <node epoch>-<sequence>} in the order this node saw the events. The last
+ * {@code dispatch.events.replay-size} are kept, so a reconnect with Last-Event-ID resumes where it
+ * left off; an id from another node, an earlier run or beyond the buffer gets a {@code resync}
+ * event instead, telling the dashboard to reload its list.
+ */
+@Service
+public class DispatchEventBus {
+    private static final Logger log = LoggerFactory.getLogger(DispatchEventBus.class);
+
+    public static final String BOOKING_CREATED = "booking-created";
+    public static final String BOOKING_STATUS_CHANGED = "booking-status-changed";
+    public static final String BOOKINGS_IMPORTED = "bookings-imported";
+    public static final String SCHEDULE_CHANGED = "schedule-changed";
+    public static final String RESYNC = "resync";
+
+    /** {@link #BOOKING_STATUS_CHANGED} payload. */
+    public record StatusChange(Long id, String status, String previousStatus, Instant pickupTime, Integer serviceTypeId) {}
+
+    /** {@link #BOOKINGS_IMPORTED} payload, one per import chunk: reload rather than one event per row. */
+    public record Imported(int count, List<Long> ids) {}
+
+    /**
+     * {@link #SCHEDULE_CHANGED} payload: a recurring schedule was edited or ended, and its bookings
+     * from {@code from} on were updated, removed or created in bulk. Reload that range.
+     */
+    public record ScheduleChanged(Long scheduleId, LocalDate from, int updated, int removed, int created) {}
+
+    /** Relay envelope; {@code data} is already-serialized JSON. */
+    record Envelope(String node, String type, JsonNode data) {}
+
+    private record Event(long seq, String id, String type, String data) {}
+
+    private static final Event HEARTBEAT = new Event(0, null, null, null);
+
+    public static class TooManySubscribersException extends RuntimeException {
+        public TooManySubscribersException(int max) {
+            super("Already streaming to " + max + " dashboards");
+        }
+    }
+
+    private final DispatchEventRelay relay;
+    private final ObjectMapper mapper;
+    private final String node = UUID.randomUUID().toString();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService writers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-", 0).factory());
+    private final Counter published;
+    private final Counter relayed;
+    private final Counter dropped;
+
+    // guarded by this: the sequence, replay buffer and subscriber registration move together so a
+    // resuming subscriber gets every event exactly once
+    private final ArrayDeque<Event> recent = new ArrayDeque<>();
+    private long seq;
+
+    @Value("${dispatch.events.replay-size:1000}")
+    private int replaySize;
+
+    @Value("${dispatch.events.subscriber-buffer:256}")
+    private int subscriberBuffer;
+
+    @Value("${dispatch.events.max-subscribers:2000}")
+    private int maxSubscribers;
+
+    @Value("${dispatch.events.stream-timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    public DispatchEventBus(DispatchEventRelay relay, ObjectMapper mapper, MeterRegistry registry) {
+        this.relay = relay;
+        this.mapper = mapper;
+        this.published = Counter.builder("dispatch.events.published")
+                .description("Events taken on this node")
+                .register(registry);
+        this.relayed = Counter.builder("dispatch.events.received")
+                .description("Events received from other nodes through the relay")
+                .register(registry);
+        this.dropped = Counter.builder("dispatch.events.subscribers.dropped")
+                .description("Streams disconnected for falling behind")
+                .register(registry);
+        Gauge.builder("dispatch.events.subscribers", subscribers, Set::size)
+                .description("Connected dispatch event streams")
+                .register(registry);
+        relay.subscribe(new DispatchEventRelay.Receiver() {
+            @Override
+            public void message(String message) {
+                receive(message);
+            }
+
+            @Override
+            public void gap() {
+                append(RESYNC, "{}");
+            }
+        });
+    }
+
+    /**
+     * Publish once the current transaction commits (immediately when there is none), so a rolled
+     * back save is never announced.
+     */
+    public void publishAfterCommit(String type, Object data) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(type, data);
+                }
+            });
+        } else {
+            publish(type, data);
+        }
+    }
+
+    public void publish(String type, Object data) {
+        String json;
+        String envelope;
+        try {
+            json = mapper.writeValueAsString(data);
+            envelope = mapper.writeValueAsString(new Envelope(node, type, mapper.readTree(json)));
+        } catch (JsonProcessingException ex) {
+            log.warn("Dispatch event {} not published: {}", type, ex.getMessage());
+            return;
+        }
+        published.increment();
+        append(type, json);
+        relay.publish(envelope);
+    }
+
+    private void receive(String message) {
+        Envelope e;
+        try {
+            e = mapper.readValue(message, Envelope.class);
+        } catch (JsonProcessingException ex) {
+            log.warn("Ignoring malformed relayed dispatch event: {}", ex.getMessage());
+            return;
+        }
+        // the relay hands our own events back; they were delivered locally already
+        if (node.equals(e.node())) return;
+        relayed.increment();
+        append(e.type(), e.data().toString());
+    }
+
+    private void append(String type, String data) {
+        // offering never blocks, so it happens under the lock and every stream sees one order
+        synchronized (this) {
+            seq++;
+            Event event = new Event(seq, epoch + "-" + seq, type, data);
+            recent.addLast(event);
+            while (recent.size() > replaySize) recent.removeFirst();
+            for (Subscriber s : subscribers) {
+                s.offer(event);
+            }
+        }
+    }
+
+    /**
+     * A new stream, first replaying what came after {@code lastEventId} when the buffer still has
+     * it.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) throw new TooManySubscribersException(maxSubscribers);
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Subscriber s = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(s));
+        emitter.onTimeout(() -> subscribers.remove(s));
+        emitter.onError(ex -> subscribers.remove(s));
+        synchronized (this) {
+            List<Event> replay = replayAfter(lastEventId);
+            subscribers.add(s);
+            if (replay == null) {
+                s.offer(new Event(seq, epoch + "-" + seq, RESYNC, "{}"));
+            } else {
+                // a client that is further behind than its buffer gets a resync instead
+                if (replay.size() > subscriberBuffer) replay = List.of(new Event(seq, epoch + "-" + seq, RESYNC, "{}"));
+                replay.forEach(s::offer);
+            }
+        }
+        return emitter;
+    }
+
+    /** Events after {@code lastEventId}; empty for a fresh stream, null when they cannot be replayed. */
+    private List<Event> replayAfter(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return List.of();
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(epoch)) return null;
+        long after;
+        try {
+            after = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        if (after > seq) return null;
+        if (after < seq && (recent.isEmpty() || recent.peekFirst().seq() > after + 1)) return null;
+        List<Event> replay = new ArrayList<>();
+        for (Event e : recent) {
+            if (e.seq() > after) replay.add(e);
+        }
+        return replay;
+    }
+
+    /** Comment line every few seconds: keeps proxies from closing idle streams and finds dead clients. */
+    @Scheduled(fixedDelayString = "${dispatch.events.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (Subscriber s : List.copyOf(subscribers)) {
+            s.offer(HEARTBEAT);
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final ArrayDeque<Event> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            synchronized (this) {
+                if (closed) return;
+                if (queue.size() >= subscriberBuffer) {
+                    if (event == HEARTBEAT) return;
+                    // stalled client: cut it loose, it resumes from its Last-Event-ID on reconnect
+                    closed = true;
+                    queue.clear();
+                    subscribers.remove(this);
+                    dropped.increment();
+                    log.info("Dispatch event stream dropped: {} events unsent", subscriberBuffer);
+                    if (draining) return;
+                    draining = true;
+                } else {
+                    queue.addLast(event);
+                    if (draining) return;
+                    draining = true;
+                }
+            }
+            writers.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                Event e;
+                synchronized (this) {
+                    e = queue.pollFirst();
+                    if (e == null) {
+                        draining = false;
+                        if (closed) emitter.complete();
+                        return;
+                    }
+                }
+                try {
+                    if (e == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    } else {
+                        emitter.send(SseEmitter.event().id(e.id()).name(e.type()).data(e.data()));
+                    }
+                } catch (IOException | IllegalStateException ex) {
+                    // client gone; the emitter reports the error and completes
+                    synchronized (this) {
+                        closed = true;
+                        queue.clear();
+                        draining = false;
+                    }
+                    subscribers.remove(this);
+                    return;
+                }
+            }
+        }
+    }
+}
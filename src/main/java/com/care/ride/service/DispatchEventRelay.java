@@ -0,0 +1,27 @@
+package com.care.ride.service;
+
+/**
+ * Carries dispatch events between app nodes so a dashboard connected to any node sees bookings
+ * taken on every node. Messages are opaque strings (the {@link DispatchEventBus} envelope) and are
+ * delivered to every node, the publisher included; delivery is best effort and may reorder.
+ *
+ * {@link InMemoryEventRelay} connects buses within one JVM (single node, tests);
+ * {@link PostgresEventRelay} uses LISTEN/NOTIFY on the primary database.
+ */
+public interface DispatchEventRelay extends AutoCloseable {
+
+    interface Receiver {
+        void message(String message);
+
+        /** Messages may have been missed, e.g. while the relay reconnected. */
+        default void gap() {}
+    }
+
+    /** Hand a message to every node; must not block on the network. */
+    void publish(String message);
+
+    void subscribe(Receiver receiver);
+
+    @Override
+    default void close() {}
+}
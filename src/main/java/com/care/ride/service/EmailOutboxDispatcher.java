@@ -0,0 +1,160 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.EmailOutbox;
+import com.care.ride.web.CorrelationIdFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background drain of the email outbox. The scheduler thread claims at most
+ * {@code mail.outbox.batch-size} rows per SMTP session and a bounded number of batches per tick,
+ * then hands the batches to a small sender pool, so a slow or failing mail server only delays
+ * notifications, never intake requests. A batch is claimed only once a sender is free to take it,
+ * so its lease starts when its SMTP session can start rather than while it waits behind other batches.
+ */
+@Component("emailOutbox")
+public class EmailOutboxDispatcher implements HealthIndicator {
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxService outbox;
+    private final EmailService emailService;
+    // Platform threads on purpose: Jakarta Mail's SMTPTransport does socket I/O inside synchronized
+    // methods, which would pin a virtual thread's carrier for the whole SMTP exchange.
+    private final SimpleAsyncTaskExecutor senders;
+    private final Semaphore senderSlots;
+
+    private final Timer batchTimer;
+    private final Timer deliveryLag;
+
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+
+    @Value("${mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-batches-per-run:5}")
+    private int maxBatchesPerRun;
+
+    public EmailOutboxDispatcher(EmailOutboxService outbox, EmailService emailService, MeterRegistry registry,
+                                 @Value("${mail.smtp.max-concurrent:2}") int maxConcurrent) {
+        this.outbox = outbox;
+        this.emailService = emailService;
+        this.senders = new SimpleAsyncTaskExecutor("mail-");
+        this.senders.setConcurrencyLimit(maxConcurrent);
+        this.senderSlots = new Semaphore(maxConcurrent);
+        this.batchTimer = Timer.builder("mail.outbox.dispatch")
+                .description("One outbox batch: SMTP session plus result bookkeeping")
+                .register(registry);
+        // the email phase as a submitter experiences it: queued at intake until accepted by SMTP
+        this.deliveryLag = Timer.builder("mail.outbox.delivery.lag")
+                .description("Time from enqueue to successful delivery")
+                .register(registry);
+        Gauge.builder("mail.outbox.depth", depth, AtomicLong::get)
+                .description("Pending or in-flight outbound notifications")
+                .register(registry);
+        Gauge.builder("mail.outbox.oldest.age", oldestAgeSeconds, AtomicLong::get)
+                .description("Age of the oldest undelivered notification")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:5000}", initialDelayString = "${mail.outbox.initial-delay-ms:10000}")
+    public void drain() {
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                // wait for a free sender before claiming, so the lease never runs down in a queue
+                senderSlots.acquire();
+                List<EmailOutbox> batch;
+                try {
+                    batch = outbox.claimBatch(batchSize);
+                } catch (RuntimeException ex) {
+                    senderSlots.release();
+                    throw ex;
+                }
+                if (batch.isEmpty()) {
+                    senderSlots.release();
+                    break;
+                }
+                inFlight.add(CompletableFuture.runAsync(() -> dispatch(batch), senders)
+                        .whenComplete((ok, ex) -> senderSlots.release()));
+                if (batch.size() < batchSize) break;
+            }
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            log.error("Outbox drain failed: {}: {}", ex.getClass().getSimpleName(), ex.getMessage());
+        } finally {
+            refreshStats();
+        }
+    }
+
+    private void dispatch(List<EmailOutbox> batch) {
+        batchTimer.record(() -> send(batch));
+    }
+
+    private void send(List<EmailOutbox> batch) {
+        List<MimeMessagePreparator> messages = new ArrayList<>(batch.size());
+        for (EmailOutbox o : batch) {
+            messages.add(EmailService.message(o.getRecipient(), o.getSubject(), o.getBody(), o.getHtmlBody()));
+        }
+        Map<Integer, Exception> failed = emailService.sendPrepared(messages);
+        Map<Long, Exception> byId = new HashMap<>();
+        failed.forEach((i, ex) -> byId.put(batch.get(i).getId(), ex));
+        outbox.complete(batch, byId);
+        Instant now = Instant.now();
+        for (EmailOutbox o : batch) {
+            Exception ex = byId.get(o.getId());
+            if (ex == null) deliveryLag.record(Duration.between(o.getCreatedAt(), now));
+            // one line per notification under the originating request's id
+            try (MDC.MDCCloseable ignored = MDC.putCloseable(CorrelationIdFilter.MDC_KEY, o.getCorrelationId())) {
+                if (ex == null) {
+                    log.info("Outbox notification delivered id={} attempts={}", o.getId(), o.getAttempts());
+                } else {
+                    log.warn("Outbox notification failed id={} attempts={} status={}: {}", o.getId(), o.getAttempts(), o.getStatus(), ex.getMessage());
+                }
+            }
+        }
+        log.debug("Outbox batch dispatched size={} sent={} failed={}", batch.size(), batch.size() - byId.size(), byId.size());
+    }
+
+    private void refreshStats() {
+        try {
+            depth.set(outbox.depth());
+            Instant oldest = outbox.oldestOpenCreatedAt();
+            oldestAgeSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, Instant.now()).getSeconds()));
+        } catch (Exception ex) {
+            log.warn("Outbox stats refresh failed: {}", ex.getMessage());
+        }
+    }
+
+    @Override
+    public Health health() {
+        return Health.up()
+                .withDetail("depth", depth.get())
+                .withDetail("oldestAgeSeconds", oldestAgeSeconds.get())
+                .build();
+    }
+}
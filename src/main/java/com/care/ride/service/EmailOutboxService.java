@@ -0,0 +1,110 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.EmailOutbox;
+import com.care.ride.repo.EmailOutboxRepo;
+import com.care.ride.web.CorrelationIdFilter;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional side of the email outbox: enqueue alongside the business write, claim due rows
+ * for the dispatcher and record delivery results with exponential backoff.
+ */
+@Service
+public class EmailOutboxService {
+    static final List<String> OPEN = List.of(EmailOutbox.PENDING, EmailOutbox.SENDING);
+    // email_outbox.subject (V2); a subject built around a 255-character name must not fail the booking
+    static final int SUBJECT_MAX = 255;
+
+    private final EmailOutboxRepo repo;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.base-backoff-seconds:30}")
+    private long baseBackoffSeconds;
+
+    @Value("${mail.outbox.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    // a SENDING row whose lease has expired (node died mid-send) becomes due again
+    @Value("${mail.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    public EmailOutboxService(EmailOutboxRepo repo) {
+        this.repo = repo;
+    }
+
+    /** Must run inside the caller's transaction so the row commits (or rolls back) with the booking/contact. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public EmailOutbox enqueue(String to, String subject, NotificationTemplates.Rendered body) {
+        EmailOutbox o = new EmailOutbox();
+        o.setRecipient(to);
+        o.setSubject(subject.length() > SUBJECT_MAX ? subject.substring(0, SUBJECT_MAX - 1) + "…" : subject);
+        o.setBody(body.text());
+        o.setHtmlBody(body.html());
+        o.setCorrelationId(MDC.get(CorrelationIdFilter.MDC_KEY));
+        return repo.save(o);
+    }
+
+    /** Safe across nodes: rows are locked while claimed and a concurrent claim skips them. */
+    @Transactional
+    public List<EmailOutbox> claimBatch(int size) {
+        Instant now = Instant.now();
+        List<EmailOutbox> due = repo.claimDue(OPEN, now, PageRequest.of(0, size));
+        for (EmailOutbox o : due) {
+            o.setStatus(EmailOutbox.SENDING);
+            o.setAttempts(o.getAttempts() + 1);
+            o.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+        }
+        return due;
+    }
+
+    /** Apply results of a dispatch: rows absent from {@code failures} were delivered. */
+    @Transactional
+    public void complete(List<EmailOutbox> batch, Map<Long, Exception> failures) {
+        Instant now = Instant.now();
+        for (EmailOutbox o : batch) {
+            Exception ex = failures.get(o.getId());
+            if (ex == null) {
+                o.setStatus(EmailOutbox.SENT);
+                o.setSentAt(now);
+                o.setLastError(null);
+            } else {
+                String msg = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+                o.setLastError(msg.length() > 500 ? msg.substring(0, 500) : msg);
+                if (o.getAttempts() >= maxAttempts) {
+                    o.setStatus(EmailOutbox.FAILED);
+                } else {
+                    o.setStatus(EmailOutbox.PENDING);
+                    o.setNextAttemptAt(now.plus(backoff(o.getAttempts())));
+                }
+            }
+        }
+        repo.saveAll(batch);
+    }
+
+    Duration backoff(int attempts) {
+        long seconds = baseBackoffSeconds << Math.min(attempts - 1, 20);
+        return Duration.ofSeconds(Math.min(seconds, maxBackoffSeconds));
+    }
+
+    @Transactional(readOnly = true)
+    public long depth() {
+        return repo.countByStatusIn(OPEN);
+    }
+
+    @Transactional(readOnly = true)
+    public Instant oldestOpenCreatedAt() {
+        return repo.findOldestCreatedAt(OPEN);
+    }
+}
@@ -1,9 +1,12 @@
 package com.care.ride.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessagePreparator;
 import org.springframework.stereotype.Service;
 
 
@@ -12,12 +15,27 @@ public class EmailService {
     private static final Logger log = LoggerFactory.getLogger(EmailService.class);
 
     // Inner class for SMTP attempt configuration
-    private static class Attempt { 
+    static class Attempt { 
         String host; 
         int port; 
         boolean ssl; 
         boolean startTls; 
         String label; 
+        private String key;
+
+        // computed once: looked up several times per send (breaker state, pool, preferred route)
+        String key() {
+            String k = key;
+            if (k == null) key = k = host+":"+port+":"+ssl+":"+startTls;
+            return k;
+        }
+    }
+
+    // Circuit-breaker state per route: open after N consecutive failures, half-open once openUntil passes
+    private static class RouteState {
+        final java.util.concurrent.atomic.AtomicInteger consecutiveFailures = new java.util.concurrent.atomic.AtomicInteger();
+        volatile long openUntil;
+        volatile long lastSuccess;
     }
 
     @org.springframework.beans.factory.annotation.Value("${spring.mail.username:info@careridesolutionspa.com}")
@@ -35,19 +53,35 @@ public class EmailService {
     @org.springframework.beans.factory.annotation.Value("${spring.mail.protocol:smtp}")
     private String configuredProtocol;
 
+    @org.springframework.beans.factory.annotation.Value("${mail.smtp.breaker.failure-threshold:3}")
+    private int breakerFailureThreshold;
+
+    @org.springframework.beans.factory.annotation.Value("${mail.smtp.breaker.open-ms:300000}")
+    private long breakerOpenMs;
+
+    private final SmtpTransportPool pool;
+    private final Bulkhead smtpBulkhead;
+    private final MeterRegistry registry;
+    private final java.util.Map<String, RouteState> routeStates = new java.util.concurrent.ConcurrentHashMap<>();
+    private final java.util.Map<String, jakarta.mail.Session> sessions = new java.util.concurrent.ConcurrentHashMap<>();
+    // route key that last delivered successfully; tried first on the next send
+    private volatile String preferredRoute;
+    private volatile java.util.List<Attempt> attempts;
+
+    public EmailService(SmtpTransportPool pool, @org.springframework.beans.factory.annotation.Qualifier("smtpBulkhead") Bulkhead smtpBulkhead,
+                        MeterRegistry registry) {
+        this.pool = pool;
+        this.smtpBulkhead = smtpBulkhead;
+        this.registry = registry;
+    }
+
     /**
      * Attempt to send an email using a few transport configurations (SSL on 465, STARTTLS on 587, plain on 25).
      * Returns true on first successful send, false otherwise. All failures are logged.
      */
     public boolean sendContactEmail(String to, String subject, String text) {
-        log.info("=== EMAIL SEND ATTEMPT ===");
-        log.info("From: {}", configuredSender);
-        log.info("To: {}", to);
-        log.info("Subject: {}", subject);
-        log.info("Host: {}, Port: {}", configuredHost, configuredPort);
-        log.info("Password configured: {}", (configuredPassword != null && !configuredPassword.trim().isEmpty()) ? "YES" : "NO");
-        log.info("Password length: {}", configuredPassword != null ? configuredPassword.length() : 0);
-        
+        log.debug("Email send attempt from={} to={} subject={} host={} port={}", configuredSender, to, subject, configuredHost, configuredPort);
+
         if (configuredPassword == null || configuredPassword.trim().isEmpty()) {
             log.error("❌ MAIL_PASSWORD is not configured! Email cannot be sent.");
             log.error("💡 To fix this:");
@@ -63,10 +97,232 @@ public class EmailService {
         message.setSubject(subject);
         message.setText(text);
 
-        // Build candidate transports. We prioritize STARTTLS (587) for Microsoft/Office365 style hosts.
+        if (sendBatch(java.util.List.of(message)).isEmpty()) {
+            log.debug("Email sent to {} (subject={})", to, subject);
+            return true;
+        }
+
+        log.error("❌ ALL MAIL SEND ATTEMPTS FAILED for subject={}", subject);
+        log.error("💡 Possible issues:");
+        log.error("   1. Incorrect MAIL_USERNAME or MAIL_PASSWORD");
+        log.error("   2. AWS WorkMail account not activated");
+        log.error("   3. Domain {} not verified in AWS WorkMail", configuredSender.split("@")[1]);
+        log.error("   4. Sending limits exceeded");
+        return false;
+    }
+
+    /**
+     * Send several messages over pooled SMTP connections, starting with the route that last worked
+     * and skipping routes whose breaker is open. Messages that hit a connection-level failure move on
+     * to the next route; the returned map holds the final failure per message index (empty when
+     * everything was delivered).
+     */
+    public java.util.Map<Integer, Exception> sendBatch(java.util.List<SimpleMailMessage> messages) {
+        java.util.List<MimeMessagePreparator> prepared = new java.util.ArrayList<>(messages.size());
+        for (SimpleMailMessage m : messages) {
+            prepared.add(mime -> m.copyTo(new org.springframework.mail.javamail.MimeMailMessage(mime)));
+        }
+        return sendPrepared(prepared);
+    }
+
+    /** {@link #sendBatch} for messages built straight on the MimeMessage, e.g. by {@link #message}. */
+    public java.util.Map<Integer, Exception> sendPrepared(java.util.List<MimeMessagePreparator> messages) {
+        java.util.Map<Integer, Exception> failures = new java.util.HashMap<>();
+        if (messages.isEmpty()) return failures;
+        if (configuredPassword == null || configuredPassword.trim().isEmpty()) {
+            Exception ex = new IllegalStateException("MAIL_PASSWORD is not configured");
+            for (int i = 0; i < messages.size(); i++) failures.put(i, ex);
+            return failures;
+        }
+
+        try {
+            smtpBulkhead.run(() -> {
+                java.util.List<Integer> pending = new java.util.ArrayList<>();
+                for (int i = 0; i < messages.size(); i++) pending.add(i);
+
+                for (Attempt a : orderedAttempts()) {
+                    pending = sendOnRoute(a, messages, pending, failures);
+                    if (pending.isEmpty()) break;
+                }
+            });
+        } catch (Bulkhead.FullException ex) {
+            for (int i = 0; i < messages.size(); i++) failures.put(i, ex);
+        }
+        return failures;
+    }
+
+    /** Returns the messages that should be retried on the next route. */
+    private java.util.List<Integer> sendOnRoute(Attempt a, java.util.List<MimeMessagePreparator> messages,
+                                                java.util.List<Integer> pending, java.util.Map<Integer, Exception> failures) {
+        RouteState state = routeStates.computeIfAbsent(a.key(), k -> new RouteState());
+        // a reused connection may have been dropped by the server; allow one retry on a fresh one
+        for (int tries = 0; tries < 2 && !pending.isEmpty(); tries++) {
+            SmtpTransportPool.Pooled conn;
+            try {
+                conn = pool.borrow(a.key(), () -> connect(a));
+            } catch (jakarta.mail.AuthenticationFailedException ex) {
+                log.error("❌ AUTHENTICATION FAILED when sending email via {}:{} - {}", a.host, a.port, ex.getMessage());
+                log.error("   Check MAIL_USERNAME and MAIL_PASSWORD are correct");
+                countAttempt(a, "auth_failure", pending.size());
+                routeFailed(a, state);
+                for (Integer i : pending) failures.put(i, ex);
+                return pending;
+            } catch (Exception ex) {
+                log.error("❌ FAILED to connect via {}:{} - {}: {}", a.host, a.port, ex.getClass().getSimpleName(), ex.getMessage());
+                countAttempt(a, "connect_failure", pending.size());
+                routeFailed(a, state);
+                for (Integer i : pending) failures.put(i, ex);
+                return pending;
+            }
+            boolean fresh = conn.uses == 0;
+            log.debug("Sending {} message(s) via host={}, port={}, label={}", pending.size(), a.host, a.port, a.label);
+
+            java.util.List<Integer> remaining = new java.util.ArrayList<>();
+            boolean delivered = false;
+            Exception broken = null;
+            for (Integer i : pending) {
+                if (broken != null) { remaining.add(i); continue; }
+                Timer.Sample sample = Timer.start(registry);
+                String result = "success";
+                try {
+                    jakarta.mail.internet.MimeMessage mime = toMime(a, messages.get(i));
+                    conn.transport.sendMessage(mime, mime.getAllRecipients());
+                    failures.remove(i);
+                    delivered = true;
+                } catch (jakarta.mail.SendFailedException ex) {
+                    // rejected recipient/message: the session is fine and another route would not help
+                    log.error("❌ Message rejected via {}:{} - {}", a.host, a.port, ex.getMessage());
+                    failures.put(i, ex);
+                    result = "rejected";
+                } catch (Exception ex) {
+                    log.error("❌ FAILED to send email via {}:{} - {}: {}", a.host, a.port, ex.getClass().getSimpleName(), ex.getMessage());
+                    failures.put(i, ex);
+                    remaining.add(i);
+                    broken = ex;
+                    result = "send_failure";
+                } finally {
+                    sample.stop(registry.timer("mail.send", "route", a.label, "result", result));
+                    countAttempt(a, result, 1);
+                }
+            }
+            if (broken == null) {
+                pool.release(conn);
+                routeSucceeded(a, state);
+                return remaining;
+            }
+            pool.discard(conn);
+            if (delivered) routeSucceeded(a, state);
+            pending = remaining;
+            if (fresh) {
+                routeFailed(a, state);
+                return pending;
+            }
+        }
+        return pending;
+    }
+
+    // per-route outcome counts: success, rejected, send_failure, auth_failure, connect_failure
+    private void countAttempt(Attempt a, String result, int messages) {
+        registry.counter("mail.smtp.attempts", "route", a.label, "result", result).increment(messages);
+    }
+
+    private void routeSucceeded(Attempt a, RouteState state) {
+        state.consecutiveFailures.set(0);
+        state.openUntil = 0;
+        state.lastSuccess = System.currentTimeMillis();
+        preferredRoute = a.key();
+    }
+
+    private void routeFailed(Attempt a, RouteState state) {
+        int failures = state.consecutiveFailures.incrementAndGet();
+        if (failures >= breakerFailureThreshold) {
+            state.openUntil = System.currentTimeMillis() + breakerOpenMs;
+            if (failures == breakerFailureThreshold) log.warn("SMTP route {} ({}) disabled for {} ms after {} consecutive failures", a.label, a.key(), breakerOpenMs, failures);
+        }
+        if (a.key().equals(preferredRoute)) preferredRoute = null;
+    }
+
+    // Learned route first, then configured order; routes with an open breaker are skipped. When every
+    // breaker is open, only the route closest to re-closing is probed.
+    java.util.List<Attempt> orderedAttempts() {
+        java.util.List<Attempt> all = attempts();
+        long now = System.currentTimeMillis();
+        java.util.List<Attempt> ordered = new java.util.ArrayList<>(all.size());
+        String preferred = preferredRoute;
+        for (Attempt a : all) {
+            RouteState state = routeStates.get(a.key());
+            if (state != null && state.openUntil > now) continue;
+            if (a.key().equals(preferred)) ordered.add(0, a); else ordered.add(a);
+        }
+        if (ordered.isEmpty()) {
+            Attempt probe = all.stream()
+                    .min(java.util.Comparator.comparingLong(a -> routeStates.get(a.key()).openUntil))
+                    .orElseThrow();
+            return java.util.List.of(probe);
+        }
+        return ordered;
+    }
+
+    private java.util.List<Attempt> attempts() {
+        java.util.List<Attempt> list = attempts;
+        if (list == null) {
+            list = java.util.List.copyOf(buildAttempts());
+            attempts = list;
+        }
+        return list;
+    }
+
+    private jakarta.mail.Transport connect(Attempt a) throws jakarta.mail.MessagingException {
+        Timer.Sample sample = Timer.start(registry);
+        String result = "failure";
+        try {
+            jakarta.mail.Transport transport = session(a).getTransport(configuredProtocol);
+            transport.connect(a.host, a.port, configuredSender, configuredPassword);
+            result = "success";
+            return transport;
+        } finally {
+            sample.stop(registry.timer("mail.smtp.connect", "route", a.label, "result", result));
+        }
+    }
+
+    private jakarta.mail.Session session(Attempt a) {
+        return sessions.computeIfAbsent(a.key(), k -> jakarta.mail.Session.getInstance(mailProperties(a, 10000)));
+    }
+
+    private jakarta.mail.internet.MimeMessage toMime(Attempt a, MimeMessagePreparator message) throws Exception {
+        jakarta.mail.internet.MimeMessage mime = new jakarta.mail.internet.MimeMessage(session(a));
+        message.prepare(mime);
+        if (mime.getFrom() == null) mime.setFrom(new jakarta.mail.internet.InternetAddress(configuredSender));
+        mime.saveChanges();
+        return mime;
+    }
+
+    /**
+     * A UTF-8 message to {@code to}: plain text alone, or multipart/alternative with the HTML part
+     * last (the one clients prefer) when {@code html} is not null.
+     */
+    public static MimeMessagePreparator message(String to, String subject, String text, String html) {
+        return mime -> {
+            mime.setRecipients(jakarta.mail.Message.RecipientType.TO, jakarta.mail.internet.InternetAddress.parse(to));
+            mime.setSubject(subject, "UTF-8");
+            if (html == null) {
+                mime.setText(text, "UTF-8");
+                return;
+            }
+            jakarta.mail.internet.MimeBodyPart plain = new jakarta.mail.internet.MimeBodyPart();
+            plain.setText(text, "UTF-8");
+            jakarta.mail.internet.MimeBodyPart rich = new jakarta.mail.internet.MimeBodyPart();
+            rich.setText(html, "UTF-8", "html");
+            jakarta.mail.internet.MimeMultipart alternative = new jakarta.mail.internet.MimeMultipart("alternative", plain, rich);
+            mime.setContent(alternative);
+        };
+    }
+
+    // Build candidate transports. We prioritize STARTTLS (587) for Microsoft/Office365 style hosts.
+    java.util.List<Attempt> buildAttempts() {
         java.util.LinkedHashMap<String, Attempt> attemptsMap = new java.util.LinkedHashMap<>();
 
-        java.util.function.Function<Attempt, Attempt> add = a -> { attemptsMap.put(a.host+":"+a.port+":"+a.ssl+":"+a.startTls, a); return a; };
+        java.util.function.Function<Attempt, Attempt> add = a -> { attemptsMap.put(a.key(), a); return a; };
 
         boolean hostLooksMicrosoft = configuredHost.toLowerCase().contains("office") || configuredHost.toLowerCase().contains("outlook") || configuredHost.toLowerCase().contains("microsoft");
 
@@ -89,52 +345,36 @@ public class EmailService {
         // Plain 25 fallback
         Attempt plain25 = new Attempt(); plain25.host = configuredHost; plain25.port = 25; plain25.ssl = false; plain25.startTls = false; plain25.label = "plain25"; add.apply(plain25);
 
-        java.util.List<Attempt> attempts = new java.util.ArrayList<>(attemptsMap.values());
-
-        for (Attempt a : attempts) {
-            JavaMailSenderImpl impl = new JavaMailSenderImpl();
-            impl.setHost(a.host);
-            impl.setPort(a.port);
-            impl.setUsername(configuredSender);
-            impl.setPassword(configuredPassword);
-            impl.setProtocol(configuredProtocol);
-
-            java.util.Properties props = impl.getJavaMailProperties();
-            props.put("mail.smtp.auth", "true");
-            props.put("mail.smtp.from", configuredSender);
-            props.put("mail.smtp.ssl.enable", String.valueOf(a.ssl));
-            props.put("mail.smtp.starttls.enable", String.valueOf(a.startTls));
-            if (a.startTls) {
-                props.put("mail.smtp.starttls.required", "true");
-            }
-            props.put("mail.debug", "false");
-            
-            // Add timeout settings to prevent hanging
-            props.put("mail.smtp.connectiontimeout", "10000"); // 10 seconds
-            props.put("mail.smtp.timeout", "10000"); // 10 seconds
-            props.put("mail.smtp.writetimeout", "10000"); // 10 seconds
+        return new java.util.ArrayList<>(attemptsMap.values());
+    }
 
-            log.info("Trying mail send using host={}, port={}, ssl={}, starttls={}, label={}", a.host, a.port, a.ssl, a.startTls, a.label);
-            try {
-                impl.send(message);
-                log.info("✅ SUCCESS: Email sent to {} (subject={}) via {}:{}", to, subject, a.host, a.port);
-                return true;
-            } catch (org.springframework.mail.MailAuthenticationException mex) {
-                log.error("❌ AUTHENTICATION FAILED when sending email via {}:{} - {}", a.host, a.port, mex.getMessage());
-                log.error("   Check MAIL_USERNAME and MAIL_PASSWORD are correct");
-                // try next transport
-            } catch (Exception ex) {
-                log.error("❌ FAILED to send email via {}:{} - {}: {}", a.host, a.port, ex.getClass().getSimpleName(), ex.getMessage());
-            }
+    private JavaMailSenderImpl newSender(Attempt a, int timeoutMs) {
+        JavaMailSenderImpl impl = new JavaMailSenderImpl();
+        impl.setHost(a.host);
+        impl.setPort(a.port);
+        impl.setUsername(configuredSender);
+        impl.setPassword(configuredPassword);
+        impl.setProtocol(configuredProtocol);
+        impl.setJavaMailProperties(mailProperties(a, timeoutMs));
+        return impl;
+    }
+
+    private java.util.Properties mailProperties(Attempt a, int timeoutMs) {
+        java.util.Properties props = new java.util.Properties();
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.from", configuredSender);
+        props.put("mail.smtp.ssl.enable", String.valueOf(a.ssl));
+        props.put("mail.smtp.starttls.enable", String.valueOf(a.startTls));
+        if (a.startTls) {
+            props.put("mail.smtp.starttls.required", "true");
         }
+        props.put("mail.debug", "false");
 
-        log.error("❌ ALL MAIL SEND ATTEMPTS FAILED for subject={}", subject);
-        log.error("💡 Possible issues:");
-        log.error("   1. Incorrect MAIL_USERNAME or MAIL_PASSWORD");
-        log.error("   2. AWS WorkMail account not activated");
-        log.error("   3. Domain {} not verified in AWS WorkMail", configuredSender.split("@")[1]);
-        log.error("   4. Sending limits exceeded");
-        return false;
+        // Add timeout settings to prevent hanging
+        props.put("mail.smtp.connectiontimeout", String.valueOf(timeoutMs));
+        props.put("mail.smtp.timeout", String.valueOf(timeoutMs));
+        props.put("mail.smtp.writetimeout", String.valueOf(timeoutMs));
+        return props;
     }
 
     /**
@@ -166,27 +406,8 @@ public class EmailService {
             attemptResult.put("label", attempt.label);
             
             try {
-                JavaMailSenderImpl impl = new JavaMailSenderImpl();
-                impl.setHost(attempt.host);
-                impl.setPort(attempt.port);
-                impl.setUsername(configuredSender);
-                impl.setPassword(configuredPassword);
-                impl.setProtocol(configuredProtocol);
-
-                java.util.Properties props = impl.getJavaMailProperties();
-                props.put("mail.smtp.auth", "true");
-                props.put("mail.smtp.from", configuredSender);
-                props.put("mail.smtp.ssl.enable", String.valueOf(attempt.ssl));
-                props.put("mail.smtp.starttls.enable", String.valueOf(attempt.startTls));
-                if (attempt.startTls) {
-                    props.put("mail.smtp.starttls.required", "true");
-                }
-                props.put("mail.debug", "false");
-                
-                // Add timeout settings
-                props.put("mail.smtp.connectiontimeout", "5000"); // 5 seconds for testing
-                props.put("mail.smtp.timeout", "5000");
-                props.put("mail.smtp.writetimeout", "5000");
+                // 5 seconds for testing
+                JavaMailSenderImpl impl = newSender(attempt, 5000);
                 
                 // Test connection
                 impl.testConnection();
@@ -208,12 +429,31 @@ public class EmailService {
         }
         
         result.put("attempts", attempts);
+        result.put("routes", routeStatus());
+        result.put("pooledConnections", pool.idleCount());
         result.put("timestamp", java.time.Instant.now().toString());
         result.put("microsoftOffice365Info", getMicrosoftSmtpInfo());
         
         return result;
     }
 
+    private java.util.List<java.util.Map<String, Object>> routeStatus() {
+        long now = System.currentTimeMillis();
+        java.util.List<java.util.Map<String, Object>> routes = new java.util.ArrayList<>();
+        for (Attempt a : attempts()) {
+            RouteState state = routeStates.get(a.key());
+            java.util.Map<String, Object> route = new java.util.HashMap<>();
+            route.put("label", a.label);
+            route.put("port", a.port);
+            route.put("preferred", a.key().equals(preferredRoute));
+            route.put("consecutiveFailures", state == null ? 0 : state.consecutiveFailures.get());
+            route.put("breakerOpen", state != null && state.openUntil > now);
+            route.put("lastSuccess", state == null || state.lastSuccess == 0 ? null : java.time.Instant.ofEpochMilli(state.lastSuccess).toString());
+            routes.add(route);
+        }
+        return routes;
+    }
+
     private Attempt createAttempt(String host, int port, boolean ssl, boolean startTls, String label) {
         Attempt a = new Attempt();
         a.host = host;
@@ -0,0 +1,14 @@
+package com.care.ride.service;
+
+import java.util.Optional;
+
+/**
+ * Address to coordinates for the run planner. The shipped implementation is
+ * {@link StaticGeocoder}; a real geocoding service can replace it by providing another bean.
+ */
+public interface Geocoder {
+
+    record Point(double lat, double lon) {}
+
+    Optional<Point> locate(String address);
+}
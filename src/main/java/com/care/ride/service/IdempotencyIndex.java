@@ -0,0 +1,175 @@
+package com.care.ride.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Recent intake responses keyed by Idempotency-Key (or by a fingerprint of the payload when the
+ * client sends none), so a double-click or a mobile retry gets the first response back instead of
+ * a second row and a second email.
+ *
+ * The first request for a key claims it and must either {@link Owner#complete complete} or
+ * {@link Owner#release release} the claim; a duplicate arriving meanwhile waits for that outcome.
+ * Completed entries live for {@code intake.idempotency.key-ttl-seconds} (fingerprints for the much
+ * shorter {@code fingerprint-ttl-seconds}) and the index is capped at {@code max-entries}, oldest
+ * dropped first. It is per instance and lost on restart; the idempotency_key table (V9), whose
+ * (scope, key) primary key is written in the save transaction, catches explicit keys it no longer
+ * knows.
+ */
+@Service
+public class IdempotencyIndex {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyIndex.class);
+
+    /** A response worth replaying: status, Location (may be null) and body. */
+    public record Stored(int status, URI location, Object body) {}
+
+    public sealed interface Claim permits Owner, Replay, Conflict, InProgress {}
+
+    /** First request for the key: run it, then complete or release. */
+    public record Owner(String key, Entry entry) implements Claim {}
+
+    public record Replay(Stored response) implements Claim {}
+
+    /** Same Idempotency-Key with a different payload. */
+    public record Conflict() implements Claim {}
+
+    /** The original request is still running after the wait timeout. */
+    public record InProgress() implements Claim {}
+
+    public static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<Stored> result = new CompletableFuture<>();
+        private volatile long expiresAt;
+
+        private Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean done() {
+            return result.isDone();
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${intake.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${intake.idempotency.key-ttl-seconds:86400}")
+    private long keyTtlSeconds;
+
+    @Value("${intake.idempotency.fingerprint-ttl-seconds:600}")
+    private long fingerprintTtlSeconds;
+
+    @Value("${intake.idempotency.wait-ms:5000}")
+    private long waitMs;
+
+    /**
+     * Claim {@code scope} + key, or + fingerprint when {@code clientKey} is null. The fingerprint
+     * is also kept with client keys so a key reused for a different payload is refused.
+     */
+    public Claim claim(String scope, String clientKey, String fingerprint) {
+        String key = clientKey != null ? scope + ":k:" + clientKey : scope + ":f:" + fingerprint;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        while (true) {
+            Entry mine = new Entry(fingerprint, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs) * 4);
+            Entry existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                if (entries.size() > maxEntries) trim();
+                return new Owner(key, mine);
+            }
+            if (existing.done() && existing.expiresAt - System.nanoTime() < 0) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                return new Conflict();
+            }
+            try {
+                return new Replay(existing.result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException ex) {
+                return new InProgress();
+            } catch (CancellationException | ExecutionException ex) {
+                // the original request failed and released the key: try to claim it ourselves
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return new InProgress();
+            }
+        }
+    }
+
+    /** Remember the response for replay; only successful responses should be stored. */
+    public void complete(Owner owner, Stored response) {
+        long ttl = owner.key().contains(":k:") ? keyTtlSeconds : fingerprintTtlSeconds;
+        owner.entry().expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttl);
+        owner.entry().result.complete(response);
+    }
+
+    /** The request did not produce a replayable response; waiting duplicates retry on their own. */
+    public void release(Owner owner) {
+        entries.remove(owner.key(), owner.entry());
+        owner.entry().result.cancel(false);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${intake.idempotency.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        // in-flight entries expire too, so a claim whose owner died without releasing is not kept forever
+        entries.entrySet().removeIf(e -> e.getValue().expiresAt - now < 0);
+    }
+
+    // over the cap: drop expired entries, then the completed ones closest to expiry, down to 90%
+    private synchronized void trim() {
+        if (entries.size() <= maxEntries) return;
+        sweep();
+        int excess = entries.size() - maxEntries * 9 / 10;
+        if (excess <= 0) return;
+        List<Map.Entry<String, Entry>> done = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().done()) done.add(e);
+        }
+        done.sort(Comparator.comparingLong(e -> e.getValue().expiresAt));
+        for (int i = 0; i < excess && i < done.size(); i++) {
+            entries.remove(done.get(i).getKey(), done.get(i).getValue());
+        }
+        log.debug("Idempotency index trimmed to {} entries", entries.size());
+    }
+
+    /** SHA-256 over the given fields, so equal payloads give equal fingerprints. */
+    public static String fingerprint(Object... fields) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (Object f : fields) {
+                md.update(String.valueOf(f).getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.care.ride.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Relay between the relays of one JVM: enough for a single node, and lets a test run several
+ * buses side by side as if they were separate nodes.
+ */
+public class InMemoryEventRelay implements DispatchEventRelay {
+    private static final List<InMemoryEventRelay> RELAYS = new CopyOnWriteArrayList<>();
+
+    private final List<Receiver> receivers = new CopyOnWriteArrayList<>();
+
+    public InMemoryEventRelay() {
+        RELAYS.add(this);
+    }
+
+    @Override
+    public void publish(String message) {
+        for (InMemoryEventRelay relay : RELAYS) {
+            relay.receivers.forEach(r -> r.message(message));
+        }
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        receivers.add(receiver);
+    }
+
+    @Override
+    public void close() {
+        RELAYS.remove(this);
+    }
+}
@@ -0,0 +1,162 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.Contact;
+import com.care.ride.domain.ServiceType;
+import com.care.ride.dto.BookingRequest;
+import com.care.ride.dto.BookingSummary;
+import com.care.ride.repo.BookingRepo;
+import com.care.ride.repo.ContactRepo;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Write side of the public intake endpoints. The row and its staff notification are committed
+ * together; delivery happens later through the email outbox. New bookings are announced on the
+ * {@link DispatchEventBus} once committed, and new rows are handed to {@link SearchService}. The
+ * daily report counts ({@link ReportService}) are updated in the same transaction. Bookings are
+ * checked against the committed vehicle counts ({@link CapacityService#overbooked}) before they
+ * are inserted.
+ */
+@Service
+public class IntakeService {
+    private final BookingRepo bookingRepo;
+    private final ContactRepo contactRepo;
+    private final EmailOutboxService outbox;
+    private final JdbcTemplate jdbc;
+    private final DispatchEventBus events;
+    private final SearchService search;
+    private final ReportService reports;
+    private final CapacityService capacity;
+
+    public IntakeService(BookingRepo bookingRepo, ContactRepo contactRepo, EmailOutboxService outbox, JdbcTemplate jdbc,
+                         DispatchEventBus events, SearchService search, ReportService reports, CapacityService capacity) {
+        this.bookingRepo = bookingRepo;
+        this.contactRepo = contactRepo;
+        this.outbox = outbox;
+        this.jdbc = jdbc;
+        this.events = events;
+        this.search = search;
+        this.reports = reports;
+        this.capacity = capacity;
+    }
+
+    /** Map a validated request onto a new Booking; {@code st} may be a detached catalog instance. */
+    public static Booking newBooking(BookingRequest req, ServiceType st) {
+        Booking b = new Booking();
+        b.setFullName(req.fullName());
+        b.setPhone(req.phone());
+        b.setEmail(req.email());
+        b.setPickupAddress(req.pickupAddress());
+        b.setDropoffAddress(req.dropoffAddress());
+        b.setPickupTime(req.pickupTime());
+        b.setNotes(req.notes());
+        b.setServiceType(st);
+        return b;
+    }
+
+    /** NoCapacityException when another node has taken the last vehicle since the pre-check. */
+    @Transactional
+    public Booking saveBooking(Booking booking, String notifyTo, String subject, NotificationTemplates.Rendered body) {
+        return saveBooking(booking, null, notifyTo, subject, body);
+    }
+
+    /** As above, recording {@code fingerprint} with the booking's Idempotency-Key (see {@link #idempotencyFingerprint}). */
+    @Transactional
+    public Booking saveBooking(Booking booking, String fingerprint, String notifyTo, String subject,
+                               NotificationTemplates.Rendered body) {
+        if (!capacity.overbooked(List.of(booking)).isEmpty()) {
+            throw new CapacityService.NoCapacityException("No " + booking.getServiceType().getName()
+                    + " vehicle is free at the requested pickup time");
+        }
+        recordIdempotencyKey("booking", booking.getIdempotencyKey(), fingerprint);
+        Booking saved = bookingRepo.save(booking);
+        reports.bookingsAdded(List.of(saved));
+        outbox.enqueue(notifyTo, subject, body);
+        events.publishAfterCommit(DispatchEventBus.BOOKING_CREATED, BookingSummary.of(saved));
+        search.indexAfterCommit(List.of(saved));
+        return saved;
+    }
+
+    /**
+     * One chunk of a bulk import. Booking ids come from a pooled sequence, so the inserts go out
+     * as JDBC batches; pass a non-null {@code digestTo} with the last chunk to commit the digest
+     * notification with it ({@code subject} and {@code digest} see the chunk with its ids assigned).
+     * Returns the bookings saved, in order: ones the committed counts have no vehicle for are left
+     * out, unsaved, and the rest still commit.
+     */
+    @Transactional
+    public List<Booking> saveBookings(List<Booking> bookings, String digestTo, Function<List<Booking>, String> subject,
+                                      Function<List<Booking>, NotificationTemplates.Rendered> digest) {
+        List<Booking> over = capacity.overbooked(bookings);
+        List<Booking> saved = bookingRepo.saveAll(over.isEmpty() ? bookings
+                : bookings.stream().filter(b -> over.stream().noneMatch(o -> o == b)).toList());
+        reports.bookingsAdded(saved);
+        if (digestTo != null) {
+            outbox.enqueue(digestTo, subject.apply(saved), digest.apply(saved));
+        }
+        events.publishAfterCommit(DispatchEventBus.BOOKINGS_IMPORTED,
+                new DispatchEventBus.Imported(saved.size(), saved.stream().map(Booking::getId).toList()));
+        search.indexAfterCommit(saved);
+        return saved;
+    }
+
+    @Transactional
+    public void queueNotification(String notifyTo, String subject, NotificationTemplates.Rendered body) {
+        outbox.enqueue(notifyTo, subject, body);
+    }
+
+    /**
+     * Row created by an earlier request carrying this Idempotency-Key, for replaying its response.
+     * Not read-only: the lookup follows a unique-key conflict and must run on the primary, where a
+     * replica could still be missing the row.
+     */
+    @Transactional
+    public Optional<Booking> findBookingByIdempotencyKey(String key) {
+        return bookingRepo.findByIdempotencyKey(key);
+    }
+
+    @Transactional
+    public Optional<Contact> findContactByIdempotencyKey(String key) {
+        return contactRepo.findByIdempotencyKey(key);
+    }
+
+    /**
+     * Payload fingerprint recorded with an Idempotency-Key, empty when the key is unknown or was
+     * recorded without one (before V16). Runs on the primary for the same reason as the lookups above.
+     */
+    @Transactional
+    public Optional<String> idempotencyFingerprint(String scope, String key) {
+        return jdbc.query("select fingerprint from idempotency_key where scope = ? and idempotency_key = ?",
+                (rs, i) -> rs.getString(1), scope, key).stream().filter(f -> f != null).findFirst();
+    }
+
+    @Transactional
+    public Contact saveContact(Contact contact, String notifyTo, String subject, NotificationTemplates.Rendered body) {
+        return saveContact(contact, null, notifyTo, subject, body);
+    }
+
+    @Transactional
+    public Contact saveContact(Contact contact, String fingerprint, String notifyTo, String subject,
+                               NotificationTemplates.Rendered body) {
+        recordIdempotencyKey("contact", contact.getIdempotencyKey(), fingerprint);
+        Contact saved = contactRepo.save(contact);
+        reports.contactAdded(saved);
+        outbox.enqueue(notifyTo, subject, body);
+        search.indexAfterCommit(saved);
+        return saved;
+    }
+
+    // The partitioned tables cannot hold a unique index on the key alone (V9): a second use of the
+    // key fails here with a DuplicateKeyException and rolls the whole save back.
+    private void recordIdempotencyKey(String scope, String key, String fingerprint) {
+        if (key != null) {
+            jdbc.update("insert into idempotency_key(scope, idempotency_key, fingerprint) values (?, ?, ?)", scope, key, fingerprint);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.care.ride.service;
+
+import com.care.ride.config.IsoInstantModule;
+import org.springframework.core.NativeDetector;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A notification template compiled against the class it renders, in a small Mustache subset:
+ *
+ * <pre>
+ * {{name}}              value of a record component or getter ({{serviceType.name}} for nested ones)
+ * {{.}}                 the current section value
+ * {{#name}}..{{/name}}  a list repeats the block per element; anything else renders it once when
+ *                       present (true, non-null, not an empty string, not zero)
+ * {{^name}}..{{/name}}  the block when {@code name} is absent
+ * {{! comment }}
+ * </pre>
+ *
+ * Names are resolved to accessor methods when the template is compiled, so a typo fails at startup
+ * and rendering is a walk over prepared nodes that append to the caller's buffer. In an HTML
+ * template every value is escaped; a line holding nothing but a section tag leaves no blank line.
+ */
+final class MailTemplate {
+    private final Node[] nodes;
+    private final int depth;
+
+    private MailTemplate(Node[] nodes, int depth) {
+        this.nodes = nodes;
+        this.depth = depth;
+    }
+
+    /** @throws IllegalArgumentException naming the line of a syntax error or unknown name */
+    static MailTemplate compile(String name, String source, Class<?> model, boolean html) {
+        Parser p = new Parser(name, source, html);
+        p.scopes.add(model);
+        Node[] nodes = p.block(null);
+        return new MailTemplate(nodes, p.maxDepth);
+    }
+
+    void render(Object model, StringBuilder out) {
+        Frame f = new Frame(new Object[depth], out);
+        f.stack[0] = model;
+        renderAll(nodes, f);
+    }
+
+    private static void renderAll(Node[] nodes, Frame f) {
+        for (Node n : nodes) n.render(f);
+    }
+
+    /** One render: the value at each scope level, the output and scratch for formatting instants. */
+    private record Frame(Object[] stack, StringBuilder out, char[] digits) {
+        Frame(Object[] stack, StringBuilder out) {
+            this(stack, out, new char[30]);
+        }
+    }
+
+    private sealed interface Node permits Text, Value, Section {
+        void render(Frame f);
+    }
+
+    private record Text(String text) implements Node {
+        @Override
+        public void render(Frame f) {
+            f.out.append(text);
+        }
+    }
+
+    private record Value(Path path, boolean escape) implements Node {
+        @Override
+        public void render(Frame f) {
+            Object v = path.get(f.stack);
+            if (v == null) return;
+            StringBuilder out = f.out;
+            if (v instanceof Integer || v instanceof Long) {
+                out.append(((Number) v).longValue());
+            } else if (v instanceof Instant t && t.getEpochSecond() >= 0 && t.getEpochSecond() < IsoInstantModule.MAX_SECONDS) {
+                // same text as Instant.toString, without a DateTimeFormatter pass per line of a digest
+                out.append(f.digits, 0, IsoInstantModule.format(t.getEpochSecond(), t.getNano(), f.digits));
+            } else if (escape) {
+                escapeHtml(v instanceof CharSequence cs ? cs : v.toString(), out);
+            } else if (v instanceof CharSequence cs) {
+                out.append(cs);
+            } else {
+                out.append(v);
+            }
+        }
+    }
+
+    private enum Kind { LIST, FLAG, VALUE }
+
+    // level: stack slot the block's value occupies while it renders (-1 for inverted blocks)
+    private record Section(Path path, Kind kind, boolean inverted, int level, Node[] body) implements Node {
+        @Override
+        public void render(Frame f) {
+            Object v = path.get(f.stack);
+            if (kind == Kind.LIST && !inverted) {
+                if (v == null) return;
+                for (Object e : (Iterable<?>) v) {
+                    f.stack[level] = e;
+                    renderAll(body, f);
+                }
+                return;
+            }
+            if (present(v) == inverted) return;
+            if (level >= 0) f.stack[level] = v;
+            renderAll(body, f);
+        }
+
+        private boolean present(Object v) {
+            return switch (kind) {
+                case LIST -> v != null && (v instanceof Collection<?> c ? !c.isEmpty() : ((Iterable<?>) v).iterator().hasNext());
+                case FLAG -> Boolean.TRUE.equals(v);
+                case VALUE -> v != null && !(v instanceof CharSequence cs && cs.isEmpty())
+                        && !(v instanceof Number n && n.doubleValue() == 0);
+            };
+        }
+    }
+
+    /** Getter chain starting from one stack slot; no getters means the slot itself. */
+    private record Path(int level, Function<Object, Object>[] getters) {
+        Object get(Object[] stack) {
+            Object v = stack[level];
+            for (Function<Object, Object> g : getters) {
+                if (v == null) return null;
+                v = g.apply(v);
+            }
+            return v;
+        }
+    }
+
+    /**
+     * The accessor as a Function spun up by LambdaMetafactory: a plain interface call per value,
+     * where Method.invoke costs several times that in argument and receiver checks. A native image
+     * cannot define classes at run time, so there it stays reflective.
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getter(Method m) {
+        if (NativeDetector.inNativeImage()) {
+            return target -> {
+                try {
+                    return m.invoke(target);
+                } catch (ReflectiveOperationException ex) {
+                    throw new IllegalStateException("Getter " + m + " failed", ex);
+                }
+            };
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(m.getDeclaringClass(), MethodHandles.lookup());
+            MethodHandle target = lookup.unreflect(m);
+            return (Function<Object, Object>) LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class),
+                    target, target.type().wrap()).getTarget().invokeExact();
+        } catch (Throwable ex) {
+            throw new IllegalStateException("No getter for " + m, ex);
+        }
+    }
+
+    static void escapeHtml(CharSequence s, StringBuilder out) {
+        int len = s.length();
+        int first = 0;
+        while (first < len && !special(s.charAt(first))) first++;
+        // most values have nothing to escape: one bulk append
+        if (first == len) {
+            out.append(s);
+            return;
+        }
+        int start = 0;
+        for (int i = first; i < len; i++) {
+            String entity = switch (s.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entity != null) {
+                out.append(s, start, i).append(entity);
+                start = i + 1;
+            }
+        }
+        out.append(s, start, len);
+    }
+
+    // bits for & < > " ' (all below 64)
+    private static final long SPECIAL = 1L << '&' | 1L << '<' | 1L << '>' | 1L << '"' | 1L << '\'';
+
+    private static boolean special(char c) {
+        return c < 64 && (SPECIAL & 1L << c) != 0;
+    }
+
+    private static final class Parser {
+        private final String name;
+        private final String src;
+        private final boolean html;
+        // type in scope at each stack level; names resolve from the innermost outwards
+        private final List<Type> scopes = new ArrayList<>();
+        private int pos;
+        private int maxDepth = 1;
+
+        Parser(String name, String src, boolean html) {
+            this.name = name;
+            this.src = src;
+            this.html = html;
+        }
+
+        Node[] block(String closing) {
+            List<Node> nodes = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            while (true) {
+                int open = src.indexOf("{{", pos);
+                if (open < 0) {
+                    if (closing != null) throw error(src.length(), "{{#" + closing + "}} is not closed");
+                    text.append(src, pos, src.length());
+                    pos = src.length();
+                    flush(text, nodes);
+                    return nodes.toArray(new Node[0]);
+                }
+                int close = src.indexOf("}}", open + 2);
+                if (close < 0) throw error(open, "unterminated tag");
+                String tag = src.substring(open + 2, close).trim();
+                char sigil = tag.isEmpty() ? ' ' : tag.charAt(0);
+                int textEnd = open;
+                int next = close + 2;
+                if (sigil == '#' || sigil == '^' || sigil == '/' || sigil == '!') {
+                    // standalone tag: drop its indentation and line break
+                    int lineStart = src.lastIndexOf('\n', open - 1) + 1;
+                    int lineEnd = src.indexOf('\n', next);
+                    if (lineEnd < 0) lineEnd = src.length();
+                    if (lineStart >= pos && blank(lineStart, open) && blank(next, lineEnd)) {
+                        textEnd = lineStart;
+                        next = Math.min(lineEnd + 1, src.length());
+                    }
+                }
+                text.append(src, pos, textEnd);
+                pos = next;
+                switch (sigil) {
+                    case '!' -> { }
+                    case '/' -> {
+                        String closed = tag.substring(1).trim();
+                        if (!closed.equals(closing)) throw error(open, "{{/" + closed + "}} does not close " + (closing == null ? "anything" : "{{#" + closing + "}}"));
+                        flush(text, nodes);
+                        return nodes.toArray(new Node[0]);
+                    }
+                    case '#', '^' -> {
+                        flush(text, nodes);
+                        nodes.add(section(tag.substring(1).trim(), sigil == '^', open));
+                    }
+                    default -> {
+                        if (tag.isEmpty()) throw error(open, "empty tag");
+                        flush(text, nodes);
+                        nodes.add(new Value(path(tag, open).path, html));
+                    }
+                }
+            }
+        }
+
+        private Section section(String tag, boolean inverted, int at) {
+            Resolved r = path(tag, at);
+            Class<?> raw = raw(r.type);
+            Kind kind;
+            Type inner;
+            if (Iterable.class.isAssignableFrom(raw)) {
+                kind = Kind.LIST;
+                inner = r.type instanceof ParameterizedType pt ? pt.getActualTypeArguments()[0] : Object.class;
+            } else if (raw == boolean.class || raw == Boolean.class) {
+                kind = Kind.FLAG;
+                inner = null;
+            } else {
+                kind = Kind.VALUE;
+                inner = r.type;
+            }
+            int level = -1;
+            if (!inverted && inner != null) {
+                level = scopes.size();
+                scopes.add(inner);
+                maxDepth = Math.max(maxDepth, scopes.size());
+            }
+            Node[] body = block(tag);
+            if (level >= 0) scopes.remove(level);
+            return new Section(r.path, kind, inverted, level, body);
+        }
+
+        private record Resolved(Path path, Type type) {}
+
+        private Resolved path(String tag, int at) {
+            int top = scopes.size() - 1;
+            if (tag.equals(".")) return new Resolved(new Path(top, new Function[0]), scopes.get(top));
+            String[] names = tag.split("\\.", -1);
+            for (int level = top; level >= 0; level--) {
+                Method first = accessor(raw(scopes.get(level)), names[0]);
+                if (first == null) continue;
+                Method[] chain = new Method[names.length];
+                chain[0] = first;
+                for (int i = 1; i < names.length; i++) {
+                    chain[i] = accessor(chain[i - 1].getReturnType(), names[i]);
+                    if (chain[i] == null) throw error(at, "no '" + names[i] + "' on " + chain[i - 1].getReturnType().getSimpleName());
+                }
+                @SuppressWarnings("unchecked")
+                Function<Object, Object>[] getters = new Function[chain.length];
+                for (int i = 0; i < chain.length; i++) getters[i] = getter(chain[i]);
+                return new Resolved(new Path(level, getters), chain[chain.length - 1].getGenericReturnType());
+            }
+            throw error(at, "no '" + names[0] + "' in scope");
+        }
+
+        /** Record component or public getter; JDK types only expose what {@code {{.}}} prints. */
+        private static Method accessor(Class<?> type, String name) {
+            if (name.isEmpty() || type.getName().startsWith("java.")) return null;
+            if (type.isRecord()) {
+                for (RecordComponent c : type.getRecordComponents()) {
+                    if (c.getName().equals(name)) return c.getAccessor();
+                }
+                return null;
+            }
+            String cap = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            for (String candidate : new String[] {"get" + cap, "is" + cap}) {
+                try {
+                    Method m = type.getMethod(candidate);
+                    if (m.getReturnType() != void.class && !Modifier.isStatic(m.getModifiers())) return m;
+                } catch (NoSuchMethodException ignored) {
+                    // try the next form
+                }
+            }
+            return null;
+        }
+
+        private static Class<?> raw(Type type) {
+            if (type instanceof Class<?> c) return c;
+            if (type instanceof ParameterizedType pt) return (Class<?>) pt.getRawType();
+            return Object.class;
+        }
+
+        private boolean blank(int from, int to) {
+            for (int i = from; i < to; i++) {
+                char c = src.charAt(i);
+                if (c != ' ' && c != '\t' && c != '\r') return false;
+            }
+            return true;
+        }
+
+        private static void flush(StringBuilder text, List<Node> nodes) {
+            if (text.isEmpty()) return;
+            nodes.add(new Text(text.toString()));
+            text.setLength(0);
+        }
+
+        private IllegalArgumentException error(int at, String message) {
+            int line = 1;
+            for (int i = 0; i < at && i < src.length(); i++) {
+                if (src.charAt(i) == '\n') line++;
+            }
+            return new IllegalArgumentException(name + ":" + line + ": " + message);
+        }
+    }
+}
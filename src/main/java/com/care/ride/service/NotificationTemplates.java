@@ -0,0 +1,171 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.dto.BookingRequest;
+import com.care.ride.dto.ContactRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Notification bodies from the templates in {@code classpath:mail/}: {@code <name>.txt} for the
+ * plain-text part and {@code <name>.html} for the HTML alternative. Each pair is compiled once, at
+ * startup, against the class it renders (see {@link MailTemplate}), so a broken template stops the
+ * app from starting instead of failing a booking.
+ *
+ * Renders go into a small pool of reused buffers (request threads are virtual, so a ThreadLocal
+ * would be a fresh buffer every time); the only allocation left per notification is the two
+ * Strings that go into the outbox row.
+ *
+ * With {@code mail.templates.dir} set (the local profile points it at {@code src/main/resources/mail})
+ * templates are read from that directory instead and recompiled when a file changes; an edit that
+ * does not compile is logged and the previous version stays in use.
+ */
+@Service
+public class NotificationTemplates {
+    private static final Logger log = LoggerFactory.getLogger(NotificationTemplates.class);
+
+    /** Plain text and HTML alternative of one notification. */
+    public record Rendered(String text, String html) {}
+
+    /** Summary of a bulk import; {@code bookings} is the listed part, {@code more} the rest. */
+    public record ImportDigest(int created, int rejected, int failed, String stoppedEarly, List<Booking> bookings, int more) {}
+
+    private static final int MAX_RETAINED_CHARS = 256 * 1024;
+
+    private final Map<String, Entry> templates = new ConcurrentHashMap<>();
+    private final BlockingQueue<StringBuilder> buffers;
+    private final Path dir;
+    private final long checkIntervalMs;
+
+    public NotificationTemplates(@Value("${mail.templates.dir:}") String dir,
+                                 @Value("${mail.templates.check-interval-ms:1000}") long checkIntervalMs,
+                                 @Value("${mail.templates.buffers:16}") int buffers) {
+        this.dir = dir.isBlank() ? null : Path.of(dir);
+        this.checkIntervalMs = checkIntervalMs;
+        this.buffers = new ArrayBlockingQueue<>(buffers);
+        register("booking", BookingRequest.class);
+        register("contact", ContactRequest.class);
+        register("import-digest", ImportDigest.class);
+        log.info("Notification templates compiled: {}{}", templates.keySet(), this.dir == null ? "" : " (reloading from " + this.dir + ")");
+    }
+
+    public Rendered booking(BookingRequest req) {
+        return render("booking", req);
+    }
+
+    public Rendered contact(ContactRequest req) {
+        return render("contact", req);
+    }
+
+    public Rendered importDigest(ImportDigest digest) {
+        return render("import-digest", digest);
+    }
+
+    private void register(String name, Class<?> model) {
+        Entry e = new Entry(name, model);
+        e.load();
+        templates.put(name, e);
+    }
+
+    private Rendered render(String name, Object model) {
+        Entry e = templates.get(name);
+        if (dir != null) e.reloadIfChanged();
+        StringBuilder buf = buffers.poll();
+        if (buf == null) buf = new StringBuilder(1024);
+        try {
+            e.text.render(model, buf);
+            String text = buf.toString();
+            buf.setLength(0);
+            e.html.render(model, buf);
+            return new Rendered(text, buf.toString());
+        } finally {
+            // a huge digest should not pin its buffer for the life of the app
+            if (buf.capacity() <= MAX_RETAINED_CHARS) {
+                buf.setLength(0);
+                buffers.offer(buf);
+            }
+        }
+    }
+
+    private final class Entry {
+        private final String name;
+        private final Class<?> model;
+        private volatile MailTemplate text;
+        private volatile MailTemplate html;
+        private volatile long checkedAt;
+        private long textModified;
+        private long htmlModified;
+
+        Entry(String name, Class<?> model) {
+            this.name = name;
+            this.model = model;
+        }
+
+        void load() {
+            MailTemplate t = MailTemplate.compile(name + ".txt", read(name + ".txt"), model, false);
+            MailTemplate h = MailTemplate.compile(name + ".html", read(name + ".html"), model, true);
+            text = t;
+            html = h;
+            if (dir != null) {
+                textModified = modified(name + ".txt");
+                htmlModified = modified(name + ".html");
+            }
+            checkedAt = System.currentTimeMillis();
+        }
+
+        void reloadIfChanged() {
+            long now = System.currentTimeMillis();
+            if (now - checkedAt < checkIntervalMs) return;
+            synchronized (this) {
+                if (now - checkedAt < checkIntervalMs) return;
+                checkedAt = now;
+                long t = modified(name + ".txt");
+                long h = modified(name + ".html");
+                if (t == textModified && h == htmlModified) return;
+                // a broken edit is reported once, not on every render until it is fixed
+                textModified = t;
+                htmlModified = h;
+                try {
+                    load();
+                    log.info("Notification template {} reloaded", name);
+                } catch (RuntimeException ex) {
+                    log.warn("Notification template {} not reloaded, keeping the previous version: {}", name, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private String read(String file) {
+        try {
+            if (dir != null) return Files.readString(dir.resolve(file));
+            try (InputStream in = NotificationTemplates.class.getResourceAsStream("/mail/" + file)) {
+                if (in == null) throw new IllegalStateException("Notification template mail/" + file + " not found");
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Notification template " + file + " could not be read", ex);
+        }
+    }
+
+    private long modified(String file) {
+        try {
+            return Files.getLastModifiedTime(dir.resolve(file)).toMillis();
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+}
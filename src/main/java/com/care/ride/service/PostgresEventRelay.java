@@ -0,0 +1,152 @@
+package com.care.ride.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relay over Postgres LISTEN/NOTIFY. One connection outside the pool is held open for LISTEN on
+ * {@code channel} (a pooled one would be recycled, and a replica cannot LISTEN); after it drops,
+ * the relay reconnects with backoff and reports a gap. Outgoing messages queue for a sender thread
+ * that runs {@code pg_notify} on the pool: publishers are usually in an afterCommit callback,
+ * where a statement would join the finished transaction and never commit.
+ *
+ * NOTIFY payloads are limited to 8000 bytes; larger messages are dropped with a warning.
+ */
+public class PostgresEventRelay implements DispatchEventRelay {
+    private static final Logger log = LoggerFactory.getLogger(PostgresEventRelay.class);
+    private static final int MAX_PAYLOAD_BYTES = 7999;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+    private final JdbcTemplate jdbc;
+    private final BlockingQueue<String> outgoing;
+    private final List<Receiver> receivers = new CopyOnWriteArrayList<>();
+    private final Thread listener;
+    private final Thread sender;
+    private volatile Connection connection;
+    private volatile boolean running = true;
+
+    public PostgresEventRelay(String url, String username, String password, DataSource dataSource, String channel, int queueSize) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("dispatch.events.channel must be a lower-case identifier: " + channel);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channel = channel;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.outgoing = new LinkedBlockingQueue<>(queueSize);
+        this.listener = Thread.ofPlatform().daemon().name("dispatch-events-listen").start(this::listen);
+        this.sender = Thread.ofPlatform().daemon().name("dispatch-events-notify").start(this::send);
+    }
+
+    @Override
+    public void publish(String message) {
+        if (message.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            log.warn("Dispatch event not relayed: {} bytes is over the NOTIFY limit", message.length());
+        } else if (!outgoing.offer(message)) {
+            log.warn("Dispatch event not relayed: {} messages already waiting for the database", outgoing.size());
+        }
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        receivers.add(receiver);
+    }
+
+    private void send() {
+        while (running) {
+            String message;
+            try {
+                message = outgoing.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            try {
+                jdbc.query("select pg_notify(?, ?)", rs -> null, channel, message);
+            } catch (RuntimeException ex) {
+                log.warn("Dispatch event not relayed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private void listen() {
+        long backoffMs = 1000;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection con = DriverManager.getConnection(url, username, password)) {
+                connection = con;
+                try (Statement st = con.createStatement()) {
+                    st.execute("listen " + channel);
+                }
+                if (connectedBefore) {
+                    log.info("Dispatch event relay listening again on {}", channel);
+                    receivers.forEach(Receiver::gap);
+                }
+                connectedBefore = true;
+                backoffMs = 1000;
+                PGConnection pg = con.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(10_000);
+                    if (notifications == null || notifications.length == 0) {
+                        // quiet channel: make sure the connection is still there
+                        try (Statement st = con.createStatement()) {
+                            st.execute("select 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification n : notifications) {
+                        for (Receiver r : receivers) {
+                            try {
+                                r.message(n.getParameter());
+                            } catch (RuntimeException ex) {
+                                log.warn("Dispatch event receiver failed: {}", ex.getMessage());
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) return;
+                log.warn("Dispatch event relay lost its connection, retrying in {} ms: {}", backoffMs, ex.getMessage());
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(backoffMs);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            backoffMs = Math.min(backoffMs * 2, 30_000);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        sender.interrupt();
+        listener.interrupt();
+        Connection con = connection;
+        if (con != null) {
+            try {
+                con.close();
+            } catch (SQLException ignored) {
+                // shutting down
+            }
+        }
+    }
+}
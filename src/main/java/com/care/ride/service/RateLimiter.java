@@ -0,0 +1,84 @@
+package com.care.ride.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-key token bucket: {@code capacity} requests in a burst, refilled evenly over
+ * {@code period}. Implemented as GCRA, so a bucket is a single AtomicLong (the theoretical arrival
+ * time of the next request) updated with one CAS; there are no locks on the request path.
+ *
+ * A bucket that has refilled completely carries no state worth keeping, so {@link #evictIdle()}
+ * drops it. A request racing with eviction may at worst get one extra token.
+ */
+public class RateLimiter {
+    private final String name;
+    private final int capacity;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(String name, int capacity, Duration period) {
+        if (capacity < 1 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("rate limit " + name + " needs capacity >= 1 and a positive period");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.intervalNanos = period.toNanos() / capacity;
+        this.toleranceNanos = intervalNanos * (capacity - 1);
+    }
+
+    /** Parse "capacity/period", e.g. {@code 5/1m}, {@code 20/30s}, {@code 100/1h}. */
+    public static RateLimiter parse(String name, String spec) {
+        String[] parts = spec.trim().split("/");
+        if (parts.length != 2 || parts[1].length() < 2) {
+            throw new IllegalArgumentException("rate limit " + name + ": expected capacity/period such as 5/1m, got " + spec);
+        }
+        String period = parts[1].trim();
+        long amount = Long.parseLong(period.substring(0, period.length() - 1));
+        Duration d = switch (period.charAt(period.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("rate limit " + name + ": period unit must be s, m or h, got " + spec);
+        };
+        return new RateLimiter(name, Integer.parseInt(parts[0].trim()), d);
+    }
+
+    /** Take a token for {@code key}: 0 when allowed, otherwise nanoseconds until one is available. */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long tat = bucket.get();
+            long base = tat - now < 0 ? now : tat;
+            long wait = base - now - toleranceNanos;
+            if (wait > 0) return wait;
+            if (bucket.compareAndSet(tat, base + intervalNanos)) return 0;
+        }
+    }
+
+    /** Drop buckets that are full again; returns how many are left. */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(b -> b.get() - now <= 0);
+        return buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
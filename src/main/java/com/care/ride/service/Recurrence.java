@@ -0,0 +1,276 @@
+package com.care.ride.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * The part of an RFC 5545 RRULE that standing ride orders need, over dates (the time of day is the
+ * schedule's):
+ * <ul>
+ *   <li>{@code FREQ=DAILY|WEEKLY|MONTHLY}, required, with {@code INTERVAL} (default 1);</li>
+ *   <li>{@code BYDAY=MO,WE,FR}: weekdays, without the ordinals ({@code 1MO}) RFC 5545 also allows;</li>
+ *   <li>{@code BYMONTHDAY=1,15,-1} (not with WEEKLY): days of the month, negative from its end;</li>
+ *   <li>{@code COUNT} or {@code UNTIL} (a date, inclusive) to end the series.</li>
+ * </ul>
+ * As in RFC 5545 the series starts at DTSTART (the schedule's first day) when that day matches,
+ * weeks start on Monday, months without a BYMONTHDAY day are skipped, and COUNT counts
+ * occurrences before excluded dates are taken out. Without BYDAY or BYMONTHDAY the start date
+ * supplies the weekday (WEEKLY) or day of the month (MONTHLY). Example, dialysis three times a
+ * week: {@code FREQ=WEEKLY;BYDAY=MO,WE,FR}.
+ */
+public final class Recurrence {
+    public enum Frequency { DAILY, WEEKLY, MONTHLY }
+
+    private static final int MAX_INTERVAL = 99;
+    private static final int MAX_COUNT = 1000;
+    // bounds a search for the end of a COUNT rule whose days hardly ever occur
+    private static final int MAX_YEARS = 50;
+    private static final DateTimeFormatter BASIC_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Map<String, DayOfWeek> DAYS = Map.of("MO", DayOfWeek.MONDAY, "TU", DayOfWeek.TUESDAY,
+            "WE", DayOfWeek.WEDNESDAY, "TH", DayOfWeek.THURSDAY, "FR", DayOfWeek.FRIDAY, "SA", DayOfWeek.SATURDAY,
+            "SU", DayOfWeek.SUNDAY);
+
+    private final Frequency frequency;
+    private final int interval;
+    private final Set<DayOfWeek> byDay;
+    private final int[] byMonthDay;
+    private final Integer count;
+    private final LocalDate until;
+
+    private Recurrence(Frequency frequency, int interval, Set<DayOfWeek> byDay, int[] byMonthDay, Integer count, LocalDate until) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay;
+        this.byMonthDay = byMonthDay;
+        this.count = count;
+        this.until = until;
+    }
+
+    /** Parses {@code rule}, with or without the {@code RRULE:} prefix; IllegalArgumentException says what is wrong. */
+    public static Recurrence parse(String rule) {
+        if (rule == null || rule.isBlank()) throw new IllegalArgumentException("recurrence is required, e.g. FREQ=WEEKLY;BYDAY=MO,WE,FR");
+        String text = rule.trim().toUpperCase(Locale.ROOT);
+        if (text.startsWith("RRULE:")) text = text.substring(6);
+        Map<String, String> parts = new LinkedHashMap<>();
+        for (String part : text.split(";")) {
+            if (part.isBlank()) continue;
+            int eq = part.indexOf('=');
+            if (eq <= 0 || eq == part.length() - 1) throw new IllegalArgumentException("recurrence: malformed part '" + part + "'");
+            if (parts.put(part.substring(0, eq).trim(), part.substring(eq + 1).trim()) != null) {
+                throw new IllegalArgumentException("recurrence: " + part.substring(0, eq) + " given twice");
+            }
+        }
+        Frequency frequency;
+        try {
+            frequency = Frequency.valueOf(required(parts, "FREQ"));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("recurrence: FREQ must be DAILY, WEEKLY or MONTHLY");
+        }
+        int interval = number(parts.remove("INTERVAL"), "INTERVAL", 1, MAX_INTERVAL, 1);
+        Set<DayOfWeek> byDay = EnumSet.noneOf(DayOfWeek.class);
+        String days = parts.remove("BYDAY");
+        if (days != null) {
+            for (String d : days.split(",")) {
+                DayOfWeek day = DAYS.get(d.trim());
+                if (day == null) throw new IllegalArgumentException("recurrence: BYDAY takes MO, TU, WE, TH, FR, SA, SU (no ordinals), not '" + d + "'");
+                byDay.add(day);
+            }
+        }
+        int[] byMonthDay = new int[0];
+        String monthDays = parts.remove("BYMONTHDAY");
+        if (monthDays != null) {
+            if (frequency == Frequency.WEEKLY) throw new IllegalArgumentException("recurrence: BYMONTHDAY cannot be used with FREQ=WEEKLY");
+            TreeSet<Integer> set = new TreeSet<>();
+            for (String d : monthDays.split(",")) {
+                int v = number(d, "BYMONTHDAY", -31, 31, 0);
+                if (v == 0) throw new IllegalArgumentException("recurrence: BYMONTHDAY cannot be 0");
+                set.add(v);
+            }
+            byMonthDay = set.stream().mapToInt(Integer::intValue).toArray();
+        }
+        String c = parts.remove("COUNT");
+        String u = parts.remove("UNTIL");
+        if (c != null && u != null) throw new IllegalArgumentException("recurrence: COUNT and UNTIL cannot both be given");
+        Integer count = c == null ? null : number(c, "COUNT", 1, MAX_COUNT, 0);
+        LocalDate until = null;
+        if (u != null) {
+            try {
+                // a DATE-TIME UNTIL (20261231T235959Z) ends on its date
+                until = LocalDate.parse(u.length() > 8 && u.charAt(8) == 'T' ? u.substring(0, 8) : u, BASIC_DATE);
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("recurrence: UNTIL must be a date such as 20261231");
+            }
+        }
+        String wkst = parts.remove("WKST");
+        if (wkst != null && !wkst.equals("MO")) throw new IllegalArgumentException("recurrence: only WKST=MO is supported");
+        if (!parts.isEmpty()) throw new IllegalArgumentException("recurrence: unsupported " + String.join(", ", parts.keySet()));
+        return new Recurrence(frequency, interval, byDay, byMonthDay, count, until);
+    }
+
+    private static String required(Map<String, String> parts, String name) {
+        String v = parts.remove(name);
+        if (v == null) throw new IllegalArgumentException("recurrence: " + name + " is required");
+        return v;
+    }
+
+    private static int number(String v, String name, int min, int max, int dflt) {
+        if (v == null) return dflt;
+        try {
+            int n = Integer.parseInt(v.trim());
+            if (n >= min && n <= max) return n;
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        throw new IllegalArgumentException("recurrence: " + name + " must be a number from " + min + " to " + max);
+    }
+
+    public Frequency frequency() {
+        return frequency;
+    }
+
+    /** True when COUNT or UNTIL ends the series. */
+    public boolean bounded() {
+        return count != null || until != null;
+    }
+
+    /**
+     * Occurrences of a series starting on {@code start} that fall in {@code [from, to]}, in order.
+     * Without COUNT the expansion jumps straight to the period holding {@code from}; with COUNT it
+     * has to walk from the start, which COUNT keeps short.
+     */
+    public List<LocalDate> between(LocalDate start, LocalDate from, LocalDate to) {
+        List<LocalDate> out = new ArrayList<>();
+        walk(start, from, to, d -> {
+            out.add(d);
+            return true;
+        });
+        return out;
+    }
+
+    /** Last occurrence of a series starting on {@code start}; null when it never ends. */
+    public LocalDate last(LocalDate start) {
+        if (!bounded()) return null;
+        LocalDate[] last = {null};
+        walk(start, start, until != null ? until : start.plusYears(MAX_YEARS), d -> {
+            last[0] = d;
+            return true;
+        });
+        return last[0];
+    }
+
+    /** Calls {@code action} for each occurrence in {@code [from, to]} until it returns false. */
+    private void walk(LocalDate start, LocalDate from, LocalDate to, Predicate<LocalDate> action) {
+        if (until != null && until.isBefore(to)) to = until;
+        if (to.isBefore(start) || to.isBefore(from)) return;
+        long period = count == null && from.isAfter(start) ? periodOf(start, from) : 0;
+        int seen = 0;
+        List<LocalDate> candidates = new ArrayList<>(31);
+        while (true) {
+            LocalDate periodStart = periodStart(start, period++);
+            if (periodStart.isAfter(to)) return;
+            candidates.clear();
+            candidates(start, periodStart, candidates);
+            for (LocalDate d : candidates) {
+                if (d.isBefore(start)) continue;
+                if (d.isAfter(to)) return;
+                if (count != null && ++seen > count) return;
+                if (!d.isBefore(from) && !action.test(d)) return;
+            }
+        }
+    }
+
+    /** Index of the period containing {@code date}, counting the start's period as 0. */
+    private long periodOf(LocalDate start, LocalDate date) {
+        return switch (frequency) {
+            case DAILY -> ChronoUnit.DAYS.between(start, date) / interval;
+            case WEEKLY -> ChronoUnit.WEEKS.between(monday(start), monday(date)) / interval;
+            case MONTHLY -> ChronoUnit.MONTHS.between(YearMonth.from(start), YearMonth.from(date)) / interval;
+        };
+    }
+
+    private LocalDate periodStart(LocalDate start, long period) {
+        return switch (frequency) {
+            case DAILY -> start.plusDays(period * interval);
+            case WEEKLY -> monday(start).plusWeeks(period * interval);
+            case MONTHLY -> YearMonth.from(start).plusMonths(period * interval).atDay(1);
+        };
+    }
+
+    private void candidates(LocalDate start, LocalDate periodStart, List<LocalDate> out) {
+        switch (frequency) {
+            case DAILY -> {
+                if (matchesDay(periodStart) && matchesMonthDay(periodStart)) out.add(periodStart);
+            }
+            case WEEKLY -> {
+                for (int i = 0; i < 7; i++) {
+                    LocalDate d = periodStart.plusDays(i);
+                    if (byDay.isEmpty() ? d.getDayOfWeek() == start.getDayOfWeek() : byDay.contains(d.getDayOfWeek())) out.add(d);
+                }
+            }
+            case MONTHLY -> {
+                int length = periodStart.lengthOfMonth();
+                if (byDay.isEmpty() && byMonthDay.length == 0) {
+                    if (start.getDayOfMonth() <= length) out.add(periodStart.withDayOfMonth(start.getDayOfMonth()));
+                    return;
+                }
+                for (int day = 1; day <= length; day++) {
+                    LocalDate d = periodStart.withDayOfMonth(day);
+                    if (matchesDay(d) && matchesMonthDay(d)) out.add(d);
+                }
+            }
+        }
+    }
+
+    private boolean matchesDay(LocalDate d) {
+        return byDay.isEmpty() || byDay.contains(d.getDayOfWeek());
+    }
+
+    private boolean matchesMonthDay(LocalDate d) {
+        if (byMonthDay.length == 0) return true;
+        int length = d.lengthOfMonth();
+        for (int v : byMonthDay) {
+            if (d.getDayOfMonth() == (v > 0 ? v : length + 1 + v)) return true;
+        }
+        return false;
+    }
+
+    private static LocalDate monday(LocalDate d) {
+        return d.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /** Canonical form: FREQ first, then INTERVAL (when not 1), BYDAY, BYMONTHDAY, COUNT or UNTIL. */
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("FREQ=").append(frequency);
+        if (interval != 1) b.append(";INTERVAL=").append(interval);
+        if (!byDay.isEmpty()) {
+            b.append(";BYDAY=");
+            String sep = "";
+            for (DayOfWeek d : byDay) {
+                b.append(sep).append(d.name(), 0, 2);
+                sep = ",";
+            }
+        }
+        if (byMonthDay.length > 0) {
+            b.append(";BYMONTHDAY=");
+            for (int i = 0; i < byMonthDay.length; i++) b.append(i == 0 ? "" : ",").append(byMonthDay[i]);
+        }
+        if (count != null) b.append(";COUNT=").append(count);
+        if (until != null) b.append(";UNTIL=").append(until.format(BASIC_DATE));
+        return b.toString();
+    }
+}
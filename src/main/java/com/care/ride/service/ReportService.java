@@ -0,0 +1,402 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.Contact;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Daily counts for management reports, kept in booking_daily and contact_daily (V14) so a report
+ * reads a few rows per day instead of grouping the booking and contacts tables.
+ *
+ * The counts move in the transaction that changes the rows they count: IntakeService adds new
+ * bookings and contacts, BookingStatusService moves a booking between statuses, ScheduleService
+ * takes out the bookings it deletes. Each transaction writes its deltas to one of
+ * {@code report.stripes} rows per group, picked at random like a LongAdder cell, so a burst of
+ * intakes for the same day and type does not queue on one row lock.
+ *
+ * {@link #rebuild} recomputes days from the base tables in {@code report.rebuild.chunk-days}
+ * chunks, {@code report.rebuild.parallelism} at a time, each in a REPEATABLE READ transaction:
+ * the recount and the live deltas cannot both land, a chunk that collides with one fails and is
+ * retried. It runs nightly over recent days, folding their stripes into one row, and once
+ * at startup while the tables are empty. Days ArchiveService has retired (or is about to) keep
+ * their counts and are never rebuilt.
+ *
+ * Both tables count days in {@code intake.capacity.zone}. contacts.created_at is the server's wall
+ * clock with no zone, so contact days are converted from the JVM's default zone into it.
+ */
+@Service
+public class ReportService {
+    private static final Logger log = LoggerFactory.getLogger(ReportService.class);
+
+    /** A booking as the counts see it. */
+    public record BookingKey(Instant pickupTime, int serviceTypeId, String status) {}
+
+    public record BookingCount(LocalDate day, int serviceTypeId, String status, long bookings) {}
+
+    public record ContactCount(LocalDate day, String reason, long contacts) {}
+
+    /** Days actually recomputed per table (after the archive cut-off) and the groups written. */
+    public record Rebuilt(LocalDate from, LocalDate to, int bookingDays, int contactDays, int groups, int retries,
+                          long elapsedMs) {}
+
+    public static class RebuildRunningException extends RuntimeException {
+        public RebuildRunningException() {
+            super("a rebuild is already running");
+        }
+    }
+
+    /**
+     * Where a rebuild puts what it counted. Live writers only use 0 to stripes - 1, so a rebuild
+     * never waits on a row a writer is inserting while the writer waits on rows the rebuild holds.
+     */
+    private static final int REBUILT_STRIPE = -1;
+
+    private record BookingGroup(LocalDate day, int serviceTypeId, String status) {}
+
+    private static final Comparator<BookingGroup> BOOKING_ORDER = Comparator.comparing(BookingGroup::day)
+            .thenComparingInt(BookingGroup::serviceTypeId).thenComparing(BookingGroup::status);
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate repeatableRead;
+    private final ZoneId zone;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Timer rebuildTimer;
+    private final Counter rebuildRetries;
+    private Boolean postgres;
+
+    @Value("${report.stripes:8}")
+    private int stripes;
+
+    @Value("${report.rebuild.chunk-days:7}")
+    private int chunkDays;
+
+    @Value("${report.rebuild.parallelism:2}")
+    private int parallelism;
+
+    @Value("${report.rebuild.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${report.rebuild.days-back:7}")
+    private int nightlyDaysBack;
+
+    @Value("${report.rebuild.days-ahead:90}")
+    private int nightlyDaysAhead;
+
+    @Value("${report.rebuild.on-start:true}")
+    private boolean backfillOnStart;
+
+    @Value("${archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @Value("${archive.booking-retention-months:24}")
+    private int bookingRetentionMonths;
+
+    @Value("${archive.contacts-retention-months:12}")
+    private int contactsRetentionMonths;
+
+    public ReportService(JdbcTemplate jdbc, PlatformTransactionManager txManager, MeterRegistry registry,
+                         @Value("${intake.capacity.zone:America/New_York}") String zone) {
+        this.jdbc = jdbc;
+        this.repeatableRead = new TransactionTemplate(txManager);
+        this.repeatableRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.zone = ZoneId.of(zone);
+        this.rebuildTimer = Timer.builder("report.rebuild")
+                .description("Recomputing daily report counts from the booking and contacts tables")
+                .register(registry);
+        this.rebuildRetries = Counter.builder("report.rebuild.retries")
+                .description("Rebuild chunks retried after colliding with a live count update")
+                .register(registry);
+    }
+
+    public void bookingsAdded(List<Booking> bookings) {
+        Map<BookingGroup, Long> deltas = new TreeMap<>(BOOKING_ORDER);
+        for (Booking b : bookings) add(deltas, b.getPickupTime(), b.getServiceType().getId(), b.getStatus(), 1);
+        writeBookings(deltas);
+    }
+
+    public void bookingsRemoved(List<BookingKey> bookings) {
+        Map<BookingGroup, Long> deltas = new TreeMap<>(BOOKING_ORDER);
+        for (BookingKey b : bookings) add(deltas, b.pickupTime(), b.serviceTypeId(), b.status(), -1);
+        writeBookings(deltas);
+    }
+
+    public void statusChanged(BookingKey before, String status) {
+        Map<BookingGroup, Long> deltas = new TreeMap<>(BOOKING_ORDER);
+        add(deltas, before.pickupTime(), before.serviceTypeId(), before.status(), -1);
+        add(deltas, before.pickupTime(), before.serviceTypeId(), status, 1);
+        writeBookings(deltas);
+    }
+
+    public void contactAdded(Contact c) {
+        jdbc.update(postgres() ? CONTACT_UPSERT_PG : CONTACT_UPSERT_H2, contactDay(c.getCreatedAt()), reason(c.getReason()),
+                stripe(), 1L);
+    }
+
+    private void add(Map<BookingGroup, Long> deltas, Instant pickup, int serviceTypeId, String status, long n) {
+        deltas.merge(new BookingGroup(pickup.atZone(zone).toLocalDate(), serviceTypeId, status), n, Long::sum);
+    }
+
+    // groups in a fixed order, so two transactions touching the same rows lock them in the same order
+    private void writeBookings(Map<BookingGroup, Long> deltas) {
+        deltas.values().removeIf(n -> n == 0);
+        if (deltas.isEmpty()) return;
+        int stripe = stripe();
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((g, n) -> args.add(new Object[] {g.day(), g.serviceTypeId(), g.status(), stripe, n}));
+        jdbc.batchUpdate(postgres() ? BOOKING_UPSERT_PG : BOOKING_UPSERT_H2, args);
+    }
+
+    private int stripe() {
+        return stripes <= 1 ? 0 : ThreadLocalRandom.current().nextInt(stripes);
+    }
+
+    private static String reason(String reason) {
+        return reason == null ? "" : reason;
+    }
+
+    private static final String BOOKING_UPSERT_PG = "insert into booking_daily(report_day, service_type_id, status, stripe, n)"
+            + " values (?, ?, ?, ?, ?) on conflict (report_day, service_type_id, status, stripe)"
+            + " do update set n = booking_daily.n + excluded.n";
+    private static final String BOOKING_UPSERT_H2 = "merge into booking_daily t using (values (cast(? as date),"
+            + " cast(? as int), cast(? as varchar), cast(? as smallint), cast(? as bigint))) s(report_day, service_type_id, status, stripe, n)"
+            + " on t.report_day = s.report_day and t.service_type_id = s.service_type_id and t.status = s.status and t.stripe = s.stripe"
+            + " when matched then update set n = t.n + s.n"
+            + " when not matched then insert (report_day, service_type_id, status, stripe, n) values (s.report_day, s.service_type_id, s.status, s.stripe, s.n)";
+    private static final String CONTACT_UPSERT_PG = "insert into contact_daily(report_day, reason, stripe, n) values (?, ?, ?, ?)"
+            + " on conflict (report_day, reason, stripe) do update set n = contact_daily.n + excluded.n";
+    private static final String CONTACT_UPSERT_H2 = "merge into contact_daily t using (values (cast(? as date),"
+            + " cast(? as varchar), cast(? as smallint), cast(? as bigint))) s(report_day, reason, stripe, n)"
+            + " on t.report_day = s.report_day and t.reason = s.reason and t.stripe = s.stripe"
+            + " when matched then update set n = t.n + s.n"
+            + " when not matched then insert (report_day, reason, stripe, n) values (s.report_day, s.reason, s.stripe, s.n)";
+
+    /** Bookings by pickup day in the service zone, {@code from} through {@code to}; optionally one type. */
+    @Transactional(readOnly = true)
+    public List<BookingCount> bookings(LocalDate from, LocalDate to, Integer serviceTypeId) {
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        if (serviceTypeId != null) args.add(serviceTypeId);
+        return jdbc.query("select report_day, service_type_id, status, sum(n) from booking_daily where report_day >= ? and report_day <= ?"
+                + (serviceTypeId == null ? "" : " and service_type_id = ?")
+                + " group by report_day, service_type_id, status having sum(n) <> 0 order by report_day, service_type_id, status",
+                (rs, i) -> new BookingCount(rs.getObject(1, LocalDate.class), rs.getInt(2), rs.getString(3), rs.getLong(4)),
+                args.toArray());
+    }
+
+    /** Contacts by the day they came in and their reason ("" when none), {@code from} through {@code to}. */
+    @Transactional(readOnly = true)
+    public List<ContactCount> contacts(LocalDate from, LocalDate to) {
+        return jdbc.query("select report_day, reason, sum(n) from contact_daily where report_day >= ? and report_day <= ?"
+                + " group by report_day, reason having sum(n) <> 0 order by report_day, reason",
+                (rs, i) -> new ContactCount(rs.getObject(1, LocalDate.class), rs.getString(2), rs.getLong(3)), from, to);
+    }
+
+    /** Recent and upcoming days: folds their stripes together and repairs rows edited outside the app. */
+    @Scheduled(cron = "${report.rebuild.cron:0 45 3 * * *}")
+    public void nightly() {
+        LocalDate today = LocalDate.now(zone);
+        try {
+            Rebuilt r = rebuild(today.minusDays(nightlyDaysBack), today.plusDays(nightlyDaysAhead));
+            log.info("Report counts rebuilt {} to {} groups={} retries={} in {} ms", r.from(), r.to(), r.groups(),
+                    r.retries(), r.elapsedMs());
+        } catch (RebuildRunningException ex) {
+            log.info("Nightly report rebuild skipped: {}", ex.getMessage());
+        } catch (DataAccessException ex) {
+            log.warn("Nightly report rebuild stopped: {}", ex.getMessage());
+        }
+    }
+
+    /** First start after V14, or after the tables were emptied: count everything still in the database. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!backfillOnStart) return;
+        if (Boolean.TRUE.equals(jdbc.queryForObject("select exists (select 1 from booking_daily)"
+                + " or exists (select 1 from contact_daily)", Boolean.class))) return;
+        OffsetDateTime firstPickup = jdbc.queryForObject("select min(pickup_time) from booking", OffsetDateTime.class);
+        OffsetDateTime lastPickup = jdbc.queryForObject("select max(pickup_time) from booking", OffsetDateTime.class);
+        LocalDateTime firstContact = jdbc.queryForObject("select min(created_at) from contacts", LocalDateTime.class);
+        LocalDateTime lastContact = jdbc.queryForObject("select max(created_at) from contacts", LocalDateTime.class);
+        LocalDate from = earlier(firstPickup == null ? null : firstPickup.atZoneSameInstant(zone).toLocalDate(),
+                firstContact == null ? null : contactDay(firstContact));
+        LocalDate to = later(lastPickup == null ? null : lastPickup.atZoneSameInstant(zone).toLocalDate(),
+                lastContact == null ? null : contactDay(lastContact));
+        if (from == null) return;
+        Thread.ofVirtual().name("report-backfill").start(() -> {
+            try {
+                Rebuilt r = rebuild(from, to);
+                log.info("Report counts backfilled {} to {} bookingDays={} contactDays={} groups={} in {} ms", r.from(),
+                        r.to(), r.bookingDays(), r.contactDays(), r.groups(), r.elapsedMs());
+            } catch (RebuildRunningException | DataAccessException ex) {
+                log.warn("Report backfill stopped, POST /api/dispatch/reports/rebuild to retry: {}", ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Recounts {@code from} through {@code to} from the base tables, replacing what the rollups
+     * hold for those days. Safe while intake runs. One rebuild at a time.
+     */
+    public Rebuilt rebuild(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) throw new IllegalArgumentException("to must not be before from");
+        if (!rebuilding.compareAndSet(false, true)) throw new RebuildRunningException();
+        long start = System.nanoTime();
+        try {
+            LocalDate bookingFrom = later(from, bookingsRetainedFrom());
+            LocalDate contactFrom = later(from, contactsRetainedFrom());
+            // contacts cannot come in on a later day than today
+            LocalDate contactTo = earlier(to, LocalDate.now(zone));
+            AtomicInteger retries = new AtomicInteger();
+            int groups = 0;
+            try (ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                    Thread.ofVirtual().name("report-rebuild-", 0).factory())) {
+                List<Future<Integer>> chunks = new ArrayList<>();
+                for (LocalDate d = earlier(bookingFrom, contactFrom); !d.isAfter(to); d = d.plusDays(chunkDays)) {
+                    LocalDate first = d, last = earlier(d.plusDays(chunkDays - 1), to);
+                    chunks.add(pool.submit(() -> rebuildChunk(first, last, bookingFrom, contactFrom, contactTo, retries)));
+                }
+                for (Future<Integer> chunk : chunks) groups += chunk.get();
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException re) throw re;
+                throw new IllegalStateException(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("rebuild interrupted", ex);
+            }
+            long nanos = System.nanoTime() - start;
+            rebuildTimer.record(nanos, TimeUnit.NANOSECONDS);
+            return new Rebuilt(from, to, days(bookingFrom, to), days(contactFrom, contactTo), groups, retries.get(),
+                    nanos / 1_000_000);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private int rebuildChunk(LocalDate first, LocalDate last, LocalDate bookingFrom, LocalDate contactFrom,
+                             LocalDate contactTo, AtomicInteger retries) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return repeatableRead.execute(s -> {
+                    int groups = 0;
+                    LocalDate b0 = later(first, bookingFrom);
+                    if (!b0.isAfter(last)) {
+                        // rows in key order, as writers take them; deleting in heap order could deadlock with one
+                        jdbc.query("select stripe from booking_daily where report_day >= ? and report_day <= ?"
+                                + " order by report_day, service_type_id, status, stripe for update", rs -> {}, b0, last);
+                        jdbc.update("delete from booking_daily where report_day >= ? and report_day <= ?", b0, last);
+                        for (LocalDate d = b0; !d.isAfter(last); d = d.plusDays(1)) {
+                            groups += jdbc.update("insert into booking_daily(report_day, service_type_id, status, stripe, n)"
+                                    + " select cast(? as date), service_type_id, status, " + REBUILT_STRIPE + ", count(*) from booking"
+                                    + " where pickup_time >= ? and pickup_time < ? group by service_type_id, status",
+                                    d, d.atStartOfDay(zone).toOffsetDateTime(), d.plusDays(1).atStartOfDay(zone).toOffsetDateTime());
+                        }
+                    }
+                    LocalDate c0 = later(first, contactFrom), c1 = earlier(last, contactTo);
+                    if (!c0.isAfter(c1)) {
+                        jdbc.query("select stripe from contact_daily where report_day >= ? and report_day <= ?"
+                                + " order by report_day, reason, stripe for update", rs -> {}, c0, c1);
+                        jdbc.update("delete from contact_daily where report_day >= ? and report_day <= ?", c0, c1);
+                        // a zone day is not a server-local calendar day, so bound each one explicitly
+                        for (LocalDate d = c0; !d.isAfter(c1); d = d.plusDays(1)) {
+                            groups += jdbc.update("insert into contact_daily(report_day, reason, stripe, n)"
+                                    + " select cast(? as date), coalesce(reason, ''), " + REBUILT_STRIPE + ", count(*) from contacts"
+                                    + " where created_at >= ? and created_at < ? group by coalesce(reason, '')",
+                                    d, contactTime(d), contactTime(d.plusDays(1)));
+                        }
+                    }
+                    return groups;
+                });
+            } catch (ConcurrencyFailureException | DuplicateKeyException ex) {
+                // a live update got to one of these rows after our snapshot; recount from a new one
+                if (attempt >= maxAttempts) throw ex;
+                retries.incrementAndGet();
+                rebuildRetries.increment();
+                Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50L * attempt));
+            }
+        }
+    }
+
+    /** First day whose bookings are all still here: earlier months go to the archive (ArchiveService, UTC months). */
+    private LocalDate bookingsRetainedFrom() {
+        if (!archiveEnabled) return null;
+        Instant cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(bookingRetentionMonths).atDay(1)
+                .atStartOfDay(ZoneOffset.UTC).toInstant();
+        LocalDate day = cutoff.atZone(zone).toLocalDate();
+        return day.atStartOfDay(zone).toInstant().isBefore(cutoff) ? day.plusDays(1) : day;
+    }
+
+    /** First day whose contacts are all still here: the archive cuts contacts on server-local months. */
+    private LocalDate contactsRetainedFrom() {
+        if (!archiveEnabled) return null;
+        LocalDateTime cutoff = YearMonth.now().minusMonths(contactsRetentionMonths).atDay(1).atStartOfDay();
+        LocalDate day = contactDay(cutoff);
+        return contactTime(day).isBefore(cutoff) ? day.plusDays(1) : day;
+    }
+
+    /** The service-zone day of a contacts.created_at value (server wall clock). */
+    private LocalDate contactDay(LocalDateTime createdAt) {
+        return createdAt.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalDate();
+    }
+
+    /** Start of a service-zone day as a contacts.created_at value. */
+    private LocalDateTime contactTime(LocalDate day) {
+        return day.atStartOfDay(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private boolean postgres() {
+        if (postgres == null) {
+            postgres = "PostgreSQL".equals(jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+
+    private static int days(LocalDate from, LocalDate to) {
+        return from.isAfter(to) ? 0 : (int) ChronoUnit.DAYS.between(from, to) + 1;
+    }
+
+    private static LocalDate earlier(LocalDate a, LocalDate b) {
+        return a == null ? b : b == null || a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        return a == null ? b : b == null || a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,102 @@
+package com.care.ride.service;
+
+import com.care.ride.dto.BookingSummary;
+import com.care.ride.repo.BookingRepo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Proposed vehicle runs for one day's PENDING bookings (see {@link RunPlanner}). Read-only: the
+ * plan is a suggestion for dispatch and nothing is written back. Bookings whose addresses the
+ * geocoder cannot place are listed as {@code unlocated} and left out of the runs.
+ */
+@Service
+public class RunPlanService {
+    private static final Logger log = LoggerFactory.getLogger(RunPlanService.class);
+
+    public record RunPlan(LocalDate date, String zone, int bookings, int runs, int pooledBookings,
+                          double soloKm, double pooledKm, List<Long> unlocated, long elapsedMs, List<RunPlanner.Run> plan) {}
+
+    private final BookingRepo bookingRepo;
+    private final Geocoder geocoder;
+    private final Bulkhead dbBulkhead;
+    private final ZoneId zone;
+    private final ForkJoinPool pool;
+    private final RunPlanner planner;
+
+    @Value("${pooling.max-bookings:50000}")
+    private int maxBookings;
+
+    public RunPlanService(BookingRepo bookingRepo, Geocoder geocoder, @Qualifier("dbBulkhead") Bulkhead dbBulkhead,
+                          @Value("${intake.capacity.zone:America/New_York}") String zone,
+                          @Value("${pooling.parallelism:0}") int parallelism,
+                          @Value("${pooling.max-riders:3}") int maxRiders,
+                          @Value("${pooling.pickup-window-minutes:20}") int pickupWindowMinutes,
+                          @Value("${pooling.pickup-radius-km:4}") double pickupRadiusKm,
+                          @Value("${pooling.dropoff-radius-km:1}") double dropoffRadiusKm) {
+        this.bookingRepo = bookingRepo;
+        this.geocoder = geocoder;
+        this.dbBulkhead = dbBulkhead;
+        this.zone = ZoneId.of(zone);
+        // own pool: a big plan must not starve parallel streams elsewhere in the app
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.planner = new RunPlanner(maxRiders, Duration.ofMinutes(pickupWindowMinutes), pickupRadiusKm, dropoffRadiusKm, pool);
+    }
+
+    public RunPlan planDay(LocalDate date) {
+        long start = System.nanoTime();
+        var from = date.atStartOfDay(zone).toInstant();
+        var to = date.plusDays(1).atStartOfDay(zone).toInstant();
+        List<BookingSummary> pending = dbBulkhead.call(() -> bookingRepo.findForDispatch("PENDING", null, from, to, null, maxBookings));
+        if (pending.size() == maxBookings) {
+            log.warn("Run plan for {} capped at pooling.max-bookings={}; later bookings are not planned", date, maxBookings);
+        }
+
+        // the same few destinations come up again and again: geocode each address once per plan
+        Map<String, Optional<Geocoder.Point>> located = new HashMap<>();
+        List<RunPlanner.Ride> rides = new ArrayList<>(pending.size());
+        List<Long> unlocated = new ArrayList<>();
+        for (BookingSummary b : pending) {
+            var pickup = located.computeIfAbsent(b.pickupAddress(), geocoder::locate);
+            var dropoff = located.computeIfAbsent(b.dropoffAddress(), geocoder::locate);
+            if (pickup.isEmpty() || dropoff.isEmpty()) {
+                unlocated.add(b.id());
+            } else {
+                rides.add(new RunPlanner.Ride(b.id(), b.serviceTypeId(), b.pickupTime(), pickup.get(), dropoff.get()));
+            }
+        }
+
+        List<RunPlanner.Run> runs = planner.plan(rides);
+        int pooled = 0;
+        double solo = 0, shared = 0;
+        for (RunPlanner.Run r : runs) {
+            if (r.bookingIds().size() > 1) pooled += r.bookingIds().size();
+            solo += r.soloKm();
+            shared += r.pooledKm();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Run plan date={} bookings={} runs={} pooled={} unlocated={} elapsedMs={}",
+                date, pending.size(), runs.size(), pooled, unlocated.size(), elapsedMs);
+        return new RunPlan(date, zone.getId(), pending.size(), runs.size(), pooled,
+                Math.round(solo * 10) / 10.0, Math.round(shared * 10) / 10.0, unlocated, elapsedMs, runs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,143 @@
+package com.care.ride.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Groups rides into shared vehicle runs. Two rides can share a run when they are the same service
+ * type, their pickups are within {@code pickupWindow} of the run's first pickup and
+ * {@code pickupRadiusKm} of the previous pickup, and they go to the same place (dropoff within
+ * {@code dropoffRadiusKm} of the run's first dropoff), up to {@code maxRiders} per run.
+ *
+ * Rides are partitioned by service type and by a dropoff grid cell the size of the dropoff
+ * radius; each partition is planned greedily in pickup order (a ride joins the open run that needs
+ * the shortest extra pickup leg, or starts a new one) and partitions run in parallel on the given
+ * fork-join pool. Rides headed to neighbouring cells are never pooled, the price of the split.
+ */
+public class RunPlanner {
+    private static final double EARTH_KM = 6371.0;
+
+    public record Ride(long id, int serviceTypeId, Instant pickupTime, Geocoder.Point pickup, Geocoder.Point dropoff) {}
+
+    /** One vehicle run; {@code soloKm} is what the same rides cost as separate trips. */
+    public record Run(int serviceTypeId, List<Long> bookingIds, Instant firstPickup, Instant lastPickup,
+                      double pooledKm, double soloKm) {}
+
+    private final int maxRiders;
+    private final long windowSeconds;
+    private final double pickupRadiusKm;
+    private final double dropoffRadiusKm;
+    private final ForkJoinPool pool;
+
+    public RunPlanner(int maxRiders, Duration pickupWindow, double pickupRadiusKm, double dropoffRadiusKm, ForkJoinPool pool) {
+        this.maxRiders = maxRiders;
+        this.windowSeconds = pickupWindow.getSeconds();
+        this.pickupRadiusKm = pickupRadiusKm;
+        this.dropoffRadiusKm = dropoffRadiusKm;
+        this.pool = pool;
+    }
+
+    public List<Run> plan(List<Ride> rides) {
+        Map<Long, List<Ride>> partitions = new HashMap<>();
+        for (Ride r : rides) {
+            partitions.computeIfAbsent(partitionKey(r), k -> new ArrayList<>()).add(r);
+        }
+        // largest first so one big destination does not end up as the straggler
+        List<List<Ride>> work = new ArrayList<>(partitions.values());
+        work.sort(Comparator.comparingInt(List<Ride>::size).reversed());
+        List<Run> runs = pool.submit(() -> work.parallelStream().flatMap(p -> planPartition(p).stream()).toList()).join();
+        List<Run> sorted = new ArrayList<>(runs);
+        sorted.sort(Comparator.comparing(Run::firstPickup).thenComparing(r -> r.bookingIds().get(0)));
+        return sorted;
+    }
+
+    private long partitionKey(Ride r) {
+        double cellLat = dropoffRadiusKm / 111.0;
+        double cellLon = cellLat / Math.max(0.1, Math.cos(Math.toRadians(r.dropoff().lat())));
+        long row = (long) Math.floor(r.dropoff().lat() / cellLat);
+        long col = (long) Math.floor(r.dropoff().lon() / cellLon);
+        return ((long) r.serviceTypeId() << 48) ^ (row << 24) ^ (col & 0xFFFFFF);
+    }
+
+    private List<Run> planPartition(List<Ride> rides) {
+        List<Ride> byTime = new ArrayList<>(rides);
+        byTime.sort(Comparator.comparing(Ride::pickupTime).thenComparingLong(Ride::id));
+        List<List<Ride>> open = new ArrayList<>();
+        List<Run> done = new ArrayList<>();
+        for (Ride ride : byTime) {
+            long t = ride.pickupTime().getEpochSecond();
+            List<Ride> best = null;
+            double bestLeg = Double.MAX_VALUE;
+            for (int i = open.size() - 1; i >= 0; i--) {
+                List<Ride> run = open.get(i);
+                Ride first = run.get(0);
+                if (t - first.pickupTime().getEpochSecond() > windowSeconds) {
+                    // open runs are in start order, so this and every earlier one is closed
+                    for (int j = 0; j <= i; j++) done.add(toRun(open.get(j)));
+                    open.subList(0, i + 1).clear();
+                    break;
+                }
+                if (run.size() >= maxRiders || km(first.dropoff(), ride.dropoff()) > dropoffRadiusKm) continue;
+                double leg = km(run.get(run.size() - 1).pickup(), ride.pickup());
+                if (leg <= pickupRadiusKm && leg < bestLeg) {
+                    best = run;
+                    bestLeg = leg;
+                }
+            }
+            if (best != null) {
+                best.add(ride);
+            } else {
+                List<Ride> run = new ArrayList<>(maxRiders);
+                run.add(ride);
+                open.add(run);
+            }
+        }
+        for (List<Ride> run : open) done.add(toRun(run));
+        return done;
+    }
+
+    // pickups in time order, then dropoffs nearest-first from the last pickup
+    private static Run toRun(List<Ride> rides) {
+        double solo = 0;
+        double pooled = 0;
+        List<Long> ids = new ArrayList<>(rides.size());
+        for (int i = 0; i < rides.size(); i++) {
+            Ride r = rides.get(i);
+            ids.add(r.id());
+            solo += km(r.pickup(), r.dropoff());
+            if (i > 0) pooled += km(rides.get(i - 1).pickup(), r.pickup());
+        }
+        Geocoder.Point at = rides.get(rides.size() - 1).pickup();
+        List<Geocoder.Point> drops = new ArrayList<>(rides.size());
+        for (Ride r : rides) drops.add(r.dropoff());
+        while (!drops.isEmpty()) {
+            int nearest = 0;
+            for (int i = 1; i < drops.size(); i++) {
+                if (km(at, drops.get(i)) < km(at, drops.get(nearest))) nearest = i;
+            }
+            pooled += km(at, drops.get(nearest));
+            at = drops.remove(nearest);
+        }
+        return new Run(rides.get(0).serviceTypeId(), ids, rides.get(0).pickupTime(),
+                rides.get(rides.size() - 1).pickupTime(), round(pooled), round(solo));
+    }
+
+    /** Great-circle distance in km. */
+    static double km(Geocoder.Point a, Geocoder.Point b) {
+        double dLat = Math.toRadians(b.lat() - a.lat());
+        double dLon = Math.toRadians(b.lon() - a.lon());
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(a.lat())) * Math.cos(Math.toRadians(b.lat())) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_KM * Math.asin(Math.sqrt(h));
+    }
+
+    private static double round(double km) {
+        return Math.round(km * 10) / 10.0;
+    }
+}
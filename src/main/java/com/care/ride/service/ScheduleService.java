@@ -0,0 +1,557 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.ContactKeys;
+import com.care.ride.domain.RideSchedule;
+import com.care.ride.domain.ServiceType;
+import com.care.ride.dto.ScheduleRequest;
+import com.care.ride.dto.ScheduleView;
+import com.care.ride.repo.RideScheduleRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recurring rides (standing orders). A {@link RideSchedule} holds the ride once plus a
+ * {@link Recurrence}; Booking rows are created only for occurrences up to
+ * {@code schedule.horizon-days} ahead. {@link #materializeDue} moves that horizon forward for
+ * {@code schedule.materialize.chunk-size} schedules per transaction, reserving a vehicle for each
+ * occurrence and inserting the chunk's bookings with one batched saveAll, as imports do. An
+ * occurrence with no vehicle free is counted and kept in ride_schedule_unbooked (V15):
+ * {@link #occurrences} lists it as NO_VEHICLE, and every job run (or an edit of the series) tries
+ * to book it again until it is booked or its pickup time has passed.
+ *
+ * Occurrences past the horizon are never stored: {@link #occurrences} expands them from the rules
+ * in memory next to the bookings that exist.
+ *
+ * An edit applies to the series' bookings from its {@code effectiveFrom} day as a set. New details
+ * (name, phone, addresses, notes) are one UPDATE. The booked dates are diffed against what the
+ * rule now wants: dates that still match keep their booking and its status, stale ones go in one
+ * DELETE, missing ones are created in one batch. Occurrences a dispatcher cancelled stay
+ * cancelled. Edits and the job lock the schedule row first, so they cannot book a date twice, and
+ * an edit locks the bookings it reads, so none changes status before it is deleted.
+ */
+@Service
+public class ScheduleService {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleService.class);
+    private static final List<String> OPEN = List.of("PENDING", "CONFIRMED");
+
+    /** Status of an occurrence that is past the horizon and has no booking yet. */
+    public static final String SCHEDULED = "SCHEDULED";
+
+    /** Status of an occurrence within the horizon that found no vehicle free and is retried. */
+    public static final String NO_VEHICLE = "NO_VEHICLE";
+
+    /** One ride of a series: a booking ({@code bookingId} set) or, past the horizon, the rule's expansion. */
+    public record Occurrence(Long scheduleId, LocalDate date, Instant pickupTime, Long bookingId, String status,
+                             Integer serviceTypeId, String fullName, String phone, String pickupAddress,
+                             String dropoffAddress) {}
+
+    /** A create or edit: the schedule, bookings changed from {@code from} on, and dates with no vehicle free. */
+    public record Saved(ScheduleView schedule, LocalDate from, int created, int updated, int removed,
+                        List<LocalDate> noVehicle) {}
+
+    private record Booked(long id, Instant pickupTime, int serviceTypeId, String status) {}
+
+    private final RideScheduleRepo repo;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final IntakeService intakeService;
+    private final CapacityService capacity;
+    private final ServiceTypeCatalog catalog;
+    private final DispatchEventBus events;
+    private final SearchService search;
+    private final ReportService reports;
+    private final Counter booked;
+    private final Counter noVehicle;
+    private final Timer materializeTimer;
+
+    @Value("${schedule.horizon-days:14}")
+    private int horizonDays;
+
+    @Value("${schedule.materialize.chunk-size:100}")
+    private int chunkSize;
+
+    public ScheduleService(RideScheduleRepo repo, JdbcTemplate jdbc, TransactionTemplate tx, IntakeService intakeService,
+                           CapacityService capacity, ServiceTypeCatalog catalog, DispatchEventBus events,
+                           SearchService search, ReportService reports, MeterRegistry registry) {
+        this.repo = repo;
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.intakeService = intakeService;
+        this.capacity = capacity;
+        this.catalog = catalog;
+        this.events = events;
+        this.search = search;
+        this.reports = reports;
+        this.booked = occurrenceCounter(registry, "booked");
+        this.noVehicle = occurrenceCounter(registry, "no_vehicle");
+        this.materializeTimer = Timer.builder("schedule.materialize")
+                .description("One run of the job that books recurring rides up to the horizon")
+                .register(registry);
+    }
+
+    private static Counter occurrenceCounter(MeterRegistry registry, String result) {
+        return Counter.builder("schedule.occurrences")
+                .description("Recurring-ride occurrences turned into bookings, or left out for want of a vehicle")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(capacity.zone());
+    }
+
+    /** Last day that has bookings for every active schedule once the job has run. */
+    public LocalDate horizon() {
+        return today().plusDays(horizonDays);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScheduleView> list(Boolean active, long after, int limit) {
+        return repo.findPage(active, after, PageRequest.of(0, limit)).stream().map(ScheduleView::of).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ScheduleView> find(long id) {
+        return repo.findById(id).map(ScheduleView::of);
+    }
+
+    /** IllegalArgumentException lists what is missing or invalid. */
+    @Transactional
+    public Saved create(ScheduleRequest req) {
+        RideSchedule s = new RideSchedule();
+        apply(s, req, true);
+        s = repo.save(s);
+        LocalDate from = later(today(), s.getStartsOn());
+        Batch batch = new Batch(false);
+        int[] changed = reconcile(s, from, false, batch);
+        batch.save();
+        log.info("Recurring schedule {} created rule={} bookings={} noVehicle={}", s.getId(), s.getRecurrence(),
+                batch.size(), batch.noVehicle.size());
+        return new Saved(ScheduleView.of(s), from, batch.size(), changed[0], changed[1], batch.noVehicle);
+    }
+
+    /** Empty when there is no such schedule; IllegalArgumentException lists what is invalid. */
+    @Transactional
+    public Optional<Saved> update(long id, ScheduleRequest req) {
+        Optional<RideSchedule> found = repo.findForUpdate(id);
+        if (found.isEmpty()) return Optional.empty();
+        RideSchedule s = found.get();
+        boolean details = apply(s, req, false);
+        LocalDate from = later(today(), req.effectiveFrom());
+        Batch batch = new Batch(false);
+        int[] changed = reconcile(s, from, details, batch);
+        batch.save();
+        events.publishAfterCommit(DispatchEventBus.SCHEDULE_CHANGED,
+                new DispatchEventBus.ScheduleChanged(s.getId(), from, changed[0], changed[1], batch.size()));
+        log.info("Recurring schedule {} edited from={} updated={} removed={} created={} active={}", s.getId(), from,
+                changed[0], changed[1], batch.size(), s.isActive());
+        return Optional.of(new Saved(ScheduleView.of(s), from, batch.size(), changed[0], changed[1], batch.noVehicle));
+    }
+
+    /**
+     * Bookings and, past each schedule's horizon, expanded occurrences with a pickup on
+     * {@code from} through {@code to} (service-zone dates), by pickup time; one schedule or all.
+     */
+    @Transactional(readOnly = true)
+    public List<Occurrence> occurrences(LocalDate from, LocalDate to, Long scheduleId) {
+        ZoneId zone = capacity.zone();
+        List<Object> args = new ArrayList<>();
+        if (scheduleId != null) args.add(scheduleId);
+        args.add(from.atStartOfDay(zone).toOffsetDateTime());
+        args.add(to.plusDays(1).atStartOfDay(zone).toOffsetDateTime());
+        List<Occurrence> out = new ArrayList<>(jdbc.query("select schedule_id, pickup_time, id, status, service_type_id,"
+                + " full_name, phone, pickup_address, dropoff_address from booking where schedule_id "
+                + (scheduleId == null ? "is not null" : "= ?") + " and pickup_time >= ? and pickup_time < ?",
+                (rs, i) -> {
+                    Instant pickup = rs.getObject(2, OffsetDateTime.class).toInstant();
+                    return new Occurrence(rs.getLong(1), pickup.atZone(zone).toLocalDate(), pickup, rs.getLong(3),
+                            rs.getString(4), rs.getInt(5), rs.getString(6), rs.getString(7), rs.getString(8), rs.getString(9));
+                }, args.toArray()));
+
+        List<Object> unbookedArgs = new ArrayList<>();
+        if (scheduleId != null) unbookedArgs.add(scheduleId);
+        unbookedArgs.add(from);
+        unbookedArgs.add(to);
+        out.addAll(jdbc.query("select u.schedule_id, u.occurrence_on, s.pickup_local_time, s.service_type_id, s.full_name,"
+                + " s.phone, s.pickup_address, s.dropoff_address from ride_schedule_unbooked u join ride_schedule s"
+                + " on s.id = u.schedule_id where " + (scheduleId == null ? "" : "u.schedule_id = ? and ")
+                + "u.occurrence_on >= ? and u.occurrence_on <= ?",
+                (rs, i) -> {
+                    LocalDate d = rs.getObject(2, LocalDate.class);
+                    return new Occurrence(rs.getLong(1), d, pickup(d, rs.getObject(3, LocalTime.class)), null, NO_VEHICLE,
+                            rs.getInt(4), rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8));
+                }, unbookedArgs.toArray()));
+
+        List<RideSchedule> schedules = scheduleId == null ? repo.findActiveBetween(from, to)
+                : repo.findById(scheduleId).filter(RideSchedule::isActive).stream().toList();
+        LocalDate today = today();
+        for (RideSchedule s : schedules) {
+            // bookings cover everything through materializedThrough, and nothing before today is added now
+            LocalDate lazyFrom = later(from, today);
+            if (s.getMaterializedThrough() != null) lazyFrom = later(lazyFrom, s.getMaterializedThrough().plusDays(1));
+            for (LocalDate d : dates(s, lazyFrom, to)) {
+                out.add(new Occurrence(s.getId(), d, pickup(s, d), null, SCHEDULED, s.getServiceType().getId(),
+                        s.getFullName(), s.getPhone(), s.getPickupAddress(), s.getDropoffAddress()));
+            }
+        }
+        out.sort(Comparator.comparing(Occurrence::pickupTime).thenComparing(Occurrence::scheduleId));
+        return out;
+    }
+
+    /**
+     * Books every active schedule through {@link #horizon()}. Hourly by default so a restart or a
+     * missed run costs at most an hour; a run with nothing due is one index lookup.
+     */
+    @Scheduled(initialDelayString = "${schedule.materialize.initial-delay-ms:60000}",
+            fixedDelayString = "${schedule.materialize.interval-ms:3600000}")
+    public void materializeDue() {
+        LocalDate through = horizon();
+        long start = System.nanoTime();
+        long after = 0;
+        int schedules = 0, created = 0, retried = 0, skipped = 0;
+        try {
+            while (true) {
+                List<Long> ids = repo.findDue(through, after, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) break;
+                after = ids.get(ids.size() - 1);
+                Batch done = tx.execute(status -> materialize(ids, through));
+                schedules += ids.size();
+                created += done.size();
+                skipped += done.noVehicle.size();
+            }
+            // dates that found no vehicle earlier, now that cancellations may have freed one
+            LocalDate today = today();
+            after = 0;
+            while (true) {
+                List<Long> ids = jdbc.queryForList("select distinct schedule_id from ride_schedule_unbooked"
+                        + " where occurrence_on >= ? and schedule_id > ? order by schedule_id limit ?",
+                        Long.class, today, after, chunkSize);
+                if (ids.isEmpty()) break;
+                after = ids.get(ids.size() - 1);
+                Batch done = tx.execute(status -> retryUnbooked(ids));
+                retried += done.size();
+                skipped += done.noVehicle.size();
+            }
+        } catch (DataAccessException ex) {
+            // the rest are still due and are picked up by the next run
+            log.warn("Recurring ride booking stopped after schedule {}: {}", after, ex.getMessage());
+        }
+        long nanos = System.nanoTime() - start;
+        materializeTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (schedules > 0 || retried > 0) {
+            log.info("Recurring rides booked through {} schedules={} bookings={} retriedBooked={} noVehicle={} in {} ms",
+                    through, schedules, created, retried, skipped, nanos / 1_000_000);
+        }
+    }
+
+    private Batch materialize(List<Long> ids, LocalDate through) {
+        Batch batch = new Batch(false);
+        LocalDate today = today();
+        for (RideSchedule s : repo.findForUpdate(ids)) {
+            LocalDate done = s.getMaterializedThrough();
+            // an edit or another node may have got here since the ids were read
+            if (!s.isActive() || (done != null && !done.isBefore(through))) continue;
+            LocalDate from = done == null ? today : later(today, done.plusDays(1));
+            int before = batch.noVehicle.size();
+            for (LocalDate d : dates(s, from, through)) batch.add(s, d);
+            if (batch.noVehicle.size() > before) {
+                log.warn("Recurring schedule {}: no {} vehicle free on {}", s.getId(), s.getServiceType().getName(),
+                        batch.noVehicle.subList(before, batch.noVehicle.size()));
+            }
+            s.setMaterializedThrough(through);
+        }
+        batch.save();
+        return batch;
+    }
+
+    /** Books the NO_VEHICLE dates of {@code ids} whose pickup is still ahead; the ones still without a vehicle stay. */
+    private Batch retryUnbooked(List<Long> ids) {
+        Batch batch = new Batch(true);
+        Instant now = Instant.now();
+        for (RideSchedule s : repo.findForUpdate(ids)) {
+            // an edit may have rebuilt these rows since the ids were read
+            List<Object[]> due = new ArrayList<>();
+            for (LocalDate d : jdbc.queryForList("select occurrence_on from ride_schedule_unbooked where schedule_id = ?"
+                    + " and occurrence_on >= ? order by occurrence_on", LocalDate.class, s.getId(), today())) {
+                if (s.isActive() && pickup(s, d).isAfter(now)) {
+                    due.add(new Object[] {s.getId(), d});
+                    batch.add(s, d);
+                }
+            }
+            jdbc.batchUpdate("delete from ride_schedule_unbooked where schedule_id = ? and occurrence_on = ?", due);
+        }
+        batch.save();
+        return batch;
+    }
+
+    /**
+     * Brings the bookings of {@code s} from {@code from} through the horizon in line with it: stale
+     * open bookings are deleted, new details written over the ones that stay ({@code details}),
+     * and missing occurrences added to {@code batch}. Returns {updated, removed}.
+     */
+    private int[] reconcile(RideSchedule s, LocalDate from, boolean details, Batch batch) {
+        LocalDate through = s.getMaterializedThrough() == null ? horizon() : later(horizon(), s.getMaterializedThrough());
+        Map<Instant, LocalDate> wanted = new LinkedHashMap<>();
+        if (s.isActive()) {
+            Instant now = Instant.now();
+            for (LocalDate d : dates(s, from, through)) {
+                Instant pickup = pickup(s, d);
+                if (pickup.isAfter(now)) wanted.put(pickup, d);
+            }
+        }
+        OffsetDateTime fromTime = from.atStartOfDay(capacity.zone()).toOffsetDateTime();
+        // dates still without a vehicle are wanted again below and go back in with the batch
+        jdbc.update("delete from ride_schedule_unbooked where schedule_id = ? and occurrence_on >= ?", s.getId(), from);
+        List<Booked> stale = new ArrayList<>();
+        List<Long> kept = new ArrayList<>();
+        for (Booked b : jdbc.query("select id, pickup_time, service_type_id, status from booking"
+                + " where schedule_id = ? and pickup_time >= ? for update", (rs, i) -> new Booked(rs.getLong(1),
+                rs.getObject(2, OffsetDateTime.class).toInstant(), rs.getInt(3), rs.getString(4)), s.getId(), fromTime)) {
+            boolean open = OPEN.contains(b.status());
+            if (open && (!wanted.containsKey(b.pickupTime()) || b.serviceTypeId() != s.getServiceType().getId())) {
+                stale.add(b);
+                continue;
+            }
+            // cancelled or completed: that date is not booked again
+            wanted.remove(b.pickupTime());
+            if (open) kept.add(b.id());
+        }
+
+        int removed = 0;
+        if (!stale.isEmpty()) {
+            StringBuilder in = new StringBuilder();
+            List<Object> args = new ArrayList<>(List.of(s.getId(), fromTime));
+            for (Booked b : stale) {
+                in.append(in.isEmpty() ? "?" : ", ?");
+                args.add(b.id());
+            }
+            // the schedule and time bounds keep this on idx_booking_schedule and the current partitions
+            removed = jdbc.update("delete from booking where schedule_id = ? and pickup_time >= ? and id in (" + in + ")",
+                    args.toArray());
+            reports.bookingsRemoved(stale.stream()
+                    .map(b -> new ReportService.BookingKey(b.pickupTime(), b.serviceTypeId(), b.status())).toList());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (Booked b : stale) catalog.find(b.serviceTypeId()).ifPresent(st -> capacity.release(st, b.pickupTime()));
+                }
+            });
+        }
+
+        int updated = 0;
+        if (details && !kept.isEmpty()) {
+            updated = jdbc.update("update booking set full_name = ?, phone = ?, email = ?, pickup_address = ?,"
+                    + " dropoff_address = ?, notes = ?, phone_key = ?, email_key = ?"
+                    + " where schedule_id = ? and pickup_time >= ? and status in ('PENDING', 'CONFIRMED')",
+                    s.getFullName(), s.getPhone(), s.getEmail(), s.getPickupAddress(), s.getDropoffAddress(), s.getNotes(),
+                    ContactKeys.phone(s.getPhone()), ContactKeys.email(s.getEmail()), s.getId(), fromTime);
+            search.indexAfterCommit(kept, s.getFullName(), s.getNotes(), s.getPickupAddress(), s.getDropoffAddress());
+        }
+
+        wanted.values().forEach(d -> batch.add(s, d));
+        if (s.isActive()) s.setMaterializedThrough(through);
+        return new int[] {updated, removed};
+    }
+
+    /**
+     * Copies {@code req} onto {@code s}; on a create every required field must be there, on an
+     * edit null keeps the current value. Returns whether a field copied onto bookings changed.
+     */
+    private boolean apply(RideSchedule s, ScheduleRequest req, boolean create) {
+        List<String> errors = new ArrayList<>();
+        String fullName = text(req.fullName(), s.getFullName(), "fullName", true, errors);
+        String phone = text(req.phone(), s.getPhone(), "phone", true, errors);
+        String email = text(req.email(), s.getEmail(), "email", false, errors);
+        String pickupAddress = text(req.pickupAddress(), s.getPickupAddress(), "pickupAddress", true, errors);
+        String dropoffAddress = text(req.dropoffAddress(), s.getDropoffAddress(), "dropoffAddress", true, errors);
+        String notes = text(req.notes(), s.getNotes(), "notes", false, errors);
+
+        ServiceType st = s.getServiceType();
+        if (req.serviceTypeId() != null) {
+            st = catalog.find(req.serviceTypeId()).orElse(null);
+            if (st == null) errors.add("serviceTypeId: not found");
+        } else if (create) {
+            errors.add("serviceTypeId: is required");
+        }
+        if (req.pickupTime() == null && create) errors.add("pickupTime: is required, e.g. 07:30");
+        Recurrence rule = null;
+        if (req.recurrence() != null || create) {
+            try {
+                rule = Recurrence.parse(req.recurrence());
+            } catch (IllegalArgumentException ex) {
+                errors.add(ex.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            errors.sort(null);
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+
+        boolean details = !Objects.equals(fullName, s.getFullName()) || !Objects.equals(phone, s.getPhone())
+                || !Objects.equals(email, s.getEmail()) || !Objects.equals(pickupAddress, s.getPickupAddress())
+                || !Objects.equals(dropoffAddress, s.getDropoffAddress()) || !Objects.equals(notes, s.getNotes());
+        s.setFullName(fullName);
+        s.setPhone(phone);
+        s.setEmail(email);
+        s.setPickupAddress(pickupAddress);
+        s.setDropoffAddress(dropoffAddress);
+        s.setNotes(notes);
+        s.setServiceType(st);
+        if (req.pickupTime() != null) s.setPickupLocalTime(req.pickupTime().withSecond(0).withNano(0));
+        if (req.startsOn() != null) {
+            s.setStartsOn(req.startsOn());
+        } else if (create) {
+            s.setStartsOn(today());
+        }
+        if (rule != null) s.setRecurrence(rule.toString());
+        if (req.excludedDates() != null) {
+            s.getExcludedDates().clear();
+            s.getExcludedDates().addAll(req.excludedDates());
+        }
+        if (req.active() != null) s.setActive(req.active());
+        s.setEndsOn(Recurrence.parse(s.getRecurrence()).last(s.getStartsOn()));
+        return details;
+    }
+
+    private static String text(String value, String current, String name, boolean required, List<String> errors) {
+        String v = value == null ? current : value.isBlank() ? null : value.trim();
+        if (required && v == null) errors.add(name + ": is required");
+        return v;
+    }
+
+    /** Occurrences of {@code s} in {@code [from, to]} minus its excluded dates. */
+    private static List<LocalDate> dates(RideSchedule s, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = Recurrence.parse(s.getRecurrence()).between(s.getStartsOn(), from, to);
+        if (!s.getExcludedDates().isEmpty()) dates.removeAll(s.getExcludedDates());
+        return dates;
+    }
+
+    private Instant pickup(RideSchedule s, LocalDate date) {
+        return pickup(date, s.getPickupLocalTime());
+    }
+
+    private Instant pickup(LocalDate date, LocalTime time) {
+        // a time skipped by a DST change moves to the same wall-clock time an hour later
+        return date.atTime(time).atZone(capacity.zone()).toInstant();
+    }
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        return b == null || a.isAfter(b) ? a : b;
+    }
+
+    /**
+     * New bookings of one transaction, each holding a vehicle. The vehicles are given back if the
+     * transaction does not commit, so create the batch inside it. Dates with no vehicle are written
+     * to ride_schedule_unbooked on {@link #save}; a {@code retry} batch does not count them again.
+     */
+    private final class Batch {
+        private final boolean retry;
+        private final List<Booking> bookings = new ArrayList<>();
+        private final List<SlotIndex.Span> spans = new ArrayList<>();
+        private final List<LocalDate> noVehicle = new ArrayList<>();
+        private final List<Object[]> unbooked = new ArrayList<>();
+
+        Batch(boolean retry) {
+            this.retry = retry;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) spans.forEach(capacity::release);
+                }
+            });
+        }
+
+        void add(RideSchedule s, LocalDate date) {
+            Instant pickup = pickup(s, date);
+            SlotIndex.Span span = capacity.reserve(s.getServiceType(), pickup);
+            if (span == null) {
+                unbooked(s.getId(), date);
+                return;
+            }
+            spans.add(span);
+            Booking b = new Booking();
+            b.setFullName(s.getFullName());
+            b.setPhone(s.getPhone());
+            b.setEmail(s.getEmail());
+            b.setPickupAddress(s.getPickupAddress());
+            b.setDropoffAddress(s.getDropoffAddress());
+            b.setPickupTime(pickup);
+            b.setNotes(s.getNotes());
+            b.setServiceType(s.getServiceType());
+            b.setScheduleId(s.getId());
+            bookings.add(b);
+        }
+
+        private void unbooked(long scheduleId, LocalDate date) {
+            noVehicle.add(date);
+            unbooked.add(new Object[] {scheduleId, date});
+            if (!retry) ScheduleService.this.noVehicle.increment();
+        }
+
+        int size() {
+            return bookings.size();
+        }
+
+        void save() {
+            if (!bookings.isEmpty()) saveBookings();
+            if (!unbooked.isEmpty()) {
+                jdbc.batchUpdate("insert into ride_schedule_unbooked (schedule_id, occurrence_on) values (?, ?)", unbooked);
+            }
+        }
+
+        private void saveBookings() {
+            List<Booking> saved = intakeService.saveBookings(bookings, null, null, null);
+            if (saved.size() < bookings.size()) {
+                // another node took these vehicles after the index showed them free
+                List<LocalDate> refused = new ArrayList<>();
+                List<SlotIndex.Span> kept = new ArrayList<>();
+                for (int i = 0, k = 0; i < bookings.size(); i++) {
+                    if (k < saved.size() && saved.get(k) == bookings.get(i)) {
+                        kept.add(spans.get(i));
+                        k++;
+                        continue;
+                    }
+                    capacity.release(spans.get(i));
+                    LocalDate date = LocalDate.ofInstant(bookings.get(i).getPickupTime(), capacity.zone());
+                    refused.add(date);
+                    unbooked(bookings.get(i).getScheduleId(), date);
+                }
+                log.warn("Recurring rides: no vehicle free on {} after all", refused);
+                spans.clear();
+                spans.addAll(kept);
+                bookings.clear();
+                bookings.addAll(saved);
+            }
+            booked.increment(bookings.size());
+        }
+    }
+}
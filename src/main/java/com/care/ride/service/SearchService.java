@@ -0,0 +1,281 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.Booking;
+import com.care.ride.domain.Contact;
+import com.care.ride.dto.BookingSummary;
+import com.care.ride.dto.ContactSummary;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dispatch search over contact-form submissions and bookings: free text, the caller's phone or
+ * email, or any combination (all given criteria must match). Phone and email are compared as
+ * {@link com.care.ride.domain.ContactKeys} against the indexed phone_key / email_key columns (V11),
+ * so a lookup by caller is an index read however the number was typed.
+ *
+ * On Postgres the text goes to {@code websearch_to_tsquery} (quotes, {@code or} and {@code -word}
+ * work; words are stemmed) against the trigger-maintained search_vector. Elsewhere, which in
+ * practice means H2 in the local profile, words are matched through an in-process {@link TermIndex}
+ * per table, loaded at startup and fed by {@link IntakeService} after each commit; candidate ids are
+ * then read back from the database in batches with the other criteria applied.
+ *
+ * Results come newest first (by id) and are keyset-paginated: {@code nextCursor} is the last id
+ * returned. Rows are written to the response as they are read instead of being collected into a
+ * page first; the read-only transaction (routed to a replica when there is one) and the db bulkhead
+ * permit are held until the page is written.
+ */
+@Service
+public class SearchService implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(SearchService.class);
+
+    /** Criteria of one page; {@code text}, {@code phoneKey} and {@code emailKey} may be null. */
+    public record Query(String text, String phoneKey, String emailKey, long before, int limit) {}
+
+    private record Target(String type, String table, String columns, TermIndex words, RowMapper<?> row, Timer timer) {}
+
+    private static final String CONTACT_COLUMNS = "id, created_at, name, email, phone, reason, message";
+    private static final String BOOKING_COLUMNS =
+            "id, status, pickup_time, service_type_id, full_name, phone, email, pickup_address, dropoff_address, notes, schedule_id";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnly;
+    private final Bulkhead dbBulkhead;
+    private final ObjectMapper mapper;
+    private final MeterRegistry registry;
+
+    @Value("${dispatch.search.dense-matches:1000}")
+    private int denseMatches;
+
+    @Value("${dispatch.search.fallback-batch:500}")
+    private int fallbackBatch;
+
+    private boolean postgres;
+    private Target contacts;
+    private Target bookings;
+
+    public SearchService(JdbcTemplate jdbc, PlatformTransactionManager txManager, @Qualifier("dbBulkhead") Bulkhead dbBulkhead,
+                         ObjectMapper mapper, MeterRegistry registry) {
+        this.jdbc = jdbc;
+        this.readOnly = new TransactionTemplate(txManager);
+        this.readOnly.setReadOnly(true);
+        this.dbBulkhead = dbBulkhead;
+        this.mapper = mapper;
+        this.registry = registry;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        postgres = "PostgreSQL".equals(jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName()));
+        contacts = target("contacts", "contacts", CONTACT_COLUMNS, (rs, i) -> new ContactSummary(rs.getLong(1),
+                rs.getObject(2, LocalDateTime.class), rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6),
+                rs.getString(7)));
+        bookings = target("bookings", "booking", BOOKING_COLUMNS, (rs, i) -> new BookingSummary(rs.getLong(1),
+                rs.getString(2), rs.getObject(3, OffsetDateTime.class).toInstant(), rs.getInt(4), rs.getString(5),
+                rs.getString(6), rs.getString(7), rs.getString(8), rs.getString(9), rs.getString(10),
+                rs.getObject(11, Long.class)));
+        if (postgres) return;
+
+        long start = System.nanoTime();
+        int[] rows = {0};
+        jdbc.query("select id, name, reason, message from contacts order by id", rs -> {
+            contacts.words().add(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4));
+            rows[0]++;
+        });
+        jdbc.query("select id, full_name, notes, pickup_address, dropoff_address from booking order by id", rs -> {
+            bookings.words().add(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5));
+            rows[0]++;
+        });
+        log.info("Search fallback index loaded rows={} words={} in {} ms", rows[0],
+                contacts.words().wordCount() + bookings.words().wordCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Target target(String type, String table, String columns, RowMapper<?> row) {
+        Timer timer = Timer.builder("dispatch.search")
+                .description("One search page, query and streaming the response")
+                .tag("type", type)
+                .tag("backend", postgres ? "tsvector" : "memory")
+                .register(registry);
+        return new Target(type, table, columns, postgres ? null : new TermIndex(), row, timer);
+    }
+
+    public void writeContacts(Query query, OutputStream out) throws IOException {
+        write(contacts, query, out);
+    }
+
+    public void writeBookings(Query query, OutputStream out) throws IOException {
+        write(bookings, query, out);
+    }
+
+    /** Make a new contact findable by text once its transaction commits (fallback index only). */
+    public void indexAfterCommit(Contact c) {
+        if (postgres) return;
+        afterCommit(() -> contacts.words().add(c.getId(), c.getName(), c.getReason(), c.getMessage()));
+    }
+
+    /** Make new bookings findable by text once their transaction commits (fallback index only). */
+    public void indexAfterCommit(List<Booking> saved) {
+        if (postgres) return;
+        afterCommit(() -> {
+            for (Booking b : saved) {
+                bookings.words().add(b.getId(), b.getFullName(), b.getNotes(), b.getPickupAddress(), b.getDropoffAddress());
+            }
+        });
+    }
+
+    /** Make bookings changed by one bulk update findable by their new text (fallback index only). */
+    public void indexAfterCommit(List<Long> ids, String fullName, String notes, String pickupAddress, String dropoffAddress) {
+        if (postgres || ids.isEmpty()) return;
+        afterCommit(() -> {
+            for (Long id : ids) {
+                bookings.words().add(id, fullName, notes, pickupAddress, dropoffAddress);
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable work) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    work.run();
+                }
+            });
+        } else {
+            work.run();
+        }
+    }
+
+    /** {@code {"items":[...],"nextCursor":...}}, one row at a time, for at most {@code limit} rows. */
+    private void write(Target t, Query q, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start(registry);
+        JsonGenerator gen = mapper.getFactory().createGenerator(out);
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("items");
+        // one extra row tells us whether another page exists without a count query
+        long[] seen = {0, 0};
+        try {
+            dbBulkhead.run(() -> readOnly.executeWithoutResult(s -> query(t, q, rs -> {
+                if (seen[0]++ >= q.limit()) return;
+                seen[1] = rs.getLong(1);
+                try {
+                    gen.writeObject(t.row().mapRow(rs, (int) seen[0]));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            })));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            sample.stop(t.timer());
+        }
+        gen.writeEndArray();
+        if (seen[0] > q.limit()) {
+            gen.writeStringField("nextCursor", Long.toString(seen[1]));
+        } else {
+            gen.writeNullField("nextCursor");
+        }
+        gen.writeEndObject();
+        gen.flush();
+    }
+
+    private void query(Target t, Query q, RowCallbackHandler rows) {
+        int wanted = q.limit() + 1;
+        List<Object> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder(" where 1 = 1");
+        if (q.phoneKey() != null) {
+            where.append(" and phone_key = ?");
+            args.add(q.phoneKey());
+        }
+        if (q.emailKey() != null) {
+            where.append(" and email_key = ?");
+            args.add(q.emailKey());
+        }
+        if (q.text() == null) {
+            page(t, where, args, q.before(), wanted, false, rows);
+        } else if (postgres) {
+            where.append(" and search_vector @@ websearch_to_tsquery('english', ?)");
+            args.add(q.text());
+            // a caller key is selective on its own and its index already yields id order
+            boolean sparse = q.phoneKey() == null && q.emailKey() == null && sparse(t, where, args, q.before());
+            page(t, where, args, q.before(), wanted, sparse, rows);
+        } else {
+            fallback(t, where, args, q, wanted, rows);
+        }
+    }
+
+    /**
+     * Postgres has no statistics for words it has not sampled and guesses them at about 0.5% of
+     * rows, so for a rare word it walks the primary key backwards filtering every row (seconds on
+     * a million rows) where the GIN index would answer at once; a common word is the other way
+     * round. Counting at most {@code dense-matches} hits through the GIN index settles which case
+     * this is for a few milliseconds.
+     */
+    private boolean sparse(Target t, StringBuilder where, List<Object> args, long before) {
+        List<Object> all = new ArrayList<>(args);
+        all.add(before);
+        all.add(denseMatches);
+        Integer hits = jdbc.queryForObject("select count(*) from (select 1 from " + t.table() + where
+                + " and id < ? limit ?) probe", Integer.class, all.toArray());
+        return hits != null && hits < denseMatches;
+    }
+
+    /** With {@code sparse}, every match is fetched through the GIN index and only then ordered. */
+    private void page(Target t, StringBuilder where, List<Object> args, long before, int wanted, boolean sparse,
+                      RowCallbackHandler rows) {
+        List<Object> all = new ArrayList<>(args);
+        all.add(before);
+        all.add(wanted);
+        String select = "select " + t.columns() + " from " + t.table() + where + " and id < ?";
+        jdbc.query(sparse ? "with hits as materialized (" + select + ") select * from hits order by id desc limit ?"
+                : select + " order by id desc limit ?", rows, all.toArray());
+    }
+
+    /** Text matches from the term index, newest first, filtered and read back a batch at a time. */
+    private void fallback(Target t, StringBuilder where, List<Object> args, Query q, int wanted, RowCallbackHandler rows) {
+        Set<String> words = TermIndex.words(q.text());
+        int[] found = {0};
+        long before = q.before();
+        while (found[0] < wanted) {
+            long[] ids = t.words().match(words, before, fallbackBatch);
+            if (ids.length == 0) return;
+            StringBuilder sql = new StringBuilder("select ").append(t.columns()).append(" from ").append(t.table())
+                    .append(where).append(" and id in (");
+            List<Object> all = new ArrayList<>(args);
+            for (int i = 0; i < ids.length; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+                all.add(ids[i]);
+            }
+            sql.append(") order by id desc");
+            jdbc.query(sql.toString(), rs -> {
+                if (found[0]++ < wanted) rows.processRow(rs);
+            }, all.toArray());
+            if (ids.length < fallbackBatch) return;
+            before = ids[ids.length - 1];
+        }
+    }
+}
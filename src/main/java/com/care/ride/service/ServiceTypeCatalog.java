@@ -0,0 +1,162 @@
+package com.care.ride.service;
+
+import com.care.ride.domain.ServiceType;
+import com.care.ride.dto.ServiceTypeView;
+import com.care.ride.repo.ServiceTypeRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-memory copy of the service_type table. The table is tiny and almost never written, so reads
+ * are served from an immutable snapshot; writes through ServiceTypeRepo invalidate it (after
+ * commit) via {@link com.care.ride.domain.ServiceTypeChangeListener}, and a slow periodic refresh
+ * picks up rows changed directly in SQL. Every invalidation bumps a generation counter, and a reload
+ * that read its rows before the latest invalidation does not publish them, so a slow reload cannot
+ * put back a snapshot that a commit has already replaced.
+ *
+ * Entities held here are detached and shared between threads: treat them as read-only.
+ *
+ * Each snapshot also carries the /api/services body already encoded as JSON, and gzip'd when that
+ * is smaller, so the endpoint writes bytes instead of serializing the list on every request.
+ */
+@Service
+public class ServiceTypeCatalog {
+    private static final Logger log = LoggerFactory.getLogger(ServiceTypeCatalog.class);
+
+    /** {@code gzip} is null when compressing would not make the body smaller. */
+    public record Snapshot(List<ServiceType> all, Map<Integer, ServiceType> byId, String etag, byte[] json, byte[] gzip) {
+
+        /** The gzip'd body is a different representation, so it gets its own ETag. */
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gz\"";
+        }
+    }
+
+    private final ServiceTypeRepo repo;
+    private final ObjectMapper mapper;
+    private volatile Snapshot snapshot;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ServiceTypeCatalog(ServiceTypeRepo repo, ObjectMapper mapper) {
+        this.repo = repo;
+        this.mapper = mapper;
+    }
+
+    public Snapshot snapshot() {
+        Snapshot s = snapshot;
+        return s != null ? s : reload();
+    }
+
+    public List<ServiceType> all() {
+        return snapshot().all();
+    }
+
+    public Optional<ServiceType> find(Integer id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(snapshot().byId().get(id));
+    }
+
+    public synchronized Snapshot reload() {
+        long gen = generation.get();
+        List<ServiceType> rows = List.copyOf(repo.findAll());
+        Map<Integer, ServiceType> byId = rows.stream()
+                .collect(Collectors.toUnmodifiableMap(ServiceType::getId, Function.identity()));
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(rows.stream().map(ServiceTypeView::of).toList());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+        byte[] gzip = gzip(json);
+        Snapshot s = new Snapshot(rows, byId, etag(rows), json, gzip.length < json.length ? gzip : null);
+        if (generation.get() != gen) {
+            // invalidated while we were reading: hand these rows to this caller only
+            log.debug("ServiceType catalog reload superseded, not publishing etag={}", s.etag());
+            return s;
+        }
+        snapshot = s;
+        // an invalidate() that bumped the generation after the check above may have cleared the
+        // field before we set it; clear it again so its commit is not hidden by our older rows
+        if (generation.get() != gen) snapshot = null;
+        log.debug("ServiceType catalog loaded size={} etag={}", rows.size(), s.etag());
+        return s;
+    }
+
+    /** Drop the snapshot once the current transaction commits (immediately when there is none). */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drop();
+                }
+            });
+        } else {
+            drop();
+        }
+    }
+
+    private void drop() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.refresh-interval-ms:600000}", initialDelayString = "${catalog.refresh-interval-ms:600000}")
+    public void periodicRefresh() {
+        try {
+            reload();
+        } catch (Exception ex) {
+            log.warn("ServiceType catalog refresh failed, keeping previous snapshot: {}", ex.getMessage());
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(List<ServiceType> rows) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (ServiceType st : rows) {
+                md.update((st.getId() + "\u0000" + st.getName() + "\u0000" + st.getDescription() + "\u0000" + st.getVehicleCount()
+                        + "\u0000" + st.getTripMinutes() + "\u0001").getBytes(StandardCharsets.UTF_8));
+            }
+            return "\"" + HexFormat.of().formatHex(md.digest(), 0, 12) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
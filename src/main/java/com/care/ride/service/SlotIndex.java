@@ -0,0 +1,128 @@
+package com.care.ride.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Booked-vehicle counts per resource (a ServiceType id) on a grid of fixed-length time slots.
+ * A booking occupies the half-open slot range {@link Span} covering its trip; a reservation
+ * succeeds only if every slot in the range is below capacity.
+ *
+ * Slots live in blocks of {@value #BLOCK_SLOTS}; each block has its own lock, and a reservation
+ * takes the (one or two) locks of the blocks it touches in ascending order, so bookings on
+ * different days or for different vehicle types never contend. Reads are lock-free.
+ */
+public class SlotIndex {
+    public static final int BLOCK_SLOTS = 96;
+
+    /** Slots [{@code first}, {@code end}) of resource {@code key}. */
+    public record Span(int key, long first, long end) {}
+
+    private static final class Block {
+        final AtomicIntegerArray used = new AtomicIntegerArray(BLOCK_SLOTS);
+        final ReentrantLock lock = new ReentrantLock();
+    }
+
+    private final long slotSeconds;
+    private final Map<Integer, Map<Long, Block>> blocks = new ConcurrentHashMap<>();
+
+    public SlotIndex(Duration slot) {
+        if (slot.getSeconds() < 60) throw new IllegalArgumentException("slot must be at least one minute");
+        this.slotSeconds = slot.getSeconds();
+    }
+
+    public Duration slotLength() {
+        return Duration.ofSeconds(slotSeconds);
+    }
+
+    public long slotOf(Instant t) {
+        return Math.floorDiv(t.getEpochSecond(), slotSeconds);
+    }
+
+    public Instant startOf(long slot) {
+        return Instant.ofEpochSecond(slot * slotSeconds);
+    }
+
+    /** Slots touched by a trip of {@code length} starting at {@code start} (at least one). */
+    public Span span(int key, Instant start, Duration length) {
+        long first = slotOf(start);
+        long endSecond = start.getEpochSecond() + Math.max(1, length.getSeconds());
+        long end = Math.max(first + 1, Math.floorDiv(endSecond + slotSeconds - 1, slotSeconds));
+        return new Span(key, first, end);
+    }
+
+    /**
+     * Book {@code span} if no slot in it already holds {@code capacity} bookings; a null capacity
+     * means unlimited (the booking is still counted). Returns false, changing nothing, when full.
+     */
+    public boolean tryReserve(Span span, Integer capacity) {
+        long firstBlock = Math.floorDiv(span.first(), BLOCK_SLOTS);
+        long lastBlock = Math.floorDiv(span.end() - 1, BLOCK_SLOTS);
+        Map<Long, Block> byBlock = blocks.computeIfAbsent(span.key(), k -> new ConcurrentHashMap<>());
+        Block[] locked = new Block[(int) (lastBlock - firstBlock + 1)];
+        try {
+            for (int i = 0; i < locked.length; i++) {
+                Block b = byBlock.computeIfAbsent(firstBlock + i, n -> new Block());
+                b.lock.lock();
+                locked[i] = b;
+            }
+            if (capacity != null) {
+                for (long s = span.first(); s < span.end(); s++) {
+                    if (locked[(int) (Math.floorDiv(s, BLOCK_SLOTS) - firstBlock)].used.get((int) Math.floorMod(s, BLOCK_SLOTS)) >= capacity) {
+                        return false;
+                    }
+                }
+            }
+            for (long s = span.first(); s < span.end(); s++) {
+                locked[(int) (Math.floorDiv(s, BLOCK_SLOTS) - firstBlock)].used.incrementAndGet((int) Math.floorMod(s, BLOCK_SLOTS));
+            }
+            return true;
+        } finally {
+            for (Block b : locked) {
+                if (b != null) b.lock.unlock();
+            }
+        }
+    }
+
+    /** Undo a successful {@link #tryReserve}. */
+    public void release(Span span) {
+        Map<Long, Block> byBlock = blocks.get(span.key());
+        if (byBlock == null) return;
+        for (long s = span.first(); s < span.end(); s++) {
+            Block b = byBlock.get(Math.floorDiv(s, BLOCK_SLOTS));
+            if (b != null) b.used.updateAndGet((int) Math.floorMod(s, BLOCK_SLOTS), n -> Math.max(0, n - 1));
+        }
+    }
+
+    /** Booked counts of slots [{@code first}, {@code first + out.length}) for {@code key}. */
+    public void usedInto(int key, long first, int[] out) {
+        Map<Long, Block> byBlock = blocks.get(key);
+        Block b = null;
+        long bn = Long.MIN_VALUE;
+        for (int i = 0; i < out.length; i++) {
+            long s = first + i;
+            long n = Math.floorDiv(s, BLOCK_SLOTS);
+            if (n != bn) {
+                bn = n;
+                b = byBlock == null ? null : byBlock.get(n);
+            }
+            out[i] = b == null ? 0 : b.used.get((int) Math.floorMod(s, BLOCK_SLOTS));
+        }
+    }
+
+    /** Forget blocks that end before {@code slot}; they can no longer be booked against. */
+    public void pruneBefore(long slot) {
+        long block = Math.floorDiv(slot, BLOCK_SLOTS);
+        for (Map<Long, Block> byBlock : blocks.values()) {
+            byBlock.keySet().removeIf(n -> n < block);
+        }
+    }
+
+    public int blockCount() {
+        return blocks.values().stream().mapToInt(Map::size).sum();
+    }
+}
@@ -0,0 +1,118 @@
+package com.care.ride.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Keeps authenticated SMTP connections open between sends, one idle deque per transport route.
+ * Connections idle longer than {@code mail.smtp.pool.validate-after-ms} are checked with NOOP
+ * before reuse; those idle past {@code mail.smtp.pool.idle-timeout-ms} are closed by the evictor.
+ */
+@Component
+public class SmtpTransportPool {
+    private static final Logger log = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    /** Opens and authenticates a new transport for a route. */
+    @FunctionalInterface
+    interface Connector {
+        Transport connect() throws MessagingException;
+    }
+
+    static final class Pooled {
+        final String route;
+        final Transport transport;
+        long lastUsed = System.currentTimeMillis();
+        int uses;
+
+        Pooled(String route, Transport transport) {
+            this.route = route;
+            this.transport = transport;
+        }
+    }
+
+    private final Map<String, Deque<Pooled>> idle = new ConcurrentHashMap<>();
+
+    @Value("${mail.smtp.pool.max-idle-per-route:2}")
+    private int maxIdlePerRoute;
+
+    @Value("${mail.smtp.pool.idle-timeout-ms:60000}")
+    private long idleTimeoutMs;
+
+    @Value("${mail.smtp.pool.validate-after-ms:5000}")
+    private long validateAfterMs;
+
+    Pooled borrow(String route, Connector connector) throws MessagingException {
+        Deque<Pooled> deque = idle.get(route);
+        Pooled p;
+        while (deque != null && (p = deque.pollFirst()) != null) {
+            long idleFor = System.currentTimeMillis() - p.lastUsed;
+            // SMTPTransport.isConnected() issues a NOOP, so only pay for it on connections that sat idle
+            if (idleFor < idleTimeoutMs && (idleFor < validateAfterMs || p.transport.isConnected())) {
+                return p;
+            }
+            close(p);
+        }
+        return new Pooled(route, connector.connect());
+    }
+
+    void release(Pooled p) {
+        p.lastUsed = System.currentTimeMillis();
+        p.uses++;
+        Deque<Pooled> deque = idle.computeIfAbsent(p.route, k -> new ConcurrentLinkedDeque<>());
+        if (deque.size() < maxIdlePerRoute) {
+            deque.offerFirst(p);
+        } else {
+            close(p);
+        }
+    }
+
+    void discard(Pooled p) {
+        close(p);
+    }
+
+    int idleCount() {
+        return idle.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${mail.smtp.pool.evict-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (Deque<Pooled> deque : idle.values()) {
+            Iterator<Pooled> it = deque.iterator();
+            while (it.hasNext()) {
+                Pooled p = it.next();
+                if (now - p.lastUsed >= idleTimeoutMs && deque.remove(p)) {
+                    close(p);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        idle.values().forEach(deque -> {
+            Pooled p;
+            while ((p = deque.pollFirst()) != null) close(p);
+        });
+    }
+
+    private void close(Pooled p) {
+        try {
+            p.transport.close();
+        } catch (MessagingException ex) {
+            log.debug("Closing pooled SMTP transport for {} failed: {}", p.route, ex.getMessage());
+        }
+    }
+}
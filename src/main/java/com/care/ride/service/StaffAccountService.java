@@ -0,0 +1,178 @@
+package com.care.ride.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Staff accounts of the dispatch/admin API (staff_user, V12) and the token revocations that go
+ * with them (staff_token_revocation). Serves Spring Security's login as a UserDetailsService; when
+ * a stored hash has a lower BCrypt cost than {@code staff.bcrypt-strength}, the password is re-hashed
+ * at the new cost on the next successful login.
+ *
+ * Revocations are written here and pushed to {@link StaffTokenService} at once for this instance;
+ * other instances pick them up on the next refresh ({@code jwt.revocation-refresh-ms}).
+ *
+ * The first account comes from {@code staff.bootstrap-admin} ({@code username:password}), which is
+ * only used while the table is empty.
+ */
+@Service
+public class StaffAccountService implements UserDetailsService, UserDetailsPasswordService, SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(StaffAccountService.class);
+
+    public static final Set<String> ROLES = Set.of("DISPATCH", "ADMIN");
+
+    /** An account without its password hash. */
+    public record Account(String username, List<String> roles, boolean enabled) {}
+
+    private final JdbcTemplate jdbc;
+    private final PasswordEncoder passwordEncoder;
+    private final StaffTokenService tokens;
+
+    @Value("${staff.bootstrap-admin:}")
+    private String bootstrapAdmin;
+
+    public StaffAccountService(JdbcTemplate jdbc, PasswordEncoder passwordEncoder, StaffTokenService tokens) {
+        this.jdbc = jdbc;
+        this.passwordEncoder = passwordEncoder;
+        this.tokens = tokens;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!bootstrapAdmin.isBlank()) {
+            String[] up = bootstrapAdmin.split(":", 2);
+            Integer count = jdbc.queryForObject("select count(*) from staff_user", Integer.class);
+            if (up.length == 2 && count != null && count == 0) {
+                save(up[0].trim(), up[1], List.of("ADMIN", "DISPATCH"), true);
+                log.info("Created bootstrap staff account {}", up[0].trim());
+            }
+        }
+        refreshRevocations();
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) {
+        List<UserDetails> found = jdbc.query("select username, password_hash, roles, enabled from staff_user where username = ?",
+                (rs, i) -> User.withUsername(rs.getString(1))
+                        .password(rs.getString(2))
+                        .roles(roles(rs.getString(3)).toArray(String[]::new))
+                        .disabled(!rs.getBoolean(4))
+                        .build(),
+                normalise(username));
+        if (found.isEmpty()) throw new UsernameNotFoundException("no staff account " + username);
+        return found.get(0);
+    }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        jdbc.update("update staff_user set password_hash = ?, updated_at = ? where username = ?",
+                newPassword, Timestamp.from(Instant.now()), user.getUsername());
+        log.info("Re-hashed password of staff account {} at the configured BCrypt cost", user.getUsername());
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+
+    public Optional<Account> find(String username) {
+        return jdbc.query("select username, roles, enabled from staff_user where username = ?",
+                (rs, i) -> new Account(rs.getString(1), roles(rs.getString(2)), rs.getBoolean(3)), normalise(username))
+                .stream().findFirst();
+    }
+
+    /**
+     * Create or update an account. A null {@code password}, {@code roles} or {@code enabled} keeps
+     * the current value (all three are required for a new account). Changing the password or the
+     * roles, or disabling the account, ends every token issued so far: tokens carry their roles.
+     */
+    @Transactional
+    public Account save(String username, String password, List<String> roles, Boolean enabled) {
+        String name = normalise(username);
+        Optional<Account> current = find(name);
+        if (current.isEmpty() && (password == null || roles == null)) {
+            throw new IllegalArgumentException("a new account needs a password and roles");
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        String hash = password == null ? null : passwordEncoder.encode(password);
+        String roleList = roles == null ? null : String.join(",", roles);
+        if (current.isEmpty()) {
+            jdbc.update("insert into staff_user (username, password_hash, roles, enabled, created_at, updated_at) values (?, ?, ?, ?, ?, ?)",
+                    name, hash, roleList, enabled == null || enabled, now, now);
+        } else {
+            jdbc.update("update staff_user set password_hash = coalesce(?, password_hash), roles = coalesce(?, roles), "
+                    + "enabled = coalesce(?, enabled), updated_at = ? where username = ?", hash, roleList, enabled, now, name);
+            boolean rolesChanged = roles != null && !Set.copyOf(roles(roleList)).equals(Set.copyOf(current.get().roles()));
+            if (password != null || rolesChanged || Boolean.FALSE.equals(enabled)) revokeAll(name);
+        }
+        refreshRevocations();
+        return find(name).orElseThrow();
+    }
+
+    /** Refuse every token of {@code username} issued up to now. */
+    @Transactional
+    public void revokeAll(String username) {
+        // rounded up: a token carries its issue time in whole seconds
+        long cutoff = Instant.now().getEpochSecond() + 1;
+        jdbc.update("update staff_user set tokens_valid_after = ? where username = ?",
+                Timestamp.from(Instant.ofEpochSecond(cutoff)), normalise(username));
+        tokens.refuseIssuedBefore(normalise(username), cutoff);
+    }
+
+    /** Refuse one token (logout). */
+    public void revoke(StaffTokenService.StaffPrincipal principal) {
+        jdbc.update("insert into staff_token_revocation (jti, username, expires_at) values (?, ?, ?)",
+                principal.tokenId(), principal.username(), Timestamp.from(Instant.ofEpochSecond(principal.expiresAt())));
+        tokens.revoke(principal.tokenId(), principal.expiresAt());
+    }
+
+    /** Reload revocations written by any instance and drop the ones that have expired. */
+    @Scheduled(fixedDelayString = "${jwt.revocation-refresh-ms:10000}", initialDelayString = "${jwt.revocation-refresh-ms:10000}")
+    public void refreshRevocations() {
+        try {
+            Timestamp now = Timestamp.from(Instant.now());
+            jdbc.update("delete from staff_token_revocation where expires_at < ?", now);
+            Map<String, Long> revoked = new HashMap<>();
+            jdbc.query("select jti, expires_at from staff_token_revocation",
+                    rs -> { revoked.put(rs.getString(1), rs.getTimestamp(2).toInstant().getEpochSecond()); });
+            Map<String, Long> validAfter = new HashMap<>();
+            jdbc.query("select username, enabled, tokens_valid_after from staff_user", rs -> {
+                Timestamp after = rs.getTimestamp(3);
+                if (!rs.getBoolean(2)) {
+                    validAfter.put(rs.getString(1), Long.MAX_VALUE);
+                } else if (after != null) {
+                    validAfter.put(rs.getString(1), after.toInstant().getEpochSecond());
+                }
+            });
+            tokens.replaceRevocations(revoked, validAfter);
+        } catch (Exception ex) {
+            log.warn("Staff token revocation refresh failed: {}", ex.getMessage());
+        }
+    }
+
+    public static String normalise(String username) {
+        return username == null ? null : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> roles(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).filter(r -> !r.isEmpty()).toList();
+    }
+}
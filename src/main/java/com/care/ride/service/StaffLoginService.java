@@ -0,0 +1,103 @@
+package com.care.ride.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Password login for staff. A BCrypt check is deliberately slow (about 0.36 s of CPU at cost 12 on one core, see StaffAuthBenchmark),
+ * so before one is run the attempt has to pass a per-client-IP and a per-username token bucket
+ * ({@code staff.login.per-ip}, {@code per-user}), and then get one of the few {@code loginBulkhead}
+ * permits; past that the caller is told to come back rather than queued. Unknown usernames cost a
+ * BCrypt check as well, so response time does not tell which accounts exist.
+ */
+@Service
+public class StaffLoginService {
+    private static final Logger log = LoggerFactory.getLogger(StaffLoginService.class);
+
+    public sealed interface Outcome permits LoggedIn, BadCredentials, Throttled, Busy, Disabled {}
+
+    public record LoggedIn(StaffTokenService.Issued issued) implements Outcome {}
+
+    public record BadCredentials() implements Outcome {}
+
+    /** Too many attempts from this address or for this account; retry after {@code waitNanos}. */
+    public record Throttled(long waitNanos) implements Outcome {}
+
+    /** Every BCrypt permit is taken. */
+    public record Busy() implements Outcome {}
+
+    /** No signing key configured. */
+    public record Disabled() implements Outcome {}
+
+    private final AuthenticationManager authenticationManager;
+    private final StaffTokenService tokens;
+    private final Bulkhead loginBulkhead;
+    private final RateLimiter perIp;
+    private final RateLimiter perUser;
+    private final MeterRegistry registry;
+
+    public StaffLoginService(@Qualifier("staffAuthenticationManager") AuthenticationManager authenticationManager,
+                             StaffTokenService tokens, @Qualifier("loginBulkhead") Bulkhead loginBulkhead, MeterRegistry registry,
+                             @Value("${staff.login.per-ip:10/1m}") String perIp,
+                             @Value("${staff.login.per-user:5/5m}") String perUser) {
+        this.authenticationManager = authenticationManager;
+        this.tokens = tokens;
+        this.loginBulkhead = loginBulkhead;
+        this.perIp = RateLimiter.parse("staff.login.per-ip", perIp);
+        this.perUser = RateLimiter.parse("staff.login.per-user", perUser);
+        this.registry = registry;
+    }
+
+    public Outcome login(String username, String password, String clientIp) {
+        if (!tokens.enabled()) return new Disabled();
+        Timer.Sample sample = Timer.start(registry);
+        Outcome outcome = attempt(StaffAccountService.normalise(username), password, clientIp);
+        sample.stop(Timer.builder("staff.login")
+                .description("Staff password login, throttling and BCrypt check included")
+                .tag("result", outcome.getClass().getSimpleName())
+                .register(registry));
+        return outcome;
+    }
+
+    private Outcome attempt(String username, String password, String clientIp) {
+        long wait = perIp.tryAcquire(clientIp);
+        if (wait == 0) wait = perUser.tryAcquire(username);
+        if (wait > 0) return new Throttled(wait);
+        Authentication auth;
+        try {
+            auth = loginBulkhead.call(() -> authenticationManager.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(username, password)));
+        } catch (Bulkhead.FullException ex) {
+            return new Busy();
+        } catch (AuthenticationException ex) {
+            log.info("Staff login refused for {} from {}: {}", username, clientIp, ex.getClass().getSimpleName());
+            return new BadCredentials();
+        }
+        List<String> roles = auth.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(a -> a.startsWith("ROLE_"))
+                .map(a -> a.substring(5))
+                .toList();
+        log.info("Staff login {} from {}", username, clientIp);
+        return new LoggedIn(tokens.issue(auth.getName(), roles));
+    }
+
+    @Scheduled(fixedDelayString = "${intake.rate-limit.idle-sweep-ms:60000}")
+    public void evictIdle() {
+        perIp.evictIdle();
+        perUser.evictIdle();
+    }
+}
@@ -0,0 +1,279 @@
+package com.care.ride.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and checks the HS256 bearer tokens of the staff API. Checking a token means base64 and
+ * JSON decoding plus an HMAC, so verified tokens are cached by the SHA-256 of the token text (the
+ * token itself is not kept) until they expire; a hit costs the hash and three map lookups. The
+ * cache is capped at {@code jwt.cache.max-entries}, entries closest to expiry dropped first.
+ *
+ * Keys come from {@code jwt.keys} as {@code kid:secret,...}: the first one signs, all of them
+ * verify, and tokens name their key in the {@code kid} header. Rotate by putting a new key first
+ * and removing the old one once {@code jwt.ttl-minutes} has passed. With no keys, {@code jwt.secret}
+ * is the single key "default"; without a usable secret (32+ bytes) staff login is off.
+ *
+ * Revocation is checked on every request, cached or not: single tokens by id (logout) and all of
+ * a user's tokens issued before a point in time (password change, disabled account). Both sets
+ * are fed by {@link StaffAccountService}.
+ */
+@Service
+public class StaffTokenService {
+    private static final Logger log = LoggerFactory.getLogger(StaffTokenService.class);
+    private static final String ROLES_CLAIM = "roles";
+
+    /** A verified token: who, with which authorities, and the token's id and lifetime (epoch seconds). */
+    public record StaffPrincipal(String username, List<GrantedAuthority> authorities, String tokenId, long issuedAt,
+                                 long expiresAt) {}
+
+    public record Issued(String token, Instant expiresAt, StaffPrincipal principal) {}
+
+    private record TokenHash(long a, long b, long c, long d) {}
+
+    private final Map<String, SecretKey> keys = new LinkedHashMap<>();
+    private final String signingKid;
+    private final String issuer;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final JwtParser parser;
+    private final MessageDigest sha256;
+
+    private final Map<TokenHash, StaffPrincipal> verified = new ConcurrentHashMap<>();
+    // token id -> expiry (epoch s), and username -> epoch s before which tokens are refused
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private volatile Map<String, Long> validAfter = Map.of();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter rejected;
+
+    public StaffTokenService(@Value("${jwt.keys:}") String keySpec,
+                             @Value("${jwt.secret:}") String secret,
+                             @Value("${jwt.issuer:care-ride}") String issuer,
+                             @Value("${jwt.ttl-minutes:60}") long ttlMinutes,
+                             @Value("${jwt.cache.max-entries:10000}") int maxEntries,
+                             MeterRegistry registry) {
+        if (!keySpec.isBlank()) {
+            for (String entry : keySpec.split(",")) {
+                String[] kv = entry.trim().split(":", 2);
+                if (kv.length != 2 || kv[0].isBlank()) throw new IllegalStateException("jwt.keys: expected kid:secret, got " + kv[0]);
+                keys.put(kv[0].trim(), key("jwt.keys " + kv[0].trim(), kv[1]));
+            }
+        } else if (secret.getBytes(StandardCharsets.UTF_8).length >= 32) {
+            keys.put("default", key("jwt.secret", secret));
+        } else {
+            log.warn("Staff login disabled: set jwt.keys or a jwt.secret of at least 32 bytes");
+        }
+        this.signingKid = keys.isEmpty() ? null : keys.keySet().iterator().next();
+        this.issuer = issuer;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.maxEntries = maxEntries;
+        this.parser = Jwts.parserBuilder()
+                .requireIssuer(issuer)
+                .setAllowedClockSkewSeconds(30)
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        SecretKey k = header.getKeyId() == null ? null : keys.get(header.getKeyId());
+                        if (k == null) throw new JwtException("unknown key id " + header.getKeyId());
+                        return k;
+                    }
+                })
+                .build();
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        this.hits = counter(registry, "hit");
+        this.misses = counter(registry, "verified");
+        this.rejected = counter(registry, "rejected");
+        Gauge.builder("staff.auth.cache.size", verified, Map::size)
+                .description("Verified staff tokens held in the cache")
+                .register(registry);
+    }
+
+    private static SecretKey key(String name, String secret) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) throw new IllegalStateException(name + " must be at least 32 bytes for HS256");
+        return Keys.hmacShaKeyFor(bytes);
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("staff.auth.tokens")
+                .description("Bearer tokens checked: cache hit, verified (cache miss) or rejected")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public boolean enabled() {
+        return signingKid != null;
+    }
+
+    /** A new token for {@code username} carrying {@code roles} (without the ROLE_ prefix). */
+    public Issued issue(String username, List<String> roles) {
+        if (!enabled()) throw new IllegalStateException("no JWT signing key configured");
+        Instant now = Instant.now();
+        Instant expires = now.plus(ttl);
+        String id = UUID.randomUUID().toString();
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKid)
+                .setIssuer(issuer)
+                .setSubject(username)
+                .setId(id)
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(expires))
+                .claim(ROLES_CLAIM, roles)
+                .signWith(keys.get(signingKid), SignatureAlgorithm.HS256)
+                .compact();
+        StaffPrincipal principal = new StaffPrincipal(username, authorities(roles), id, now.getEpochSecond(), expires.getEpochSecond());
+        return new Issued(token, expires, principal);
+    }
+
+    /** The principal behind a bearer token, or null when it is malformed, forged, expired or revoked. */
+    public StaffPrincipal authenticate(String token) {
+        if (!enabled()) return null;
+        TokenHash hash = hash(token);
+        StaffPrincipal p = verified.get(hash);
+        if (p != null) {
+            if (usable(p)) {
+                hits.increment();
+                return p;
+            }
+            verified.remove(hash);
+            rejected.increment();
+            return null;
+        }
+        p = verify(token);
+        if (p == null || !usable(p)) {
+            rejected.increment();
+            return null;
+        }
+        misses.increment();
+        verified.put(hash, p);
+        if (verified.size() > maxEntries) trim();
+        return p;
+    }
+
+    /** Signature, issuer, key id and expiry, without the cache or revocation checks. */
+    public StaffPrincipal verify(String token) {
+        try {
+            Claims c = parser.parseClaimsJws(token).getBody();
+            if (c.getSubject() == null || c.getId() == null || c.getIssuedAt() == null || c.getExpiration() == null) return null;
+            List<?> roles = c.get(ROLES_CLAIM, List.class);
+            List<String> names = new ArrayList<>();
+            if (roles != null) for (Object r : roles) names.add(String.valueOf(r));
+            return new StaffPrincipal(c.getSubject(), authorities(names), c.getId(), c.getIssuedAt().getTime() / 1000,
+                    c.getExpiration().getTime() / 1000);
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.debug("Bearer token refused: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private boolean usable(StaffPrincipal p) {
+        long now = System.currentTimeMillis() / 1000;
+        if (p.expiresAt() <= now || revokedTokens.containsKey(p.tokenId())) return false;
+        Long after = validAfter.get(p.username());
+        return after == null || p.issuedAt() >= after;
+    }
+
+    /** Refuse one token from now on; {@code expiresAt} (epoch s) bounds how long that is remembered. */
+    public void revoke(String tokenId, long expiresAt) {
+        revokedTokens.put(tokenId, expiresAt);
+    }
+
+    /**
+     * Take over the revocation state the database holds: revoked token ids with their expiry
+     * (added to the ones known here; a revocation is never undone, it only expires), and per user
+     * the epoch second before which tokens are refused (Long.MAX_VALUE for a disabled account).
+     */
+    public void replaceRevocations(Map<String, Long> tokens, Map<String, Long> usersValidAfter) {
+        revokedTokens.putAll(tokens);
+        validAfter = Map.copyOf(usersValidAfter);
+    }
+
+    /** Change one user's cut-off at once, ahead of the next full refresh. */
+    public void refuseIssuedBefore(String username, long epochSecond) {
+        Map<String, Long> next = new HashMap<>(validAfter);
+        next.put(username, epochSecond);
+        validAfter = Map.copyOf(next);
+    }
+
+    public int cacheSize() {
+        return verified.size();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.cache.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis() / 1000;
+        verified.values().removeIf(p -> p.expiresAt() <= now);
+        revokedTokens.values().removeIf(exp -> exp <= now);
+    }
+
+    // over the cap: drop expired entries, then the ones closest to expiry, down to 90%
+    private synchronized void trim() {
+        if (verified.size() <= maxEntries) return;
+        sweep();
+        int excess = verified.size() - maxEntries * 9 / 10;
+        if (excess <= 0) return;
+        List<Map.Entry<TokenHash, StaffPrincipal>> all = new ArrayList<>(verified.entrySet());
+        all.sort(Comparator.comparingLong(e -> e.getValue().expiresAt()));
+        for (int i = 0; i < excess && i < all.size(); i++) {
+            verified.remove(all.get(i).getKey(), all.get(i).getValue());
+        }
+        log.debug("Staff token cache trimmed to {} entries", verified.size());
+    }
+
+    private TokenHash hash(String token) {
+        MessageDigest md;
+        try {
+            md = (MessageDigest) sha256.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException(ex);
+        }
+        ByteBuffer d = ByteBuffer.wrap(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        return new TokenHash(d.getLong(), d.getLong(), d.getLong(), d.getLong());
+    }
+
+    private static List<GrantedAuthority> authorities(List<String> roles) {
+        List<GrantedAuthority> list = new ArrayList<>(roles.size());
+        for (String r : roles) list.add(new SimpleGrantedAuthority("ROLE_" + r));
+        return List.copyOf(list);
+    }
+}
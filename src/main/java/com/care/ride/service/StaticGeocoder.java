@@ -0,0 +1,78 @@
+package com.care.ride.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Geocoder backed by a CSV table ({@code address,lat,lon}, from {@code pooling.geocoder.table})
+ * of the addresses we see most: dialysis centers, hospitals, facilities. Lookups ignore case and
+ * repeated whitespace.
+ *
+ * With {@code pooling.geocoder.synthetic=true} (local profile, benchmarks) an address missing
+ * from the table gets a made-up but stable point near {@code pooling.geocoder.center}, so plans can
+ * be exercised without real data. Never enable that in production: the runs would be fiction.
+ */
+@Component
+public class StaticGeocoder implements Geocoder {
+    private static final Logger log = LoggerFactory.getLogger(StaticGeocoder.class);
+
+    private final Map<String, Point> table;
+    private final boolean synthetic;
+    private final Point center;
+
+    public StaticGeocoder(@Value("${pooling.geocoder.table:}") String tablePath,
+                          @Value("${pooling.geocoder.synthetic:false}") boolean synthetic,
+                          @Value("${pooling.geocoder.center:39.9526,-75.1652}") String center) throws IOException {
+        this.table = tablePath.isBlank() ? Map.of() : load(Path.of(tablePath));
+        this.synthetic = synthetic;
+        String[] c = center.split(",");
+        this.center = new Point(Double.parseDouble(c[0].trim()), Double.parseDouble(c[1].trim()));
+    }
+
+    @Override
+    public Optional<Point> locate(String address) {
+        if (address == null || address.isBlank()) return Optional.empty();
+        Point p = table.get(normalize(address));
+        if (p != null || !synthetic) return Optional.ofNullable(p);
+        // within about 25 km of the center, derived from the address hash
+        long h = normalize(address).hashCode() * 0x9E3779B97F4A7C15L;
+        double dLat = ((h >>> 40) / (double) (1L << 24) - 0.5) * 0.45;
+        double dLon = (((h >>> 16) & 0xFFFFFF) / (double) (1L << 24) - 0.5) * 0.6;
+        return Optional.of(new Point(center.lat() + dLat, center.lon() + dLon));
+    }
+
+    private static Map<String, Point> load(Path path) throws IOException {
+        Map<String, Point> points = new HashMap<>();
+        try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            CsvRecordReader csv = new CsvRecordReader(in);
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                if (record.size() < 3) continue;
+                try {
+                    points.put(normalize(record.get(0)), new Point(Double.parseDouble(record.get(1).trim()), Double.parseDouble(record.get(2).trim())));
+                } catch (NumberFormatException ex) {
+                    // header row or a bad line
+                }
+            }
+        }
+        log.info("Geocoder table loaded entries={} from {}", points.size(), path);
+        return points;
+    }
+
+    static String normalize(String address) {
+        return address.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,125 @@
+package com.care.ride.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from lower-cased words to the ids of the rows containing them, for full-text
+ * search where the database has none (H2 in the local profile). A word is a run of letters and
+ * digits, at least two long; a query matches rows containing every one of its words. There is no
+ * stemming and no stop-word list, unlike the Postgres tsvector search it stands in for.
+ *
+ * Posting lists are sorted primitive long arrays: ids mostly arrive in ascending order, so adding a
+ * row appends. Adding an id that is already listed is a no-op, so a row may be indexed by both the
+ * startup load and the commit that created it. Deleted rows are never removed; callers re-read
+ * matches from the database, which drops them.
+ */
+public class TermIndex {
+    private static final int MIN_WORD = 2;
+
+    private static final class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) return;
+                insert(-at - 1, id);
+                return;
+            }
+            insert(size, id);
+        }
+
+        private void insert(int at, long id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+    }
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** The distinct words of {@code text}, in order of first appearance; empty for null. */
+    public static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) return words;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_WORD) words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /** Index row {@code id} under the words of all {@code texts}. */
+    public void add(long id, String... texts) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String t : texts) words.addAll(words(t));
+        lock.writeLock().lock();
+        try {
+            for (String w : words) postings.computeIfAbsent(w, k -> new Postings()).add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code max} ids below {@code before} of rows containing every word in {@code words},
+     * highest first. Empty when {@code words} is.
+     */
+    public long[] match(Set<String> words, long before, int max) {
+        if (words.isEmpty() || max <= 0) return new long[0];
+        lock.readLock().lock();
+        try {
+            // walk the rarest word's list down from the cursor, probing the others
+            List<Postings> lists = new ArrayList<>(words.size());
+            for (String w : words) {
+                Postings p = postings.get(w);
+                if (p == null) return new long[0];
+                lists.add(p);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+            Postings rarest = lists.get(0);
+            int from = Arrays.binarySearch(rarest.ids, 0, rarest.size, before);
+            from = (from >= 0 ? from : -from - 1) - 1;
+            long[] out = new long[Math.min(max, from + 1)];
+            int n = 0;
+            for (int i = from; i >= 0 && n < out.length; i--) {
+                long id = rarest.ids[i];
+                boolean all = true;
+                for (int j = 1; j < lists.size() && all; j++) {
+                    all = Arrays.binarySearch(lists.get(j).ids, 0, lists.get(j).size, id) >= 0;
+                }
+                if (all) out[n++] = id;
+            }
+            return n == out.length ? out : Arrays.copyOf(out, n);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int wordCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.care.ride.web;
+
+import com.care.ride.dto.LoginRequest;
+import com.care.ride.dto.StaffToken;
+import com.care.ride.dto.StaffUserUpdate;
+import com.care.ride.service.StaffAccountService;
+import com.care.ride.service.StaffLoginService;
+import com.care.ride.service.StaffTokenService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Staff sessions and accounts. {@code POST /login} trades a username and password for a bearer
+ * token (see {@link StaffLoginService} for the throttling), {@code POST /logout} revokes the token
+ * it is called with and {@code GET /me} describes it. Accounts are managed by admins under
+ * {@code /users}: {@code PUT /users/{username}} creates or updates one, {@code POST
+ * /users/{username}/revoke} ends all of its tokens. Access rules are in SecurityConfig.
+ */
+@RestController
+@RequestMapping("/api/auth")
+public class AuthController {
+    private static final int MIN_PASSWORD_LENGTH = 12;
+
+    private final StaffLoginService loginService;
+    private final StaffAccountService accounts;
+
+    @Value("${intake.rate-limit.client-ip-header:X-Real-IP}")
+    private String clientIpHeader;
+
+    public AuthController(StaffLoginService loginService, StaffAccountService accounts) {
+        this.loginService = loginService;
+        this.accounts = accounts;
+    }
+
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@RequestBody @Valid LoginRequest req, HttpServletRequest request) {
+        return switch (loginService.login(req.username(), req.password(), RateLimitFilter.clientIp(request, clientIpHeader))) {
+            case StaffLoginService.LoggedIn in -> {
+                StaffTokenService.StaffPrincipal p = in.issued().principal();
+                yield ResponseEntity.ok().header("Cache-Control", "no-store")
+                        .body(new StaffToken(in.issued().token(), "Bearer", in.issued().expiresAt(), p.username(), roles(p.authorities())));
+            }
+            case StaffLoginService.BadCredentials bad -> ResponseEntity.status(401).body(Map.of("error", "BAD_CREDENTIALS"));
+            case StaffLoginService.Throttled t -> {
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(t.waitNanos() + 999_999_999L));
+                yield ResponseEntity.status(429).header("Retry-After", Long.toString(retryAfter)).body(Map.of(
+                        "error", "RATE_LIMITED", "message", "Too many login attempts, retry in " + retryAfter + " s"));
+            }
+            case StaffLoginService.Busy busy -> ResponseEntity.status(503).header("Retry-After", "1").body(Map.of("error", "BUSY"));
+            case StaffLoginService.Disabled off -> ResponseEntity.status(503).body(Map.of("error", "LOGIN_DISABLED"));
+        };
+    }
+
+    /** Revokes the bearer token of this request; a no-op for the shared dispatch token. */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout() {
+        if (SecurityContextHolder.getContext().getAuthentication().getPrincipal() instanceof StaffTokenService.StaffPrincipal p) {
+            accounts.revoke(p);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/me")
+    public Map<String, Object> me() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("roles", roles(auth.getAuthorities()));
+        if (auth.getPrincipal() instanceof StaffTokenService.StaffPrincipal p) {
+            body.put("username", p.username());
+            body.put("expiresAt", Instant.ofEpochSecond(p.expiresAt()));
+        } else {
+            body.put("username", auth.getName());
+        }
+        return body;
+    }
+
+    @PutMapping("/users/{username}")
+    public ResponseEntity<?> saveUser(@PathVariable("username") String username, @RequestBody StaffUserUpdate body) {
+        if (username.isBlank() || username.length() > 64 || !username.matches("[A-Za-z0-9._@-]+")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "username must be 1-64 of letters, digits and . _ @ -"));
+        }
+        if (body.password() != null && body.password().length() < MIN_PASSWORD_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("error", "password must have at least " + MIN_PASSWORD_LENGTH + " characters"));
+        }
+        List<String> roles = body.roles() == null ? null : body.roles().stream().map(r -> r.trim().toUpperCase(Locale.ROOT)).distinct().toList();
+        if (roles != null && (roles.isEmpty() || !StaffAccountService.ROLES.containsAll(roles))) {
+            return ResponseEntity.badRequest().body(Map.of("error", "roles must be some of " + StaffAccountService.ROLES));
+        }
+        try {
+            return ResponseEntity.ok(accounts.save(username, body.password(), roles, body.enabled()));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @PostMapping("/users/{username}/revoke")
+    public ResponseEntity<Void> revokeUser(@PathVariable("username") String username) {
+        if (accounts.find(username).isEmpty()) return ResponseEntity.notFound().build();
+        accounts.revokeAll(username);
+        return ResponseEntity.noContent().build();
+    }
+
+    private static List<String> roles(Collection<? extends GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority)
+                .filter(a -> a.startsWith("ROLE_")).map(a -> a.substring(5)).toList();
+    }
+}
@@ -0,0 +1,208 @@
+package com.care.ride.web;
+
+import com.care.ride.domain.ContactKeys;
+import com.care.ride.dto.BookingSummary;
+import com.care.ride.dto.DispatchCursor;
+import com.care.ride.repo.BookingRepo;
+import com.care.ride.service.BookingImportService;
+import com.care.ride.service.BookingStatusService;
+import com.care.ride.service.Bulkhead;
+import com.care.ride.service.DispatchEventBus;
+import com.care.ride.service.RunPlanService;
+import com.care.ride.service.SearchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Read API for dispatch dashboards. Pages are keyset-paginated on (pickupTime, id) and come back
+ * as {@link BookingSummary} projections; pass {@code nextCursor} from one response as
+ * {@code cursor} to get the next page.
+ *
+ * {@code /events} is the live feed ({@link DispatchEventBus}) as Server-Sent Events, and
+ * {@code POST /bookings/{id}/status} is how dispatchers move a booking along. {@code /search/contacts}
+ * and {@code /search/bookings} find rows by text, phone or email ({@link SearchService}).
+ * {@code POST /bookings/import} takes partner manifests ({@link BookingImportService}); it is staff
+ * only because every row holds a vehicle.
+ *
+ * Staff only: SecurityConfig requires the DISPATCH or ADMIN role, from a staff bearer token or
+ * the shared X-Dispatch-Token (see StaffAuthenticationFilter, which also reads {@code ?token=} on
+ * the feed because browsers' EventSource cannot send headers).
+ */
+@RestController
+@RequestMapping("/api/dispatch")
+public class DispatchController {
+    private final BookingRepo bookingRepo;
+    private final Bulkhead dbBulkhead;
+    private final RunPlanService runPlanService;
+    private final DispatchEventBus events;
+    private final BookingStatusService statusService;
+    private final SearchService searchService;
+    private final BookingImportService importService;
+    private final MeterRegistry registry;
+
+    @Value("${mail.notify:${MAIL_NOTIFY:${MAIL_FROM:${MAIL_USERNAME:info@careridesolutionspa.com}}}}")
+    private String notifyRecipient;
+
+    @Value("${dispatch.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${dispatch.page.max-size:200}")
+    private int maxPageSize;
+
+    public DispatchController(BookingRepo bookingRepo, @Qualifier("dbBulkhead") Bulkhead dbBulkhead, RunPlanService runPlanService,
+                              DispatchEventBus events, BookingStatusService statusService, SearchService searchService,
+                              BookingImportService importService, MeterRegistry registry) {
+        this.bookingRepo = bookingRepo;
+        this.dbBulkhead = dbBulkhead;
+        this.runPlanService = runPlanService;
+        this.events = events;
+        this.statusService = statusService;
+        this.searchService = searchService;
+        this.importService = importService;
+        this.registry = registry;
+    }
+
+    @GetMapping("/bookings")
+    public ResponseEntity<?> bookings(@RequestParam(value = "status", required = false) String status,
+                                      @RequestParam(value = "serviceTypeId", required = false) Integer serviceTypeId,
+                                      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam(value = "limit", required = false) Integer limit) {
+        DispatchCursor after;
+        try {
+            after = cursor == null || cursor.isBlank() ? null : DispatchCursor.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+        int size = Math.max(1, Math.min(limit != null ? limit : defaultPageSize, maxPageSize));
+        String st = status == null || status.isBlank() ? null : status.trim().toUpperCase();
+
+        // one extra row tells us whether another page exists without a count query
+        List<BookingSummary> rows = dbBulkhead.call(() -> bookingRepo.findForDispatch(st, serviceTypeId, from, to, after, size + 1));
+        boolean more = rows.size() > size;
+        List<BookingSummary> page = more ? rows.subList(0, size) : rows;
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("items", page);
+        body.put("nextCursor", more ? DispatchCursor.after(page.get(size - 1)).encode() : null);
+        return ResponseEntity.ok(body);
+    }
+
+    /** Partner manifest as a JSON array or CSV, inserted in batched chunks with one digest email. */
+    @PostMapping(value = "/bookings/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"})
+    public ResponseEntity<?> importBookings(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException {
+        Timer.Sample sample = Timer.start(registry);
+        MediaType type = MediaType.parseMediaType(contentType);
+        var result = "csv".equalsIgnoreCase(type.getSubtype())
+                ? importService.importCsv(new InputStreamReader(body, type.getCharset() != null ? type.getCharset() : StandardCharsets.UTF_8), notifyRecipient)
+                : importService.importJson(body, notifyRecipient);
+        // rows already committed are reported even when the import stopped early
+        int status = result.error() != null && result.created() == 0 ? 400 : 200;
+        sample.stop(registry.timer("intake.request", "type", "import", "outcome", status == 200 ? "created" : "rejected"));
+        return ResponseEntity.status(status).body(result);
+    }
+
+    /** Proposed shared runs for the day's PENDING bookings; a suggestion only, nothing is saved. */
+    @GetMapping("/run-plan")
+    public ResponseEntity<?> runPlan(@RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(runPlanService.planDay(date));
+    }
+
+    /** Live feed: booking-created, booking-status-changed, bookings-imported and resync events. */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            SseEmitter emitter = events.subscribe(lastEventId);
+            // nginx would otherwise buffer the stream
+            return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+        } catch (DispatchEventBus.TooManySubscribersException ex) {
+            return ResponseEntity.status(503).header("Retry-After", "30").build();
+        }
+    }
+
+    @PostMapping("/bookings/{id}/status")
+    public ResponseEntity<?> updateStatus(@PathVariable("id") Long id, @RequestBody Map<String, String> body) {
+        String status = body.get("status") == null ? "" : body.get("status").trim().toUpperCase();
+        if (!BookingStatusService.STATUSES.contains(status)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "status must be one of " + BookingStatusService.STATUSES));
+        }
+        try {
+            return dbBulkhead.call(() -> statusService.update(id, status))
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (BookingStatusService.InvalidTransitionException ex) {
+            return ResponseEntity.status(409).body(Map.of("error", "INVALID_STATUS", "message", ex.getMessage()));
+        }
+    }
+
+    /** Contact-form submissions matching all of {@code q}, {@code phone} and {@code email} given, newest first. */
+    @GetMapping("/search/contacts")
+    public ResponseEntity<StreamingResponseBody> searchContacts(@RequestParam(value = "q", required = false) String q,
+                                                                @RequestParam(value = "phone", required = false) String phone,
+                                                                @RequestParam(value = "email", required = false) String email,
+                                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                                @RequestParam(value = "limit", required = false) Integer limit) {
+        return search(q, phone, email, cursor, limit, query -> out -> searchService.writeContacts(query, out));
+    }
+
+    /** Bookings matching all of {@code q}, {@code phone} and {@code email} given, newest first. */
+    @GetMapping("/search/bookings")
+    public ResponseEntity<StreamingResponseBody> searchBookings(@RequestParam(value = "q", required = false) String q,
+                                                                @RequestParam(value = "phone", required = false) String phone,
+                                                                @RequestParam(value = "email", required = false) String email,
+                                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                                @RequestParam(value = "limit", required = false) Integer limit) {
+        return search(q, phone, email, cursor, limit, query -> out -> searchService.writeBookings(query, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> search(String q, String phone, String email, String cursor,
+                                                         Integer limit, Function<SearchService.Query, StreamingResponseBody> writer) {
+        String text = q == null || q.isBlank() ? null : q.trim();
+        String phoneKey = phone == null || phone.isBlank() ? null : ContactKeys.phone(phone);
+        if (phone != null && !phone.isBlank() && phoneKey == null) {
+            return searchError("phone must have 7 to 20 digits");
+        }
+        String emailKey = ContactKeys.email(email);
+        if (text == null && phoneKey == null && emailKey == null) {
+            return searchError("q, phone or email is required");
+        }
+        long before = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                before = Long.parseLong(cursor.trim());
+            } catch (NumberFormatException ex) {
+                return searchError("invalid cursor");
+            }
+        }
+        int size = Math.max(1, Math.min(limit != null ? limit : defaultPageSize, maxPageSize));
+        SearchService.Query query = new SearchService.Query(text, phoneKey, emailKey, before, size);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(writer.apply(query));
+    }
+
+    // messages are fixed strings, nothing to escape
+    private static ResponseEntity<StreamingResponseBody> searchError(String message) {
+        byte[] body = ("{\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(out -> out.write(body));
+    }
+}
@@ -1,19 +1,39 @@
 package com.care.ride.web;
 
 import com.care.ride.domain.*;
+import com.care.ride.dto.BookingCreated;
 import com.care.ride.dto.BookingRequest;
+import com.care.ride.dto.BookingView;
 import com.care.ride.dto.ContactRequest;
+import com.care.ride.dto.ContactSent;
 import com.care.ride.domain.Contact;
-import com.care.ride.repo.ContactRepo;
+import com.care.ride.service.Bulkhead;
+import com.care.ride.service.CapacityService;
 import com.care.ride.service.EmailService;
+import com.care.ride.service.IdempotencyIndex;
+import com.care.ride.service.IntakeService;
+import com.care.ride.service.NotificationTemplates;
+import com.care.ride.service.ServiceTypeCatalog;
 import com.care.ride.repo.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
@@ -26,64 +46,79 @@ import java.util.List;
 	"https://www.careridesolutionspa.com"
 })
 public class PublicController {
-	private final ServiceTypeRepo sRepo;
-	private final BookingRepo bRepo;
+	private static final Logger log = LoggerFactory.getLogger(PublicController.class);
+	static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+	private static final int IDEMPOTENCY_KEY_MAX_LENGTH = 100;
+	private final ServiceTypeCatalog catalog;
 	private final EmailService emailService;
-	private final ContactRepo contactRepo;
+	private final IntakeService intakeService;
+	private final IdempotencyIndex idempotency;
+	private final CapacityService capacity;
+	private final NotificationTemplates templates;
+	private final Bulkhead dbBulkhead;
+	private final MeterRegistry registry;
+	@Value("${catalog.cache.max-age-seconds:300}")
+	private long catalogMaxAgeSeconds;
 	@Value("${mail.notify:${MAIL_NOTIFY:${MAIL_FROM:${MAIL_USERNAME:info@careridesolutionspa.com}}}}")
 	private String notifyRecipient;
 
-	public PublicController(ServiceTypeRepo sRepo, BookingRepo bRepo, EmailService emailService, ContactRepo contactRepo){
-		this.sRepo = sRepo;
-		this.bRepo = bRepo;
+	public PublicController(ServiceTypeCatalog catalog, EmailService emailService, IntakeService intakeService,
+			IdempotencyIndex idempotency, CapacityService capacity,
+			NotificationTemplates templates, @Qualifier("dbBulkhead") Bulkhead dbBulkhead, MeterRegistry registry){
+		this.catalog = catalog;
 		this.emailService = emailService;
-		this.contactRepo = contactRepo;
+		this.intakeService = intakeService;
+		this.idempotency = idempotency;
+		this.capacity = capacity;
+		this.templates = templates;
+		this.dbBulkhead = dbBulkhead;
+		this.registry = registry;
 	}
 	@PostMapping("/contact")
-	public ResponseEntity<?> contact(@RequestBody @Valid ContactRequest req) {
-		long start = System.currentTimeMillis();
+	public ResponseEntity<?> contact(@RequestBody @Valid ContactRequest req,
+			@RequestHeader(value=IDEMPOTENCY_KEY, required=false) String idempotencyKey) {
+		String fingerprint = IdempotencyIndex.fingerprint(req.getName(), req.getEmail(), req.getPhone(), req.getReason(), req.getMessage());
+		return idempotent("contact", idempotencyKey, fingerprint, () -> saveContact(req, idempotencyKey, fingerprint));
+	}
+
+	private ResponseEntity<?> saveContact(ContactRequest req, String idempotencyKey, String fingerprint) {
+		Timer.Sample sample = Timer.start(registry);
 		try {
-			System.out.println("[contact] inbound payload email="+req.getEmail()+" reason="+req.getReason()+" notifyRecipient="+notifyRecipient);
 			int approxSize = (req.getMessage() != null ? req.getMessage().length() : 0) +
 					(req.getName() != null ? req.getName().length() : 0);
-			// Persist contact to DB
 			Contact c = new Contact();
 			c.setName(req.getName());
 			c.setEmail(req.getEmail());
 			c.setPhone(req.getPhone());
 			c.setReason(req.getReason());
 			c.setMessage(req.getMessage());
-			var saved = contactRepo.save(c);
-			System.out.println("[contact] saved id="+saved.getId()+" size="+approxSize);
+			c.setIdempotencyKey(idempotencyKey);
 
-			// Compose email body
+			// Compose email body (text + HTML)
 			String subject = "New Contact Form Submission: " + req.getReason();
-			String text = "Name: " + req.getName() + "\n"
-					+ "Email: " + req.getEmail() + "\n"
-					+ "Phone: " + req.getPhone() + "\n"
-					+ "Reason: " + req.getReason() + "\n"
-					+ "Message: " + req.getMessage();
-
-			// Send email asynchronously
-			java.util.concurrent.CompletableFuture.runAsync(() -> {
-				try {
-					boolean emailOk = emailService.sendContactEmail(notifyRecipient, subject, text);
-					System.out.println("[contact] async email result id="+saved.getId()+" ok="+emailOk);
-				} catch (Exception e) {
-					System.err.println("[contact] async email failure id="+saved.getId()+" msg="+e.getMessage());
-				}
-			});
+			var body = templates.contact(req);
 
-			long dur = System.currentTimeMillis() - start;
-			return ResponseEntity.ok(java.util.Map.of(
-					"status","sent",
-					"id", saved.getId(),
-					"emailStatus", true,
-					"durationMs", dur));
+			// Persist contact and queue the notification in one transaction; the outbox dispatcher delivers it
+			var saved = dbBulkhead.call(() -> dbSave("contact", () -> intakeService.saveContact(c, fingerprint, notifyRecipient, subject, body)));
+			long dur = stop(sample, "contact", "created");
+			log.info("Contact saved id={} reason={} size={} durationMs={}", saved.getId(), req.getReason(), approxSize, dur);
+			return ResponseEntity.ok(new ContactSent("sent", saved.getId(), true, dur));
+		} catch (Bulkhead.FullException ex) {
+			stop(sample, "contact", "busy");
+			return busy(ex);
+		} catch (DataIntegrityViolationException ex) {
+			// retry of a keyed request the in-memory index no longer knows: the unique key caught it
+			var existing = idempotencyKey != null ? intakeService.findContactByIdempotencyKey(idempotencyKey) : java.util.Optional.<Contact>empty();
+			if (existing.isEmpty()) throw ex;
+			if (keyReused("contact", idempotencyKey, fingerprint)) {
+				stop(sample, "contact", "rejected");
+				return idempotencyKeyReused();
+			}
+			long dur = stop(sample, "contact", "replayed");
+			return ResponseEntity.ok().header("Idempotent-Replayed", "true").body(new ContactSent("sent", existing.get().getId(), true, dur));
 		} catch (Exception ex) {
-			long dur = System.currentTimeMillis() - start;
-			System.err.println("[contact] ERROR durationMs="+dur+" type="+ex.getClass().getSimpleName()+" msg="+ex.getMessage());
-			ex.printStackTrace();
+			long dur = stop(sample, "contact", "error");
+			log.error("Contact save failed durationMs={}", dur, ex);
 			return ResponseEntity.status(500).body(java.util.Map.of(
 					"error","CONTACT_SAVE_FAILED",
 					"type", ex.getClass().getSimpleName(),
@@ -97,49 +132,202 @@ public class PublicController {
 		return java.util.Map.of("status","ok","ts",System.currentTimeMillis());
 	}
 
+	// pre-encoded JSON from the in-memory catalog, gzip'd when the client accepts it; ETag lets
+	// browsers/nginx revalidate with a 304
 	@GetMapping("/services")
-	public List<ServiceType> services(){
-		return sRepo.findAll();
+	public ResponseEntity<byte[]> services(@RequestHeader(value=HttpHeaders.ACCEPT_ENCODING, required=false) String acceptEncoding){
+		var snapshot = catalog.snapshot();
+		boolean gzip = snapshot.gzip() != null && acceptsGzip(acceptEncoding);
+		var builder = ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON)
+				.varyBy(HttpHeaders.ACCEPT_ENCODING)
+				.eTag(gzip ? snapshot.gzipEtag() : snapshot.etag())
+				.cacheControl(CacheControl.maxAge(catalogMaxAgeSeconds, TimeUnit.SECONDS).cachePublic().mustRevalidate());
+		if (gzip) builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		return builder.body(gzip ? snapshot.gzip() : snapshot.json());
+	}
+
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) return false;
+		for (String part : acceptEncoding.split(",")) {
+			String[] p = part.trim().split(";");
+			if (!p[0].trim().equalsIgnoreCase("gzip")) continue;
+			for (int i = 1; i < p.length; i++) {
+				String q = p[i].trim();
+				if (q.startsWith("q=") && q.substring(2).trim().matches("0(\\.0*)?")) return false;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	// pickup slots for the booking UI, answered from the in-memory capacity index (no DB)
+	@GetMapping("/services/{id}/availability")
+	public ResponseEntity<?> availability(@PathVariable("id") Integer id,
+			@RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date){
+		var st = catalog.find(id);
+		if (st.isEmpty()) return ResponseEntity.notFound().build();
+		return ResponseEntity.ok()
+				.cacheControl(CacheControl.maxAge(10, TimeUnit.SECONDS))
+				.body(capacity.availability(st.get(), date));
 	}
 
 	@PostMapping("/bookings")
-	public ResponseEntity<?> create(@RequestBody @Valid BookingRequest req){
-		var maybeSt = sRepo.findById(req.serviceTypeId());
-		if (maybeSt.isEmpty()){
-			return ResponseEntity.badRequest().body(java.util.Map.of("error","serviceTypeId not found"));
+	public ResponseEntity<?> create(@RequestBody @Valid BookingRequest req,
+			@RequestHeader(value=IDEMPOTENCY_KEY, required=false) String idempotencyKey){
+		String fingerprint = IdempotencyIndex.fingerprint(req.fullName(), req.phone(), req.email(), req.pickupAddress(),
+				req.dropoffAddress(), req.pickupTime(), req.serviceTypeId(), req.notes());
+		return idempotent("booking", idempotencyKey, fingerprint, () -> saveBooking(req, idempotencyKey, fingerprint));
+	}
+
+	private ResponseEntity<?> saveBooking(BookingRequest req, String idempotencyKey, String fingerprint){
+		Timer.Sample sample = Timer.start(registry);
+		String outcome = "error";
+		try {
+			var maybeSt = catalog.find(req.serviceTypeId());
+			if (maybeSt.isEmpty()){
+				outcome = "rejected";
+				return ResponseEntity.badRequest().body(java.util.Map.of("error","serviceTypeId not found"));
+			}
+			// hold a vehicle before saving; released again if the save does not commit
+			var slot = capacity.reserve(maybeSt.get(), req.pickupTime());
+			if (slot == null){
+				outcome = "rejected";
+				return noCapacity(req, "No " + maybeSt.get().getName() + " vehicle is free at the requested pickup time");
+			}
+			// detached catalog instance: Hibernate only needs its id for the FK, so no service_type select
+			var b = IntakeService.newBooking(req, maybeSt.get());
+			b.setIdempotencyKey(idempotencyKey);
+
+			// Compose booking email
+			String subject = "New Ride Booking: " + req.fullName();
+			var body = templates.booking(req);
+
+			// booking row and notification commit together; SMTP happens off the request thread
+			Booking saved;
+			try {
+				saved = dbBulkhead.call(() -> dbSave("booking", () -> intakeService.saveBooking(b, fingerprint, notifyRecipient, subject, body)));
+			} catch (CapacityService.NoCapacityException ex) {
+				// the index had a vehicle free, the committed bookings of all nodes did not
+				capacity.release(slot);
+				outcome = "rejected";
+				return noCapacity(req, ex.getMessage());
+			} catch (RuntimeException ex) {
+				capacity.release(slot);
+				throw ex;
+			}
+			outcome = "created";
+
+			// include emailStatus so UI can show helpful message (true = notification queued)
+			return ResponseEntity.created(URI.create("/api/bookings/"+saved.getId())).body(new BookingCreated(BookingView.of(saved), true));
+		} catch (Bulkhead.FullException ex) {
+			outcome = "busy";
+			throw ex;
+		} catch (DataIntegrityViolationException ex) {
+			// retry of a keyed request the in-memory index no longer knows: the unique key caught it
+			var existing = idempotencyKey != null ? intakeService.findBookingByIdempotencyKey(idempotencyKey) : java.util.Optional.<Booking>empty();
+			if (existing.isEmpty()) throw ex;
+			if (keyReused("booking", idempotencyKey, fingerprint)) {
+				outcome = "rejected";
+				return idempotencyKeyReused();
+			}
+			outcome = "replayed";
+			return ResponseEntity.created(URI.create("/api/bookings/"+existing.get().getId())).header("Idempotent-Replayed", "true")
+					.body(new BookingCreated(BookingView.of(existing.get()), true));
+		} finally {
+			stop(sample, "booking", outcome);
+		}
+	}
+
+	private ResponseEntity<?> noCapacity(BookingRequest req, String message){
+		return ResponseEntity.status(409).body(java.util.Map.of(
+				"error","NO_CAPACITY",
+				"message",message,
+				"availability","/api/services/" + req.serviceTypeId() + "/availability?date=" + LocalDate.ofInstant(req.pickupTime(), capacity.zone())));
+	}
+
+	// Double-clicks and network retries: the first 2xx response for an Idempotency-Key (or, without
+	// one, for an identical payload within a few minutes) is replayed without touching DB or SMTP
+	private ResponseEntity<?> idempotent(String type, String key, String fingerprint, java.util.function.Supplier<ResponseEntity<?>> handler) {
+		if (key != null && !validIdempotencyKey(key)) {
+			return ResponseEntity.badRequest().body(java.util.Map.of(
+					"error", "INVALID_IDEMPOTENCY_KEY",
+					"message", IDEMPOTENCY_KEY + " must be 1-" + IDEMPOTENCY_KEY_MAX_LENGTH + " letters, digits or -_.:"));
 		}
-		var st = maybeSt.get();
-		var b = new Booking();
-		b.setFullName(req.fullName());
-		b.setPhone(req.phone());
-		b.setEmail(req.email());
-		b.setPickupAddress(req.pickupAddress());
-		b.setDropoffAddress(req.dropoffAddress());
-		b.setPickupTime(req.pickupTime());
-		b.setNotes(req.notes());
-		b.setServiceType(st);
-		var saved = bRepo.save(b);
-
-		// Compose booking email
-		String subject = "New Ride Booking: " + req.fullName();
-		StringBuilder text = new StringBuilder();
-		text.append("A new ride booking has been submitted.\n\n");
-		text.append("Full Name: ").append(req.fullName()).append("\n");
-		text.append("Phone: ").append(req.phone()).append("\n");
-		if (req.email() != null && !req.email().isEmpty()) text.append("Email: ").append(req.email()).append("\n");
-		text.append("Pickup Address: ").append(req.pickupAddress()).append("\n");
-		text.append("Drop-off Address: ").append(req.dropoffAddress()).append("\n");
-		text.append("Pickup Time: ").append(req.pickupTime()).append("\n");
-		text.append("Service Type ID: ").append(req.serviceTypeId()).append("\n");
-		if (req.notes() != null && !req.notes().isEmpty()) text.append("Notes: ").append(req.notes()).append("\n");
-
-		boolean emailOk = emailService.sendContactEmail(notifyRecipient, subject, text.toString());
-		if (!emailOk) {
-			System.err.println("Warning: email send failed for booking id=" + saved.getId());
+		Timer.Sample sample = Timer.start(registry);
+		return switch (idempotency.claim(type, key, fingerprint)) {
+			case IdempotencyIndex.Owner owner -> {
+				ResponseEntity<?> response = null;
+				try {
+					response = handler.get();
+				} finally {
+					if (response != null && response.getStatusCode().is2xxSuccessful()) {
+						idempotency.complete(owner, new IdempotencyIndex.Stored(response.getStatusCode().value(),
+								response.getHeaders().getLocation(), response.getBody()));
+					} else {
+						idempotency.release(owner);
+					}
+				}
+				yield response;
+			}
+			case IdempotencyIndex.Replay replay -> {
+				stop(sample, type, "replayed");
+				log.debug("Replaying {} response for a duplicate submission", type);
+				var stored = replay.response();
+				var builder = ResponseEntity.status(stored.status()).header("Idempotent-Replayed", "true");
+				if (stored.location() != null) builder.location(stored.location());
+				yield builder.body(stored.body());
+			}
+			case IdempotencyIndex.Conflict conflict -> {
+				stop(sample, type, "rejected");
+				yield idempotencyKeyReused();
+			}
+			case IdempotencyIndex.InProgress inProgress -> {
+				stop(sample, type, "busy");
+				yield ResponseEntity.status(409).header("Retry-After", "1").body(java.util.Map.of(
+						"error", "REQUEST_IN_PROGRESS",
+						"message", "The original request with this " + IDEMPOTENCY_KEY + " is still being processed"));
+			}
+		};
+	}
+
+	// the key is in the database but not in this node's index: compare with the fingerprint stored
+	// with it (keys recorded before V16 have none and are replayed)
+	private boolean keyReused(String type, String key, String fingerprint) {
+		return intakeService.idempotencyFingerprint(type, key).map(stored -> !stored.equals(fingerprint)).orElse(false);
+	}
+
+	private static ResponseEntity<?> idempotencyKeyReused() {
+		return ResponseEntity.unprocessableEntity().body(java.util.Map.of(
+				"error", "IDEMPOTENCY_KEY_REUSED",
+				"message", IDEMPOTENCY_KEY + " was already used for a different request"));
+	}
+
+	private static boolean validIdempotencyKey(String key) {
+		if (key.isEmpty() || key.length() > IDEMPOTENCY_KEY_MAX_LENGTH) return false;
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (!(c < 128 && Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.' || c == ':')) return false;
 		}
+		return true;
+	}
+
+	// intake.request: whole handler by type/outcome; intake.db.save: the transaction alone, so
+	// p99 can be split into permit wait (bulkhead.wait), DB and the rest
+	private long stop(Timer.Sample sample, String type, String outcome) {
+		return TimeUnit.NANOSECONDS.toMillis(sample.stop(registry.timer("intake.request", "type", type, "outcome", outcome)));
+	}
+
+	private <T> T dbSave(String type, java.util.function.Supplier<T> save) {
+		return registry.timer("intake.db.save", "type", type).record(save);
+	}
 
-		// include emailStatus so UI can show helpful message
-		return ResponseEntity.created(URI.create("/api/bookings/"+saved.getId())).body(java.util.Map.of("booking", saved, "emailStatus", emailOk));
+	// DB permits exhausted: shed load quickly instead of queueing on the connection pool
+	@ExceptionHandler(Bulkhead.FullException.class)
+	public ResponseEntity<?> busy(Bulkhead.FullException ex) {
+		return ResponseEntity.status(503).header("Retry-After", "1").body(java.util.Map.of(
+				"error", "BUSY",
+				"message", ex.getMessage()));
 	}
 
 	@GetMapping("/debug/smtp")
@@ -0,0 +1,287 @@
+package com.care.ride.web;
+
+import com.care.ride.domain.ContactKeys;
+import com.care.ride.service.RateLimiter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket limits on the public write endpoints, applied before Spring Security, Jackson
+ * binding and validation run, so a bot burst costs a map lookup and a CAS per request.
+ *
+ * Each endpoint has a per-client-IP limit and, for the JSON forms, a per-sender limit keyed by
+ * the submitted email and phone (read with a streaming scan of the first
+ * {@code intake.rate-limit.peek-bytes} of the body, which is then handed on unchanged). Limits are
+ * "capacity/period" strings under {@code intake.rate-limit.<endpoint>}; an empty value turns
+ * that limit off.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private record Rule(String endpoint, String path, RateLimiter perIp, RateLimiter perSender,
+                        Counter ipRejected, Counter senderRejected) {}
+
+    private final boolean enabled;
+    private final String clientIpHeader;
+    private final int peekBytes;
+    private final List<Rule> rules = new ArrayList<>();
+
+    public RateLimitFilter(MeterRegistry registry,
+                           @Value("${intake.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${intake.rate-limit.client-ip-header:X-Real-IP}") String clientIpHeader,
+                           @Value("${intake.rate-limit.peek-bytes:16384}") int peekBytes,
+                           @Value("${intake.rate-limit.contact.per-ip:5/1m}") String contactPerIp,
+                           @Value("${intake.rate-limit.contact.per-sender:3/10m}") String contactPerSender,
+                           @Value("${intake.rate-limit.bookings.per-ip:20/1m}") String bookingsPerIp,
+                           @Value("${intake.rate-limit.bookings.per-sender:10/10m}") String bookingsPerSender,
+                           @Value("${intake.rate-limit.import.per-ip:5/1m}") String importPerIp) {
+        this.enabled = enabled;
+        this.clientIpHeader = clientIpHeader;
+        this.peekBytes = peekBytes;
+        // exact paths, most specific first
+        rules.add(rule(registry, "import", "/api/dispatch/bookings/import", importPerIp, ""));
+        rules.add(rule(registry, "contact", "/api/contact", contactPerIp, contactPerSender));
+        rules.add(rule(registry, "booking", "/api/bookings", bookingsPerIp, bookingsPerSender));
+        Gauge.builder("intake.ratelimit.keys", rules, rs -> rs.stream().mapToInt(r ->
+                        (r.perIp() != null ? r.perIp().size() : 0) + (r.perSender() != null ? r.perSender().size() : 0)).sum())
+                .description("Client IP and sender buckets currently tracked")
+                .register(registry);
+    }
+
+    private static Rule rule(MeterRegistry registry, String endpoint, String path, String perIp, String perSender) {
+        return new Rule(endpoint, path,
+                perIp.isBlank() ? null : RateLimiter.parse(endpoint + ".per-ip", perIp),
+                perSender.isBlank() ? null : RateLimiter.parse(endpoint + ".per-sender", perSender),
+                Counter.builder("intake.ratelimit.rejected").description("Requests refused with 429")
+                        .tags("endpoint", endpoint, "key", "ip").register(registry),
+                Counter.builder("intake.ratelimit.rejected").description("Requests refused with 429")
+                        .tags("endpoint", endpoint, "key", "sender").register(registry));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod()) || match(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Rule rule = match(request);
+        if (rule.perIp() != null) {
+            long wait = rule.perIp().tryAcquire(clientIp(request));
+            if (wait > 0) {
+                rule.ipRejected().increment();
+                reject(response, wait);
+                return;
+            }
+        }
+        if (rule.perSender() != null && MediaType.APPLICATION_JSON.includes(contentType(request))) {
+            byte[] head = request.getInputStream().readNBytes(peekBytes);
+            for (String sender : senders(head)) {
+                long wait = rule.perSender().tryAcquire(sender);
+                if (wait > 0) {
+                    rule.senderRejected().increment();
+                    reject(response, wait);
+                    return;
+                }
+            }
+            request = new PeekedRequest(request, head);
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Rule match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Rule r : rules) {
+            if (r.path().equals(path)) return r;
+        }
+        return null;
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        return clientIp(request, clientIpHeader);
+    }
+
+    // nginx's X-Real-IP is trusted only when the connection itself comes from a local proxy
+    static String clientIp(HttpServletRequest request, String clientIpHeader) {
+        String remote = request.getRemoteAddr();
+        String forwarded = clientIpHeader.isEmpty() ? null : request.getHeader(clientIpHeader);
+        if (forwarded != null && !forwarded.isBlank() && fromProxy(remote)) {
+            return forwarded.trim();
+        }
+        return remote;
+    }
+
+    private static boolean fromProxy(String remote) {
+        try {
+            // getRemoteAddr() is always a literal, so this never does a DNS lookup
+            InetAddress a = InetAddress.getByName(remote);
+            return a.isLoopbackAddress() || a.isSiteLocalAddress();
+        } catch (UnknownHostException ex) {
+            return false;
+        }
+    }
+
+    private static MediaType contentType(HttpServletRequest request) {
+        try {
+            return request.getContentType() == null ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType(request.getContentType());
+        } catch (IllegalArgumentException ex) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    /** Top-level "email" and "phone" of a JSON object, normalised; empty when the body is not one. */
+    static List<String> senders(byte[] body) {
+        List<String> keys = new ArrayList<>(2);
+        try (JsonParser p = JSON.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return keys;
+            JsonToken t;
+            while ((t = p.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                t = p.nextToken();
+                if (t == JsonToken.VALUE_STRING && "email".equals(field)) {
+                    String email = ContactKeys.email(p.getText());
+                    if (email != null) keys.add("e:" + email);
+                } else if (t == JsonToken.VALUE_STRING && "phone".equals(field)) {
+                    String phone = ContactKeys.phone(p.getText());
+                    if (phone != null) keys.add("p:" + phone);
+                } else {
+                    p.skipChildren();
+                }
+                if (keys.size() == 2) break;
+            }
+        } catch (IOException ex) {
+            // malformed or cut off at peek-bytes: limit what we found, binding will report the rest
+        }
+        return keys;
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(429);
+        response.setHeader("Retry-After", Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"error\":\"RATE_LIMITED\",\"message\":\"Too many requests, retry in "
+                + retryAfter + " s\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Scheduled(fixedDelayString = "${intake.rate-limit.idle-sweep-ms:60000}")
+    public void evictIdle() {
+        int left = 0;
+        for (Rule r : rules) {
+            if (r.perIp() != null) left += r.perIp().evictIdle();
+            if (r.perSender() != null) left += r.perSender().evictIdle();
+        }
+        log.debug("Rate limit buckets after idle sweep: {}", left);
+    }
+
+    /**
+     * The request with the peeked bytes put back in front of the unread rest of the body. Reads
+     * are served from the peeked bytes first and then from the container's stream, which also
+     * backs non-blocking reads: a ReadListener is registered there, and if the container reports
+     * all data read while peeked bytes are still unread, the listener gets those first.
+     */
+    private static final class PeekedRequest extends HttpServletRequestWrapper {
+        private final ServletInputStream body;
+        private BufferedReader reader;
+
+        PeekedRequest(HttpServletRequest request, byte[] head) throws IOException {
+            super(request);
+            ByteArrayInputStream peeked = new ByteArrayInputStream(head);
+            ServletInputStream rest = request.getInputStream();
+            this.body = new ServletInputStream() {
+                @Override
+                public int read() throws IOException {
+                    return peeked.available() > 0 ? peeked.read() : rest.read();
+                }
+
+                @Override
+                public int read(byte[] buf, int off, int len) throws IOException {
+                    if (len == 0) return 0;
+                    return peeked.available() > 0 ? peeked.read(buf, off, len) : rest.read(buf, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return peeked.available() == 0 && rest.isFinished();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return peeked.available() > 0 || rest.isReady();
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    rest.setReadListener(new ReadListener() {
+                        @Override
+                        public void onDataAvailable() throws IOException {
+                            listener.onDataAvailable();
+                        }
+
+                        @Override
+                        public void onAllDataRead() throws IOException {
+                            // the whole body may have been peeked: hand that over before the end
+                            if (peeked.available() > 0) listener.onDataAvailable();
+                            listener.onAllDataRead();
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            listener.onError(t);
+                        }
+                    });
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            if (reader == null) {
+                String enc = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(body, enc != null ? Charset.forName(enc) : StandardCharsets.UTF_8));
+            }
+            return reader;
+        }
+    }
+}
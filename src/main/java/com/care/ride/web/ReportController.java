@@ -0,0 +1,76 @@
+package com.care.ride.web;
+
+import com.care.ride.service.Bulkhead;
+import com.care.ride.service.ReportService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Daily counts from the report rollups ({@link ReportService}): bookings by pickup day, service
+ * type and status, and contact-form submissions by day and reason, both by day in
+ * {@code intake.capacity.zone}. A report reads a handful of rows per day however large the
+ * underlying tables are. {@code POST /rebuild} recounts a range from the base tables and is ADMIN
+ * only (SecurityConfig); the rest is open to dispatch staff.
+ */
+@RestController
+@RequestMapping("/api/dispatch/reports")
+public class ReportController {
+    private final ReportService reportService;
+    private final Bulkhead dbBulkhead;
+
+    @Value("${report.max-days:366}")
+    private int maxDays;
+
+    public ReportController(ReportService reportService, @Qualifier("dbBulkhead") Bulkhead dbBulkhead) {
+        this.reportService = reportService;
+        this.dbBulkhead = dbBulkhead;
+    }
+
+    @GetMapping("/bookings")
+    public ResponseEntity<?> bookings(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                      @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                      @RequestParam(value = "serviceTypeId", required = false) Integer serviceTypeId) {
+        String error = checkRange(from, to);
+        if (error != null) return ResponseEntity.badRequest().body(Map.of("error", error));
+        return ResponseEntity.ok(dbBulkhead.call(() -> reportService.bookings(from, to, serviceTypeId)));
+    }
+
+    @GetMapping("/contacts")
+    public ResponseEntity<?> contacts(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                      @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        String error = checkRange(from, to);
+        if (error != null) return ResponseEntity.badRequest().body(Map.of("error", error));
+        return ResponseEntity.ok(dbBulkhead.call(() -> reportService.contacts(from, to)));
+    }
+
+    /** Runs to completion on the request thread; a range of years takes a while. */
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(reportService.rebuild(from, to));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        } catch (ReportService.RebuildRunningException ex) {
+            return ResponseEntity.status(409).body(Map.of("error", "REBUILD_RUNNING", "message", ex.getMessage()));
+        } catch (ConcurrencyFailureException ex) {
+            // a chunk kept changing under every attempt; the other chunks are committed
+            return ResponseEntity.status(503).header("Retry-After", "10")
+                    .body(Map.of("error", "BUSY", "message", "counts kept changing during the rebuild, try again"));
+        }
+    }
+
+    private String checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) return "to must not be before from";
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) return "at most " + maxDays + " days at a time";
+        return null;
+    }
+}
@@ -0,0 +1,116 @@
+package com.care.ride.web;
+
+import com.care.ride.dto.ScheduleRequest;
+import com.care.ride.dto.ScheduleView;
+import com.care.ride.service.Bulkhead;
+import com.care.ride.service.ScheduleService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recurring rides ({@link ScheduleService}). A create or edit answers with the schedule, how many
+ * bookings it created, updated and removed, and the dates it could not book for want of a vehicle.
+ * {@code DELETE /{id}} ends a series from {@code from} (default today): its open bookings from
+ * then on are removed, earlier ones stay. {@code /occurrences} lists the rides of a date range,
+ * bookings, dates still waiting for a vehicle (NO_VEHICLE) and not-yet-booked occurrences alike.
+ *
+ * Under /api/dispatch, so staff only (SecurityConfig).
+ */
+@RestController
+@RequestMapping("/api/dispatch/schedules")
+public class ScheduleController {
+    private final ScheduleService scheduleService;
+    private final Bulkhead dbBulkhead;
+
+    @Value("${dispatch.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${dispatch.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${schedule.expand.max-days:92}")
+    private int maxDays;
+
+    public ScheduleController(ScheduleService scheduleService, @Qualifier("dbBulkhead") Bulkhead dbBulkhead) {
+        this.scheduleService = scheduleService;
+        this.dbBulkhead = dbBulkhead;
+    }
+
+    /** By id; pass {@code nextCursor} as {@code cursor} for the next page. */
+    @GetMapping
+    public ResponseEntity<?> list(@RequestParam(value = "active", required = false) Boolean active,
+                                  @RequestParam(value = "cursor", required = false) Long cursor,
+                                  @RequestParam(value = "limit", required = false) Integer limit) {
+        int size = Math.max(1, Math.min(limit != null ? limit : defaultPageSize, maxPageSize));
+        List<ScheduleView> rows = dbBulkhead.call(() -> scheduleService.list(active, cursor == null ? 0 : cursor, size + 1));
+        boolean more = rows.size() > size;
+        List<ScheduleView> page = more ? rows.subList(0, size) : rows;
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("items", page);
+        body.put("nextCursor", more ? page.get(size - 1).id() : null);
+        return ResponseEntity.ok(body);
+    }
+
+    @PostMapping
+    public ResponseEntity<?> create(@RequestBody ScheduleRequest req) {
+        try {
+            ScheduleService.Saved saved = dbBulkhead.call(() -> scheduleService.create(req));
+            return ResponseEntity.created(URI.create("/api/dispatch/schedules/" + saved.schedule().id())).body(saved);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(@PathVariable("id") Long id) {
+        return dbBulkhead.call(() -> scheduleService.find(id))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /** Fields left out stay as they are; changes apply to the series from {@code effectiveFrom} (default today). */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> update(@PathVariable("id") Long id, @RequestBody ScheduleRequest req) {
+        try {
+            return dbBulkhead.call(() -> scheduleService.update(id, req))
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> end(@PathVariable("id") Long id,
+                                 @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from) {
+        ScheduleRequest req = new ScheduleRequest(null, null, null, null, null, null, null, null, null, null, null, false, from);
+        return dbBulkhead.call(() -> scheduleService.update(id, req))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /** {@code from} through {@code to} inclusive, at most {@code schedule.expand.max-days} days. */
+    @GetMapping("/occurrences")
+    public ResponseEntity<?> occurrences(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(value = "scheduleId", required = false) Long scheduleId) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "to must not be before from"));
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            return ResponseEntity.badRequest().body(Map.of("error", "at most " + maxDays + " days at a time"));
+        }
+        return ResponseEntity.ok(dbBulkhead.call(() -> scheduleService.occurrences(from, to, scheduleId)));
+    }
+}
@@ -0,0 +1,80 @@
+package com.care.ride.web;
+
+import com.care.ride.service.StaffTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Authenticates staff-API requests, statelessly, from one of:
+ * <ul>
+ *   <li>{@code Authorization: Bearer <jwt>} from {@code POST /api/auth/login}, checked by
+ *       {@link StaffTokenService} (cached after the first request)</li>
+ *   <li>{@code X-Dispatch-Token}, the shared dispatch.api-token that dashboards used before staff
+ *       logins existed; it grants the DISPATCH role only</li>
+ *   <li>{@code ?token=} on the live feed, for browsers' EventSource, which cannot send headers;
+ *       either of the two above</li>
+ * </ul>
+ * Requests without usable credentials go on unauthenticated and SecurityConfig decides. Only
+ * registered in the staff filter chain, not as a servlet filter of its own.
+ */
+public class StaffAuthenticationFilter extends OncePerRequestFilter {
+    public static final String DISPATCH_TOKEN_PRINCIPAL = "dispatch-token";
+    private static final String EVENTS_PATH = "/api/dispatch/events";
+
+    private final StaffTokenService tokens;
+    private final byte[] dispatchToken;
+
+    public StaffAuthenticationFilter(StaffTokenService tokens, String dispatchToken) {
+        this.tokens = tokens;
+        this.dispatchToken = dispatchToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication auth = null;
+        String header = request.getHeader("Authorization");
+        if (header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            auth = fromJwt(header.substring(7).trim());
+        } else {
+            String shared = request.getHeader("X-Dispatch-Token");
+            if (shared == null && EVENTS_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()))) {
+                shared = request.getParameter("token");
+            }
+            if (shared != null) {
+                auth = shared.indexOf('.') > 0 ? fromJwt(shared) : fromSharedToken(shared);
+            }
+        }
+        if (auth != null) {
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(auth);
+            SecurityContextHolder.setContext(context);
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Authentication fromJwt(String token) {
+        StaffTokenService.StaffPrincipal p = tokens.authenticate(token);
+        return p == null ? null : UsernamePasswordAuthenticationToken.authenticated(p, null, p.authorities());
+    }
+
+    private Authentication fromSharedToken(String token) {
+        if (dispatchToken.length == 0 || !MessageDigest.isEqual(dispatchToken, token.getBytes(StandardCharsets.UTF_8))) {
+            return null;
+        }
+        return UsernamePasswordAuthenticationToken.authenticated(DISPATCH_TOKEN_PRINCIPAL, null,
+                AuthorityUtils.createAuthorityList("ROLE_DISPATCH"));
+    }
+}
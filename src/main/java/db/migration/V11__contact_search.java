@@ -0,0 +1,77 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Statement;
+
+/**
+ * Search over contacts and bookings (SearchService). Both tables get phone_key / email_key, the
+ * caller's phone and email in the form {@link com.care.ride.domain.ContactKeys} produces, indexed
+ * with id so a lookup by caller is an index range read in result order. The entities keep them up
+ * to date; existing rows are backfilled here with the same rules in SQL.
+ *
+ * On Postgres each table also gets a weighted search_vector tsvector (names first, then
+ * reason / notes, then message / addresses), maintained by a trigger and GIN-indexed on the
+ * partitioned parent so every monthly partition, including ones ArchiveService creates later,
+ * gets its own index. H2 (local profile) has no full-text types; SearchService keeps an
+ * in-memory index there instead.
+ */
+public class V11__contact_search extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        boolean postgres = "PostgreSQL".equals(context.getConnection().getMetaData().getDatabaseProductName());
+        // H2's regexp_replace is global by default and takes no 'g' flag
+        String digits = postgres ? "regexp_replace(phone, '[^0-9]', '', 'g')" : "regexp_replace(phone, '[^0-9]', '')";
+        try (Statement st = context.getConnection().createStatement()) {
+            for (String table : new String[] {"booking", "contacts"}) {
+                st.execute("alter table " + table + " add column if not exists phone_key varchar(20)");
+                st.execute("alter table " + table + " add column if not exists email_key varchar(255)");
+                st.execute("update " + table + " set"
+                        + " phone_key = case when length(" + digits + ") = 11 and " + digits + " like '1%' then substring(" + digits + " from 2)"
+                        + " when length(" + digits + ") between 7 and 20 then " + digits + " end,"
+                        + " email_key = nullif(lower(trim(email)), '')");
+                st.execute("create index if not exists idx_" + table + "_phone_key on " + table + "(phone_key, id)");
+                st.execute("create index if not exists idx_" + table + "_email_key on " + table + "(email_key, id)");
+            }
+            if (postgres) {
+                searchVector(st, "contacts", "name, reason, message",
+                        "%1$sname", "%1$sreason", "%1$smessage");
+                searchVector(st, "booking", "full_name, notes, pickup_address, dropoff_address",
+                        "%1$sfull_name", "%1$snotes", "%1$spickup_address || ' ' || %1$sdropoff_address");
+            }
+        }
+    }
+
+    /** Weights A, B and C are column expressions with {@code %1$s} where the row prefix goes. */
+    private static void searchVector(Statement st, String table, String columns, String... weighted) throws Exception {
+        st.execute("alter table " + table + " add column search_vector tsvector");
+        st.execute("create function " + table + "_search_vector() returns trigger language plpgsql as $$ begin"
+                + " new.search_vector := " + vector(weighted, "new.") + "; return new; end $$");
+        st.execute("create trigger " + table + "_search_vector_insert before insert on " + table
+                + " for each row execute function " + table + "_search_vector()");
+        // status changes and the like leave the vector alone
+        StringBuilder changed = new StringBuilder();
+        for (String col : columns.split(", ")) {
+            if (!changed.isEmpty()) changed.append(" or ");
+            changed.append("old.").append(col).append(" is distinct from new.").append(col);
+        }
+        st.execute("create trigger " + table + "_search_vector_update before update of " + columns + " on " + table
+                + " for each row when (" + changed + ") execute function " + table + "_search_vector()");
+        st.execute("update " + table + " set search_vector = " + vector(weighted, ""));
+        st.execute("create index idx_" + table + "_search on " + table + " using gin (search_vector)");
+        // every row was just rewritten; the planner needs word statistics before the first search
+        st.execute("analyze " + table);
+    }
+
+    private static String vector(String[] weighted, String prefix) {
+        StringBuilder v = new StringBuilder();
+        for (int i = 0; i < weighted.length; i++) {
+            if (i > 0) v.append(" || ");
+            v.append("setweight(to_tsvector('english', coalesce(").append(weighted[i].formatted(prefix))
+                    .append(", '')), '").append((char) ('A' + i)).append("')");
+        }
+        return v.toString();
+    }
+}
@@ -0,0 +1,32 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Booking ids move from IDENTITY to booking_seq, a pooled sequence (allocationSize 50 on the
+ * entity), so Hibernate can batch inserts. The pooled optimizer treats nextval() as the top of a
+ * 50-wide block, so the sequence must start at least 50 above the highest existing id. Java rather
+ * than SQL because setval() is Postgres-only and the local profile runs these migrations on H2.
+ */
+public class V3__booking_sequence extends BaseJavaMigration {
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement st = context.getConnection().createStatement()) {
+            long maxId;
+            try (ResultSet rs = st.executeQuery("select coalesce(max(id), 0) from booking")) {
+                rs.next();
+                maxId = rs.getLong(1);
+            }
+            long start = maxId + ALLOCATION_SIZE;
+            st.execute("create sequence if not exists booking_seq start with " + start + " increment by " + ALLOCATION_SIZE);
+            // ddl-auto may already have created it starting at 1
+            st.execute("alter sequence booking_seq restart with " + start);
+        }
+    }
+}
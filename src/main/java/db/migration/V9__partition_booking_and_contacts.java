@@ -0,0 +1,104 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * On Postgres, booking and contacts become range-partitioned by month (UTC) on pickup_time and
+ * created_at: date-bounded queries only scan the months they cover, and ArchiveService retires an
+ * old month by detaching and dropping its partition instead of deleting rows. Partitions are
+ * created for every month that has rows through MONTHS_AHEAD months from now (ArchiveService keeps
+ * extending that), plus a default partition so no insert can fail for want of one. Existing rows
+ * are copied in this migration, which is fine at our table sizes.
+ *
+ * A partitioned table can only enforce unique keys that include the partition key, so the
+ * Idempotency-Key uniqueness from V7 moves to its own idempotency_key table, on every database so
+ * H2 behaves the same; the key columns keep a plain index for the replay lookup. H2 (local
+ * profile) has no declarative partitioning and keeps plain tables.
+ */
+public class V9__partition_booking_and_contacts extends BaseJavaMigration {
+    private static final int MONTHS_AHEAD = 6;
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        boolean postgres = "PostgreSQL".equals(context.getConnection().getMetaData().getDatabaseProductName());
+        try (Statement st = context.getConnection().createStatement()) {
+            st.execute("create table if not exists idempotency_key ("
+                    + "scope varchar(20) not null, idempotency_key varchar(100) not null, "
+                    + "created_at timestamp(6) with time zone not null default now(), "
+                    + "primary key (scope, idempotency_key))");
+            st.execute("insert into idempotency_key(scope, idempotency_key, created_at) "
+                    + "select 'booking', idempotency_key, created_at from booking where idempotency_key is not null");
+            st.execute("insert into idempotency_key(scope, idempotency_key) "
+                    + "select 'contact', idempotency_key from contacts where idempotency_key is not null");
+            st.execute("drop index if exists uq_booking_idempotency_key");
+            st.execute("drop index if exists uq_contacts_idempotency_key");
+
+            // the partition key is part of the primary key, so it cannot be null
+            st.execute("update contacts set created_at = localtimestamp where created_at is null");
+            st.execute("alter table contacts alter column created_at set not null");
+
+            if (postgres) {
+                partition(st, "booking", "pickup_time", true, List.of("alter table booking add foreign key (service_type_id) references service_type(id)"));
+                partition(st, "contacts", "created_at", false, List.of());
+                // contacts ids come from the column default (IDENTITY on the entity); booking ids from booking_seq
+                st.execute("create sequence contacts_id_seq owned by contacts.id");
+                st.execute("select setval('contacts_id_seq', (select coalesce(max(id), 0) + 1 from contacts), false)");
+                st.execute("alter table contacts alter column id set default nextval('contacts_id_seq')");
+            }
+
+            st.execute("create index if not exists idx_booking_pickup on booking(pickup_time, id)");
+            st.execute("create index if not exists idx_booking_status_pickup on booking(status, pickup_time, id)");
+            st.execute("create index if not exists idx_booking_service_pickup on booking(service_type_id, pickup_time, id)");
+            st.execute("create index if not exists idx_booking_created_at on booking(created_at)");
+            st.execute("create index if not exists idx_booking_idempotency_key on booking(idempotency_key)");
+            st.execute("create index if not exists idx_contacts_created_at on contacts(created_at)");
+            st.execute("create index if not exists idx_contacts_idempotency_key on contacts(idempotency_key)");
+        }
+    }
+
+    /** Swap {@code table} for a partitioned copy; secondary indexes are created afterwards on the parent. */
+    private static void partition(Statement st, String table, String key, boolean withTimeZone, List<String> constraints) throws Exception {
+        String old = table + "_unpartitioned";
+        st.execute("alter table " + table + " rename to " + old);
+        st.execute("create table " + table + " (like " + old + " including defaults including constraints) partition by range (" + key + ")");
+        // the old id default points at a sequence owned by the old table
+        st.execute("alter table " + table + " alter column id drop default");
+
+        YearMonth first = YearMonth.now(ZoneOffset.UTC);
+        try (ResultSet rs = st.executeQuery("select min(" + key + ") from " + old)) {
+            rs.next();
+            Timestamp min = rs.getTimestamp(1);
+            if (min != null) {
+                // created_at has no zone: take its wall-clock month, as the partition bounds do
+                YearMonth oldest = withTimeZone ? YearMonth.from(min.toInstant().atZone(ZoneOffset.UTC)) : YearMonth.from(min.toLocalDateTime());
+                if (oldest.isBefore(first)) first = oldest;
+            }
+        }
+        YearMonth last = YearMonth.now(ZoneOffset.UTC).plusMonths(MONTHS_AHEAD);
+        for (YearMonth m = first; !m.isAfter(last); m = m.plusMonths(1)) {
+            st.execute("create table " + table + "_p" + m.format(SUFFIX) + " partition of " + table
+                    + " for values from (" + bound(m, withTimeZone) + ") to (" + bound(m.plusMonths(1), withTimeZone) + ")");
+        }
+        st.execute("create table " + table + "_pdefault partition of " + table + " default");
+
+        st.execute("insert into " + table + " select * from " + old);
+        st.execute("drop table " + old);
+        // after the drop: the old table still holds the <table>_pkey name
+        st.execute("alter table " + table + " add primary key (id, " + key + ")");
+        for (String c : constraints) st.execute(c);
+    }
+
+    private static String bound(YearMonth m, boolean withTimeZone) {
+        return "'" + m.atDay(1) + " 00:00:00" + (withTimeZone ? "+00" : "") + "'";
+    }
+}
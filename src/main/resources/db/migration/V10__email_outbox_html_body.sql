@@ -0,0 +1,2 @@
+-- HTML alternative of a queued notification; rows without one go out as plain text
+alter table email_outbox add column if not exists html_body text;
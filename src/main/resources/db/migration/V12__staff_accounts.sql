@@ -0,0 +1,19 @@
+-- Staff logins for the dispatch/admin API (StaffAccountService). roles is a comma-separated list
+-- (DISPATCH, ADMIN); tokens issued before tokens_valid_after are refused (password change, revoke-all).
+create table if not exists staff_user (
+  username varchar(64) primary key,
+  password_hash varchar(100) not null,
+  roles varchar(100) not null,
+  enabled boolean not null default true,
+  tokens_valid_after timestamp(6) with time zone,
+  created_at timestamp(6) with time zone not null default now(),
+  updated_at timestamp(6) with time zone not null default now()
+);
+
+-- Individually revoked tokens (logout), kept until they would have expired anyway
+create table if not exists staff_token_revocation (
+  jti varchar(64) primary key,
+  username varchar(64) not null,
+  expires_at timestamp(6) with time zone not null
+);
+create index if not exists idx_staff_token_revocation_expires on staff_token_revocation(expires_at);
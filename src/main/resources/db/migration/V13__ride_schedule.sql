@@ -0,0 +1,34 @@
+-- Standing ride orders (ScheduleService): the ride details once, an RRULE-style recurrence from
+-- starts_on at pickup_local_time (intake.capacity.zone), and the dates it skips. ends_on is the
+-- rule's last date (null when open-ended). Booking rows are only created through
+-- materialized_through, a rolling horizon the materialization job moves forward.
+create table if not exists ride_schedule (
+  id bigint generated by default as identity primary key,
+  full_name varchar(255) not null,
+  phone varchar(255) not null,
+  email varchar(255),
+  pickup_address varchar(255) not null,
+  dropoff_address varchar(255) not null,
+  service_type_id int not null references service_type(id),
+  notes varchar(255),
+  pickup_local_time time not null,
+  starts_on date not null,
+  recurrence varchar(200) not null,
+  ends_on date,
+  materialized_through date,
+  active boolean not null default true,
+  created_at timestamp(6) with time zone not null default now(),
+  updated_at timestamp(6) with time zone not null default now()
+);
+create index if not exists idx_ride_schedule_due on ride_schedule(active, materialized_through);
+
+create table if not exists ride_schedule_exception (
+  schedule_id bigint not null references ride_schedule(id),
+  skipped_on date not null,
+  primary key (schedule_id, skipped_on)
+);
+
+-- Series a booking was created from. No foreign key: archived months keep the id of a series that
+-- may be gone by the time they are read back.
+alter table booking add column if not exists schedule_id bigint;
+create index if not exists idx_booking_schedule on booking(schedule_id, pickup_time);
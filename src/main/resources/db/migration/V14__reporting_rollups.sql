@@ -0,0 +1,22 @@
+-- Daily counts for reporting (ReportService): bookings per pickup day (intake.capacity.zone),
+-- service type and status; contacts per created_at day and reason ('' when none). Each intake,
+-- status change or removal adds its +1/-1 to one of report.stripes rows of its group in the same
+-- transaction, so busy groups are not one hot row; a group's count is the sum over its stripes,
+-- and a single stripe can go negative. Rebuilds fold a day into stripe -1. Rows stay when
+-- ArchiveService retires the bookings or contacts they count.
+create table if not exists booking_daily (
+  report_day date not null,
+  service_type_id int not null,
+  status varchar(20) not null,
+  stripe smallint not null,
+  n bigint not null,
+  primary key (report_day, service_type_id, status, stripe)
+);
+
+create table if not exists contact_daily (
+  report_day date not null,
+  reason varchar(255) not null,
+  stripe smallint not null,
+  n bigint not null,
+  primary key (report_day, reason, stripe)
+);
@@ -0,0 +1,8 @@
+-- Occurrences of a series that found no vehicle free (ScheduleService). They are listed as
+-- NO_VEHICLE and retried by every run of the materialization job until booked or past; an edit
+-- of the series rebuilds its rows from the edit's effective day.
+create table if not exists ride_schedule_unbooked (
+  schedule_id bigint not null references ride_schedule(id),
+  occurrence_on date not null,
+  primary key (schedule_id, occurrence_on)
+);
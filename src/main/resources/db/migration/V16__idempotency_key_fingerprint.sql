@@ -0,0 +1,4 @@
+-- Payload fingerprint of the request that used the key (IdempotencyIndex.fingerprint), so a retry
+-- the in-memory index has forgotten can still be told apart from a different request reusing the
+-- key. Null for keys recorded before this column existed: those are replayed as before.
+alter table idempotency_key add column if not exists fingerprint varchar(64);
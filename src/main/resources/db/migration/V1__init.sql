@@ -1,24 +1,37 @@
-
-create table service_type (
+-- Baseline schema. Written with "if not exists" so databases first built by Hibernate's
+-- ddl-auto (before Flyway took over) can be brought under Flyway with baseline-on-migrate.
+create table if not exists service_type (
   id serial primary key,
-  name varchar(60) not null,
+  name varchar(255) not null,
   description varchar(255) not null
 );
-insert into service_type(name,description) values
-('Ambulatory Transport','Curb-to-curb rides'),
-('Wheelchair Transport','Accessible van with ramp'),
-('Stretcher Transport','Stretcher-ready vehicle');
+insert into service_type(name,description)
+select v.name, v.description from (values
+  ('Ambulatory Transport','Curb-to-curb rides'),
+  ('Wheelchair Transport','Accessible van with ramp'),
+  ('Stretcher Transport','Stretcher-ready vehicle')
+) as v(name, description)
+where not exists (select 1 from service_type);
 
-create table booking (
+create table if not exists booking (
   id bigserial primary key,
-  full_name varchar(120) not null,
-  phone varchar(30) not null,
-  email varchar(120),
+  full_name varchar(255) not null,
+  phone varchar(255) not null,
+  email varchar(255),
   pickup_address varchar(255) not null,
   dropoff_address varchar(255) not null,
-  pickup_time timestamp not null,
+  pickup_time timestamp(6) with time zone not null,
   service_type_id int not null references service_type(id),
-  notes varchar(500),
-  created_at timestamp not null default now(),
-  status varchar(20) not null default 'PENDING'
+  notes varchar(255),
+  status varchar(255) not null default 'PENDING'
+);
+
+create table if not exists contacts (
+  id bigserial primary key,
+  name varchar(255),
+  email varchar(255),
+  phone varchar(255),
+  reason varchar(255),
+  message text,
+  created_at timestamp(6)
 );
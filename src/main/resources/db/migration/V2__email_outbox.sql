@@ -0,0 +1,13 @@
+create table if not exists email_outbox (
+  id bigserial primary key,
+  recipient varchar(255) not null,
+  subject varchar(255) not null,
+  body text not null,
+  status varchar(20) not null,
+  attempts int not null default 0,
+  created_at timestamp(6) with time zone not null default now(),
+  next_attempt_at timestamp(6) with time zone not null,
+  sent_at timestamp(6) with time zone,
+  last_error varchar(500)
+);
+create index if not exists idx_email_outbox_due on email_outbox(status, next_attempt_at);
@@ -0,0 +1,5 @@
+-- Keyset pagination for the dispatch query orders by (pickup_time, id); each index leads with the
+-- equality filter it serves so a page is a bounded range scan regardless of table size.
+create index if not exists idx_booking_pickup on booking(pickup_time, id);
+create index if not exists idx_booking_status_pickup on booking(status, pickup_time, id);
+create index if not exists idx_booking_service_pickup on booking(service_type_id, pickup_time, id);
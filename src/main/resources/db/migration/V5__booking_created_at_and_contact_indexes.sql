@@ -0,0 +1,6 @@
+-- booking.created_at was in the original design but never mapped, so schemas built by ddl-auto
+-- lack it; existing rows get the migration time.
+alter table booking add column if not exists created_at timestamp(6) with time zone not null default now();
+create index if not exists idx_booking_created_at on booking(created_at);
+
+create index if not exists idx_contacts_created_at on contacts(created_at);
@@ -0,0 +1,2 @@
+-- request id of the intake call that queued the notification, restored into the logging MDC on delivery
+alter table email_outbox add column if not exists correlation_id varchar(64);
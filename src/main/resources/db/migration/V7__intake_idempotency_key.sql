@@ -0,0 +1,7 @@
+-- Idempotency-Key of the request that created the row (null when the client sent none). Unique,
+-- so a retry the in-memory index has forgotten (restart, another instance) cannot insert twice.
+alter table booking add column if not exists idempotency_key varchar(100);
+create unique index if not exists uq_booking_idempotency_key on booking(idempotency_key);
+
+alter table contacts add column if not exists idempotency_key varchar(100);
+create unique index if not exists uq_contacts_idempotency_key on contacts(idempotency_key);
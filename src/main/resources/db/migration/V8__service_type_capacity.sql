@@ -0,0 +1,4 @@
+-- Fleet size and the time one trip ties up a vehicle, used by the booking availability check.
+-- A null vehicle_count means unlimited (no check) until dispatch fills it in.
+alter table service_type add column if not exists vehicle_count int;
+alter table service_type add column if not exists trip_minutes int not null default 60;